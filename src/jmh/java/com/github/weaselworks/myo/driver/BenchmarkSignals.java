@@ -0,0 +1,68 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+
+import java.util.Random;
+
+/**
+ * Packets shaped like the ones a real armband sends, built from the bundled gesture recordings
+ * so the classifier sees the poses it was trained on rather than noise.
+ */
+public final class BenchmarkSignals {
+
+    public static final int PACKETS = 1024;
+
+    private BenchmarkSignals() {
+    }
+
+    /**
+     * @return EMG notifications cycling through the dataset rows, each channel a sample of
+     *         the row's amplitude with a random sign
+     */
+    public static byte[][] emgPayloads(GestureDataset dataset, int count, long seed) {
+        Random random = new Random(seed);
+        byte[][] payloads = new byte[count][EmgDecoder.PAYLOAD_LENGTH];
+        for (int p = 0; p < count; p++) {
+            int row = (int) ((long) p * dataset.size() / count);
+            for (int c = 0; c < EmgDecoder.CHANNELS; c++) {
+                int amplitude = Math.round(dataset.get(row, c % dataset.getDimensions()));
+                short sample = (short) (random.nextBoolean() ? amplitude : -amplitude);
+                payloads[p][2 * c] = (byte) sample;
+                payloads[p][2 * c + 1] = (byte) (sample >> 8);
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * @return full IMU notifications with random gyro, accelerometer and orientation readings
+     */
+    public static byte[][] imuPayloads(int count, long seed) {
+        Random random = new Random(seed);
+        byte[][] payloads = new byte[count][ImuFrame.PAYLOAD_LENGTH];
+        for (byte[] payload : payloads) {
+            random.nextBytes(payload);
+        }
+        return payloads;
+    }
+
+    /**
+     * @return the payloads wrapped in complete attribute_value events, back to back as the
+     *         serial reader would see them
+     */
+    public static byte[] attributeValuePackets(int connection, int handle, byte[][] payloads) {
+        byte[][] packets = new byte[payloads.length][];
+        int total = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            packets[i] = BgapiPackets.attributeValue(connection, handle, 1, payloads[i], 0, payloads[i].length);
+            total += packets[i].length;
+        }
+        byte[] stream = new byte[total];
+        int at = 0;
+        for (byte[] packet : packets) {
+            System.arraycopy(packet, 0, stream, at, packet.length);
+            at += packet.length;
+        }
+        return stream;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of single EMG and IMU notifications, from the byte arrays bglib hands over and
+ * in place from the zero copy transport's buffer. None of these should allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    private final EmgDecoder emgDecoder = new EmgDecoder();
+    private final EmgDecoder calibratedDecoder = new EmgDecoder();
+    private final ImuFrame imuFrame = new ImuFrame();
+
+    private byte[][] emg;
+    private byte[][] imu;
+    private ByteBuffer emgBuffer;
+    private ByteBuffer imuBuffer;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        emg = BenchmarkSignals.emgPayloads(GestureDataset.loadDefault(), BenchmarkSignals.PACKETS, 1);
+        imu = BenchmarkSignals.imuPayloads(BenchmarkSignals.PACKETS, 2);
+        emgBuffer = pack(emg);
+        imuBuffer = pack(imu);
+        calibratedDecoder.setCalibration(new float[] {1.1f, 0.9f, 1.0f, 1.2f, 0.8f, 1.0f, 1.05f, 0.95f}, 3);
+    }
+
+    @Benchmark
+    public short[] emgFromArray() {
+        return emgDecoder.decode(emg[advance()]);
+    }
+
+    @Benchmark
+    public short[] emgFromBuffer() {
+        return emgDecoder.decode(emgBuffer, advance() * EmgDecoder.PAYLOAD_LENGTH);
+    }
+
+    @Benchmark
+    public short[] emgCalibrated() {
+        return calibratedDecoder.decode(emg[advance()]);
+    }
+
+    @Benchmark
+    public ImuFrame imuFromArray() {
+        return imuFrame.decode(imu[advance()], 0L);
+    }
+
+    @Benchmark
+    public ImuFrame imuFromBuffer() {
+        return imuFrame.decode(imuBuffer, advance() * ImuFrame.PAYLOAD_LENGTH, ImuFrame.PAYLOAD_LENGTH, 0L);
+    }
+
+    private int advance() {
+        int packet = next;
+        next = (packet + 1) & (BenchmarkSignals.PACKETS - 1);
+        return packet;
+    }
+
+    private static ByteBuffer pack(byte[][] payloads) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(payloads.length * payloads[0].length);
+        for (byte[] payload : payloads) {
+            buffer.put(payload);
+        }
+        buffer.clear();
+        return buffer;
+    }
+}
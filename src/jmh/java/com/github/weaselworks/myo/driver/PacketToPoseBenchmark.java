@@ -0,0 +1,83 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.classifier.EmgFeatureWindow;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thingml.bglib.BDAddr;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One EMG packet from the serial stream to the pose callback: the dispatcher parses the
+ * attribute_value event in place, the session decodes it, adds it to the feature window and
+ * classifies whenever a window completes. A hop of one classifies every sample. Sample time
+ * shows the tail, which is dominated by the packets that complete a window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketToPoseBenchmark {
+
+    private static final int CONNECTION = 0;
+
+    @Param({"1", "10"})
+    public int hop;
+
+    // timing every stage should cost a few clock reads and allocate nothing
+    @Param({"false", "true"})
+    public boolean trackLatency;
+
+    private final BgapiEventDispatcher dispatcher = new BgapiEventDispatcher();
+    private ByteBuffer stream;
+    private int[] offsets;
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        MyoApplication application = new MyoApplication(null, MyoApplication.loadDefaultClassifier());
+        application.setFeatureWindow(EmgFeatureWindow.DEFAULT_WINDOW, hop);
+        application.onPose(blackhole::consume);
+        if (trackLatency) {
+            application.trackLatency(false);
+        }
+        // nobody asked for this connect, so the session opens once the connection status names the armband
+        application.receive_gap_connect_direct(0, CONNECTION);
+        application.receive_connection_status(CONNECTION, 0, BDAddr.fromString(MyoApplication.PAULSMYO), 0, 0, 0, 0, 0);
+        if (application.getSessionManager().get(CONNECTION) == null) {
+            throw new IllegalStateException("No session opened for connection " + CONNECTION);
+        }
+        dispatcher.subscribeAttributeValues(application);
+
+        byte[][] payloads = BenchmarkSignals.emgPayloads(GestureDataset.loadDefault(), BenchmarkSignals.PACKETS, 3);
+        byte[] packets = BenchmarkSignals.attributeValuePackets(CONNECTION, MyoApplication.EMG_VALUE, payloads);
+        stream = ByteBuffer.allocateDirect(packets.length);
+        stream.put(packets).clear();
+        offsets = new int[payloads.length];
+        int packetLength = packets.length / payloads.length;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i * packetLength;
+        }
+    }
+
+    @Benchmark
+    public boolean emgPacket() {
+        int packet = next;
+        next = (packet + 1) & (BenchmarkSignals.PACKETS - 1);
+        return dispatcher.dispatch(stream, offsets[packet]);
+    }
+}
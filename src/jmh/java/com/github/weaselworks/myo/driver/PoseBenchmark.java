@@ -0,0 +1,48 @@
+package com.github.weaselworks.myo.driver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up a pose by name, as the dataset loaders do for every labelled row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoseBenchmark {
+
+    @Param({"FIST", "RIGHT", "x", ""})
+    public String name;
+
+    // a fresh copy each time, so the switch has to hash the string rather than reuse a cached hash
+    private char[] chars;
+
+    @Setup
+    public void setUp() {
+        chars = name.toCharArray();
+    }
+
+    @Benchmark
+    public Pose fromInterned() {
+        return Pose.fromString(name);
+    }
+
+    @Benchmark
+    public Pose fromParsed() {
+        return Pose.fromString(new String(chars));
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifying one feature window with the k nearest neighbours tree, on rows of the bundled
+ * recordings with a little noise so the searches don't all hit an exact match.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifyBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"1", "10"})
+    public int k;
+
+    private KdTreeClassifier classifier;
+    private float[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        classifier = new KdTreeClassifier(dataset, k);
+        Random random = new Random(4);
+        queries = new float[QUERIES][dataset.getDimensions()];
+        for (float[] query : queries) {
+            dataset.copyRow(random.nextInt(dataset.size()), query);
+            for (int d = 0; d < query.length; d++) {
+                query[d] += (float) random.nextGaussian();
+            }
+        }
+    }
+
+    @Benchmark
+    public Pose knn() {
+        float[] query = queries[next];
+        next = (next + 1) & (QUERIES - 1);
+        return classifier.classify(query);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.weaselworks.myo.driver;
+
+/**
+ * What a buffered sensor subscription does when its consumer falls behind and the buffer is full.
+ */
+public enum BackpressurePolicy {
+
+    /** Evict the oldest buffered sample to make room for the new one. */
+    DROP_OLDEST,
+
+    /** Discard the new sample and keep what is buffered. */
+    DROP_NEWEST,
+
+    /** Keep only the most recent sample, the buffer holds at most one. */
+    CONFLATE_LATEST,
+
+    /** Make the producer wait for room. Stalls whichever thread decodes the data. */
+    BLOCK
+}
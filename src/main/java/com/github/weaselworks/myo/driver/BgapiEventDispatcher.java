@@ -0,0 +1,200 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.listener.AttributeValueSink;
+import com.github.weaselworks.myo.driver.listener.BgapiPacketHandler;
+import org.thingml.bglib.BDAddr;
+import org.thingml.bglib.BGAPIListener;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+
+/**
+ * Routes BGAPI packets by (message type, class, id) through a handler table. The header is
+ * decoded once and the handlers are a single array load away, so a packet nobody subscribed to
+ * costs one lookup instead of a call on every listener for every event, which is what the bglib
+ * {@code BGAPIDefaultListener} fan-out does.
+ *
+ * Subscriptions are copy-on-write, dispatch takes no locks and is meant to run on the reader thread.
+ */
+public class BgapiEventDispatcher {
+
+    // BGAPI defines fewer than 16 classes, ids are a single byte
+    public static final int MAX_CLASSES = 16;
+    public static final int MAX_IDS = 256;
+
+    private static final BgapiPacketHandler[] NONE = new BgapiPacketHandler[0];
+
+    private final AtomicReferenceArray<BgapiPacketHandler[]> handlers = new AtomicReferenceArray<>(2 * MAX_CLASSES * MAX_IDS);
+    // only touched on the reader thread
+    private long receivedNanos;
+
+    /**
+     * @param messageType {@link BgapiProtocol#MESSAGE_TYPE_EVENT} or {@link BgapiProtocol#MESSAGE_TYPE_COMMAND}
+     *                    for command responses
+     */
+    public synchronized void subscribe(int messageType, int classId, int id, BgapiPacketHandler handler) {
+        if (handler == null) throw new IllegalArgumentException("Cannot subscribe a null handler");
+        int index = index(messageType, classId, id);
+        BgapiPacketHandler[] current = handlers.get(index);
+        if (current == null) {
+            current = NONE;
+        }
+        BgapiPacketHandler[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = handler;
+        handlers.set(index, updated);
+    }
+
+    public synchronized void unsubscribe(int messageType, int classId, int id, BgapiPacketHandler handler) {
+        int index = index(messageType, classId, id);
+        BgapiPacketHandler[] current = handlers.get(index);
+        if (current == null) {
+            return;
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == handler) {
+                if (current.length == 1) {
+                    handlers.set(index, null);
+                } else {
+                    BgapiPacketHandler[] updated = new BgapiPacketHandler[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    handlers.set(index, updated);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Subscribes the sink to attclient attribute_value events.
+     *
+     * @return the handler, to unsubscribe it again
+     */
+    public BgapiPacketHandler subscribeAttributeValues(AttributeValueSink sink) {
+        BgapiPacketHandler handler = attributeValueHandler(sink);
+        subscribe(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_ATTRIBUTE_VALUE, handler);
+        return handler;
+    }
+
+    /**
+     * Subscribes the listener to the connection and GATT packets the driver acts on: the gap
+     * connect_direct, connection disconnect and attclient attribute_write responses, and the
+     * connection status, connection disconnected and attclient procedure_completed events. They
+     * are decoded into the same receive_* calls bglib would make. Packets claimed here never
+     * reach bglib, so every listener that wants them has to subscribe.
+     */
+    public void subscribeConnectionEvents(BGAPIListener listener) {
+        subscribe(MESSAGE_TYPE_COMMAND, CLASS_GAP, GAP_CONNECT_DIRECT, (buffer, offset, length) -> {
+            if (length >= 3) {
+                listener.receive_gap_connect_direct(uint16(buffer, offset), uint8(buffer, offset + 2));
+            }
+        });
+        subscribe(MESSAGE_TYPE_COMMAND, CLASS_CONNECTION, CONNECTION_DISCONNECT, (buffer, offset, length) -> {
+            if (length >= 3) {
+                listener.receive_connection_disconnect(uint8(buffer, offset), uint16(buffer, offset + 1));
+            }
+        });
+        subscribe(MESSAGE_TYPE_EVENT, CLASS_CONNECTION, EVENT_CONNECTION_STATUS, (buffer, offset, length) -> {
+            if (length >= 16) {
+                listener.receive_connection_status(uint8(buffer, offset), uint8(buffer, offset + 1),
+                        bdAddr(buffer, offset + 2), uint8(buffer, offset + 8), uint16(buffer, offset + 9),
+                        uint16(buffer, offset + 11), uint16(buffer, offset + 13), uint8(buffer, offset + 15));
+            }
+        });
+        subscribe(MESSAGE_TYPE_EVENT, CLASS_CONNECTION, EVENT_CONNECTION_DISCONNECTED, (buffer, offset, length) -> {
+            if (length >= 3) {
+                listener.receive_connection_disconnected(uint8(buffer, offset), uint16(buffer, offset + 1));
+            }
+        });
+        subscribe(MESSAGE_TYPE_COMMAND, CLASS_ATTCLIENT, ATTCLIENT_ATTRIBUTE_WRITE, (buffer, offset, length) -> {
+            if (length >= 3) {
+                listener.receive_attclient_attribute_write(uint8(buffer, offset), uint16(buffer, offset + 1));
+            }
+        });
+        subscribe(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, (buffer, offset, length) -> {
+            if (length >= 5) {
+                listener.receive_attclient_procedure_completed(uint8(buffer, offset), uint16(buffer, offset + 1),
+                        uint16(buffer, offset + 3));
+            }
+        });
+    }
+
+    public boolean isSubscribed(int messageType, int classId, int id) {
+        return handlers.get(index(messageType, classId, id)) != null;
+    }
+
+    /**
+     * Notes when the bytes about to be dispatched were read, handlers can ask for it with
+     * {@link #getReceivedNanos()}. Called by the reader before dispatching.
+     */
+    public void received(long nanos) {
+        receivedNanos = nanos;
+    }
+
+    /**
+     * @return when the read holding the packet being dispatched returned, as from
+     *         {@link System#nanoTime()}, 0 if the reader doesn't say. Only meaningful on the reader thread
+     */
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    /**
+     * Hands the complete packet starting at offset to its handlers.
+     *
+     * @return false if nobody subscribed to the packet
+     */
+    public boolean dispatch(ByteBuffer buffer, int offset) {
+        int first = uint8(buffer, offset);
+        int classId = uint8(buffer, offset + 2);
+        if (classId >= MAX_CLASSES) {
+            return false;
+        }
+        BgapiPacketHandler[] subscribed = handlers.get(indexOf(isEvent(first), classId, uint8(buffer, offset + 3)));
+        if (subscribed == null) {
+            return false;
+        }
+        int length = payloadLength(first, uint8(buffer, offset + 1));
+        for (int i = 0; i < subscribed.length; i++) {
+            subscribed[i].onPacket(buffer, offset + HEADER_LENGTH, length);
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the attribute_value payload (connection uint8, atthandle uint16, type uint8,
+     * length prefixed value) and passes the value on as a view.
+     */
+    static BgapiPacketHandler attributeValueHandler(AttributeValueSink sink) {
+        return (buffer, offset, length) -> {
+            if (length < 5) {
+                return;
+            }
+            int valueLength = Math.min(uint8(buffer, offset + 4), length - 5);
+            sink.onAttributeValue(uint8(buffer, offset), uint16(buffer, offset + 1), uint8(buffer, offset + 3),
+                    buffer, offset + 5, valueLength);
+        };
+    }
+
+    private static BDAddr bdAddr(ByteBuffer buffer, int offset) {
+        byte[] address = new byte[6];
+        for (int i = 0; i < address.length; i++) {
+            address[i] = buffer.get(offset + i);
+        }
+        return new BDAddr(address);
+    }
+
+    private static int index(int messageType, int classId, int id) {
+        if (classId < 0 || classId >= MAX_CLASSES || id < 0 || id >= MAX_IDS) {
+            throw new IllegalArgumentException(String.format("Invalid BGAPI class %d id %d", classId, id));
+        }
+        return indexOf(isEvent(messageType), classId, id);
+    }
+
+    private static int indexOf(boolean event, int classId, int id) {
+        return ((event ? MAX_CLASSES : 0) + classId) * MAX_IDS + id;
+    }
+}
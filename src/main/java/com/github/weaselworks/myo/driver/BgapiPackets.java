@@ -0,0 +1,154 @@
+package com.github.weaselworks.myo.driver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+
+/**
+ * Encodes the BGAPI responses and events a BLED112 sends, for transports that stand in for
+ * the dongle. Bluetooth addresses are written the way the dongle sends them, least significant
+ * byte first.
+ */
+public final class BgapiPackets {
+
+    public static final int ADDRESS_LENGTH = 6;
+
+    private BgapiPackets() {
+    }
+
+    /**
+     * attclient attribute_value event: connection u8, atthandle u16, type u8, value uint8array.
+     */
+    public static byte[] attributeValue(int connection, int handle, int type, byte[] value, int offset, int length) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_EVENT, 5 + length, CLASS_ATTCLIENT, EVENT_ATTCLIENT_ATTRIBUTE_VALUE);
+        packet.put((byte) connection).putShort((short) handle).put((byte) type).put((byte) length);
+        packet.put(value, offset, length);
+        return packet.array();
+    }
+
+    /**
+     * attclient procedure_completed event: connection u8, result u16, chrhandle u16.
+     */
+    public static byte[] procedureCompleted(int connection, int result, int handle) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_EVENT, 5, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED);
+        packet.put((byte) connection).putShort((short) result).putShort((short) handle);
+        return packet.array();
+    }
+
+    /**
+     * attclient attribute_write response: connection u8, result u16.
+     */
+    public static byte[] attributeWriteResponse(int connection, int result) {
+        return connectionResponse(CLASS_ATTCLIENT, ATTCLIENT_ATTRIBUTE_WRITE, connection, result);
+    }
+
+    /**
+     * The response of the many commands that answer with connection u8, result u16.
+     */
+    public static byte[] connectionResponse(int classId, int commandId, int connection, int result) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_COMMAND, 3, classId, commandId);
+        packet.put((byte) connection).putShort((short) result);
+        return packet.array();
+    }
+
+    /**
+     * The response of the commands that answer with just result u16.
+     */
+    public static byte[] resultResponse(int classId, int commandId, int result) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_COMMAND, 2, classId, commandId);
+        packet.putShort((short) result);
+        return packet.array();
+    }
+
+    /**
+     * system get_info response: major, minor, patch, build, ll_version u16, protocol_version u8, hw u8.
+     */
+    public static byte[] systemInfoResponse(int major, int minor, int patch, int build, int linkLayerVersion, int protocolVersion, int hardware) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_COMMAND, 12, CLASS_SYSTEM, SYSTEM_GET_INFO);
+        packet.putShort((short) major).putShort((short) minor).putShort((short) patch).putShort((short) build);
+        packet.putShort((short) linkLayerVersion).put((byte) protocolVersion).put((byte) hardware);
+        return packet.array();
+    }
+
+    /**
+     * gap connect_direct response: result u16, connection_handle u8.
+     */
+    public static byte[] connectDirectResponse(int result, int connection) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_COMMAND, 3, CLASS_GAP, GAP_CONNECT_DIRECT);
+        packet.putShort((short) result).put((byte) connection);
+        return packet.array();
+    }
+
+    /**
+     * connection status event of an established connection: connection u8, flags u8, address
+     * bd_addr, address_type u8, conn_interval u16, timeout u16, latency u16, bonding u8.
+     */
+    public static byte[] connectionStatus(int connection, String address) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_EVENT, 16, CLASS_CONNECTION, EVENT_CONNECTION_STATUS);
+        // connected and completed
+        packet.put((byte) connection).put((byte) 0x05).put(address(address)).put((byte) 0);
+        packet.putShort((short) 6).putShort((short) 100).putShort((short) 0).put((byte) 0xFF);
+        return packet.array();
+    }
+
+    /**
+     * connection disconnected event: connection u8, reason u16.
+     */
+    public static byte[] disconnected(int connection, int reason) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_EVENT, 3, CLASS_CONNECTION, EVENT_CONNECTION_DISCONNECTED);
+        packet.put((byte) connection).putShort((short) reason);
+        return packet.array();
+    }
+
+    /**
+     * connection disconnect response: connection u8, result u16.
+     */
+    public static byte[] disconnectResponse(int connection, int result) {
+        return connectionResponse(CLASS_CONNECTION, CONNECTION_DISCONNECT, connection, result);
+    }
+
+    /**
+     * gap scan_response event: rssi i8, packet_type u8, sender bd_addr, address_type u8, bond u8, data uint8array.
+     */
+    public static byte[] scanResponse(int rssi, String address, byte[] data) {
+        ByteBuffer packet = packet(MESSAGE_TYPE_EVENT, 11 + data.length, CLASS_GAP, EVENT_GAP_SCAN_RESPONSE);
+        packet.put((byte) rssi).put((byte) 0).put(address(address)).put((byte) 0).put((byte) 0xFF);
+        packet.put((byte) data.length).put(data);
+        return packet.array();
+    }
+
+    /**
+     * @return the address as sent on the wire, e.g. c3:69:40:b1:5d:f6 becomes f6 5d b1 40 69 c3
+     */
+    public static byte[] address(String address) {
+        byte[] bytes = new byte[ADDRESS_LENGTH];
+        if (address == null) {
+            return bytes;
+        }
+        String[] parts = address.split(":");
+        if (parts.length != ADDRESS_LENGTH) throw new IllegalArgumentException("Not a bluetooth address: " + address);
+        for (int i = 0; i < ADDRESS_LENGTH; i++) {
+            bytes[i] = (byte) Integer.parseInt(parts[ADDRESS_LENGTH - 1 - i], 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the address at index in the buffer as text, the inverse of {@link #address(String)}
+     */
+    public static String address(ByteBuffer buffer, int index) {
+        StringBuilder address = new StringBuilder();
+        for (int i = ADDRESS_LENGTH - 1; i >= 0; i--) {
+            address.append(String.format("%02x", uint8(buffer, index + i)));
+            if (i > 0) address.append(':');
+        }
+        return address.toString();
+    }
+
+    private static ByteBuffer packet(int messageType, int payloadLength, int classId, int id) {
+        ByteBuffer packet = ByteBuffer.allocate(HEADER_LENGTH + payloadLength).order(ByteOrder.LITTLE_ENDIAN);
+        putHeader(packet, messageType, payloadLength, classId, id);
+        return packet;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.weaselworks.myo.driver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BGAPI wire format constants and header helpers. Every packet starts with a four byte header:
+ * message type and technology in the top bits of byte 0, an eleven bit payload length split
+ * over bytes 0 and 1, then the class id and the command or event id. Multi byte fields are
+ * little endian.
+ */
+public final class BgapiProtocol {
+
+    public static final int HEADER_LENGTH = 4;
+    public static final int MAX_PAYLOAD_LENGTH = 0x7FF;
+    public static final int MAX_PACKET_LENGTH = HEADER_LENGTH + MAX_PAYLOAD_LENGTH;
+
+    public static final int MESSAGE_TYPE_COMMAND = 0x00;
+    public static final int MESSAGE_TYPE_EVENT = 0x80;
+    private static final int TECHNOLOGY_MASK = 0x78;
+    private static final int LENGTH_HIGH_MASK = 0x07;
+
+    public static final int CLASS_SYSTEM = 0;
+    public static final int CLASS_FLASH = 1;
+    public static final int CLASS_ATTRIBUTES = 2;
+    public static final int CLASS_CONNECTION = 3;
+    public static final int CLASS_ATTCLIENT = 4;
+    public static final int CLASS_SM = 5;
+    public static final int CLASS_GAP = 6;
+    public static final int CLASS_HARDWARE = 7;
+    public static final int CLASS_TEST = 8;
+
+    // command ids, the response to a command has the same id
+    public static final int SYSTEM_RESET = 0;
+    public static final int SYSTEM_HELLO = 1;
+    public static final int SYSTEM_GET_INFO = 8;
+    public static final int CONNECTION_DISCONNECT = 0;
+    public static final int ATTCLIENT_READ_BY_HANDLE = 4;
+    public static final int ATTCLIENT_ATTRIBUTE_WRITE = 5;
+    public static final int ATTCLIENT_WRITE_COMMAND = 6;
+    public static final int GAP_SET_MODE = 1;
+    public static final int GAP_DISCOVER = 2;
+    public static final int GAP_CONNECT_DIRECT = 3;
+    public static final int GAP_END_PROCEDURE = 4;
+    public static final int GAP_SET_SCAN_PARAMETERS = 7;
+
+    // event ids
+    public static final int EVENT_SYSTEM_BOOT = 0;
+    public static final int EVENT_CONNECTION_STATUS = 0;
+    public static final int EVENT_CONNECTION_DISCONNECTED = 4;
+    public static final int EVENT_ATTCLIENT_INDICATED = 0;
+    public static final int EVENT_ATTCLIENT_PROCEDURE_COMPLETED = 1;
+    public static final int EVENT_ATTCLIENT_ATTRIBUTE_VALUE = 5;
+    public static final int EVENT_GAP_SCAN_RESPONSE = 0;
+
+    private BgapiProtocol() {
+    }
+
+    /**
+     * @return false if the byte can't start a BLE packet, which means the stream is out of sync
+     */
+    public static boolean isValidHeaderStart(int first) {
+        return (first & TECHNOLOGY_MASK) == 0;
+    }
+
+    public static boolean isEvent(int first) {
+        return (first & MESSAGE_TYPE_EVENT) != 0;
+    }
+
+    public static int payloadLength(int first, int second) {
+        return ((first & LENGTH_HIGH_MASK) << 8) | (second & 0xFF);
+    }
+
+    /**
+     * Writes a header at the buffer's position.
+     */
+    public static void putHeader(ByteBuffer buffer, int messageType, int payloadLength, int classId, int id) {
+        buffer.put((byte) (messageType | ((payloadLength >> 8) & LENGTH_HIGH_MASK)));
+        buffer.put((byte) payloadLength);
+        buffer.put((byte) classId);
+        buffer.put((byte) id);
+    }
+
+    public static int uint8(ByteBuffer buffer, int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    public static int uint16(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) | ((buffer.get(index + 1) & 0xFF) << 8);
+    }
+
+    public static short int16(ByteBuffer buffer, int index) {
+        return (short) uint16(buffer, index);
+    }
+}
@@ -1,86 +1,59 @@
 package com.github.weaselworks.myo.driver;
 
-import org.thingml.bglib.BGAPI;
-import org.thingml.bglib.BGAPIDefaultListener;
-
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 
 /**
- * This is a custom Future which transforms the send/response callback nature of the writeAttr
- * in the BGAPI api into a blocking call. Returns true if the write was successful.
+ * Result of a queued attribute write. The write is sent by the {@link GattCommandQueue} as soon
+ * as the connection is free, independently of anyone calling {@link #get()}, and completes with
+ * true if the write was successful. Completion is dispatched by the queue's single long lived
+ * listener on (connection, handle), so the future never touches the BGAPI listener list itself.
  */
-public class BgapiWriteAttrFuture extends BGAPIDefaultListener implements Future<Boolean> {
+public class BgapiWriteAttrFuture extends CompletableFuture<Boolean> {
 
-    private volatile BGAPI client = null;
-    private volatile Boolean result = null;
-    private volatile boolean cancelled = false;
-    private final CountDownLatch countDownLatch;
-    private volatile int conn;
-    private volatile int handle;
-    private volatile byte[] data;
+    private final int connection;
+    private final int handle;
+    private final byte[] data;
+    private volatile ScheduledFuture<?> timeout;
+    private volatile long sequence = -1;
 
-    public BgapiWriteAttrFuture(BGAPI client, int conn, int handle, byte[] data)
-    {
-        this.conn = conn;
+    BgapiWriteAttrFuture(int connection, int handle, byte[] data) {
+        this.connection = connection;
         this.handle = handle;
         this.data = data;
-        this.client = client;
-        this.client.addListener(this);
-        countDownLatch = new CountDownLatch(1);
     }
 
-    @Override
-    public boolean cancel(final boolean mayInterruptIfRunning) {
-        if (isDone()) {
-            return false;
-        } else {
-            countDownLatch.countDown();
-            cancelled = true;
-            tidyUp();
-            return !isDone();
-        }
+    public int getConnection() {
+        return connection;
     }
 
-    @Override
-    public Boolean get() throws InterruptedException, ExecutionException {
-        doAttrWrite();
-        countDownLatch.await();
-        tidyUp();
-        return result;
+    public int getHandle() {
+        return handle;
     }
 
-    @Override
-    public Boolean get(final long timeout, final TimeUnit unit)
-            throws InterruptedException, ExecutionException, TimeoutException {
-        doAttrWrite();
-        countDownLatch.await(timeout, unit);
-        tidyUp();
-        return result;
+    byte[] getData() {
+        return data;
     }
 
-    private void doAttrWrite() {
-        client.send_attclient_attribute_write(conn, handle, data);
+    /**
+     * @return the order in which the write was sent on its connection, -1 while it is queued
+     */
+    public long getSequence() {
+        return sequence;
     }
 
-    @Override
-    public boolean isCancelled() {
-        return cancelled;
+    void setSequence(long sequence) {
+        this.sequence = sequence;
     }
 
-    @Override
-    public boolean isDone() {
-        return countDownLatch.getCount() == 0;
+    void setTimeout(ScheduledFuture<?> timeout) {
+        this.timeout = timeout;
     }
 
-
-    @Override
-    public void receive_attclient_procedure_completed(int connection, int result, int chrhandle){
-        this.result = result == 0;
-        countDownLatch.countDown();
-    }
-
-    private void tidyUp() {
-        this.client.removeListener(this);
+    void cancelTimeout() {
+        ScheduledFuture<?> pending = timeout;
+        if (pending != null) {
+            pending.cancel(false);
+        }
     }
-
 }
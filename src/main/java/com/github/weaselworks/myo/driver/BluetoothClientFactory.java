@@ -1,8 +1,11 @@
 package com.github.weaselworks.myo.driver;
 
+import com.github.weaselworks.myo.driver.emulator.Bled112Emulator;
+import com.github.weaselworks.myo.driver.listener.AttributeValueSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thingml.bglib.BGAPI;
+import org.thingml.bglib.BGAPIDefaultListener;
 import org.thingml.bglib.BGAPITransport;
 import purejavacomm.CommPort;
 import purejavacomm.CommPortIdentifier;
@@ -10,56 +13,277 @@ import purejavacomm.PortInUseException;
 import purejavacomm.SerialPort;
 
 import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Opens a BGAPI client on one BLED112 dongle. Every dongle gets its own factory, use
+ * {@link #forAvailablePorts()} to get one for each serial port that is plugged in.
+ *
  * Created by paulwatson on 11/11/2014.
  */
 public class BluetoothClientFactory {
 
     private final static Logger logger = LoggerFactory.getLogger(BluetoothClientFactory.class);
 
-    private static BGAPI client = null;
-    private static SerialPort port = null;
+    /**
+     * System property overriding the serial port used by the default factory.
+     */
+    public static final String PORT_PROPERTY = "myo.serial.port";
+
+    /**
+     * Port name that opens an in process {@link Bled112Emulator} instead of a serial port.
+     */
+    public static final String EMULATOR_PORT = "Emulator";
+
+    /**
+     * How long a port gets to answer the probe of {@link #forAvailablePorts()}.
+     */
+    public static final long PROBE_TIMEOUT_MILLIS = 1000;
+
+    // room for the packets the zero copy reader hands back to bglib while it catches up
+    private static final int FALLBACK_PIPE_SIZE = 65536;
+
+    private static BluetoothClientFactory defaultFactory = null;
+
+    private final String portName;
+    private final BGAPITransport transport;
+    private BGAPI client = null;
+    private SerialPort port = null;
+    private ByteBufferTransport zeroCopy = null;
+
+    public BluetoothClientFactory(String portName) {
+        this(portName, null);
+    }
+
+    private BluetoothClientFactory(String portName, BGAPITransport transport) {
+        if (portName == null) throw new IllegalArgumentException("Cannot open a null port");
+        this.portName = portName;
+        this.transport = transport;
+    }
+
+    /**
+     * @return a factory whose client runs over the transport instead of a serial port, for
+     *         replaying recordings or emulating a dongle. The zero copy reader isn't available
+     */
+    public static BluetoothClientFactory forTransport(String name, BGAPITransport transport) {
+        if (transport == null) throw new IllegalArgumentException("Cannot open a null transport");
+        return new BluetoothClientFactory(name, transport);
+    }
+
+    /**
+     * @return the client of the default dongle, opening it on first use
+     */
+    public static synchronized BGAPI instance() {
+        return instance(null);
+    }
+
+    /**
+     * @param dispatcher handlers for the packets to take off the bglib path, see {@link #connect(BgapiEventDispatcher)}
+     */
+    public static synchronized BGAPI instance(BgapiEventDispatcher dispatcher) {
+        if (defaultFactory == null) {
+            defaultFactory = new BluetoothClientFactory(selectSerialPort());
+        }
+        return defaultFactory.connect(dispatcher);
+    }
+
+    public static synchronized void disconnectBLED112() {
+        if (defaultFactory != null) {
+            defaultFactory.disconnect();
+            defaultFactory = null;
+        }
+    }
+
+    /**
+     * @return a factory for every free serial port with a BLED112 behind it, see {@link #probe(long)}
+     */
+    public static List<BluetoothClientFactory> forAvailablePorts() {
+        List<BluetoothClientFactory> factories = new ArrayList<>();
+        for (CommPortIdentifier identifier : getAvailableSerialPorts()) {
+            factories.add(new BluetoothClientFactory(identifier.getName()));
+        }
+        return probeAll(factories, PROBE_TIMEOUT_MILLIS);
+    }
 
-    public static BGAPI instance() {
+    /**
+     * @return the factories whose dongle answered the probe, the others are logged and left out
+     */
+    public static List<BluetoothClientFactory> probeAll(List<BluetoothClientFactory> factories, long timeoutMillis) {
+        List<BluetoothClientFactory> answered = new ArrayList<>();
+        for (BluetoothClientFactory factory : factories) {
+            if (factory.probe(timeoutMillis)) {
+                answered.add(factory);
+            } else {
+                logger.warn("Skipping {}, no BLED112 answered", factory.getPortName());
+            }
+        }
+        return answered;
+    }
+
+    /**
+     * Opens the port and asks the dongle for its version. A serial port is closed again either
+     * way, without resetting the dongle, so it can then be opened with whatever fast path is
+     * wanted. A transport that answered stays open, it can't be opened twice.
+     *
+     * @return true if a BGAPI device answered within the timeout
+     */
+    public boolean probe(long timeoutMillis) {
+        BGAPI probing;
+        try {
+            probing = connect();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to open " + portName, e);
+            close(false);
+            return false;
+        }
+        CountDownLatch answered = new CountDownLatch(1);
+        BGAPIDefaultListener listener = new BGAPIDefaultListener() {
+            @Override
+            public void receive_system_get_info(int major, int minor, int patch, int build, int ll_version, int protocol_version, int hw) {
+                logger.info(String.format("BLED112 %d.%d.%d-%d on %s", major, minor, patch, build, portName));
+                answered.countDown();
+            }
+        };
+        probing.addListener(listener);
+        boolean ok = false;
+        try {
+            probing.send_system_get_info();
+            ok = answered.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            probing.removeListener(listener);
+            if (!ok || transport == null) {
+                close(false);
+            }
+        }
+        return ok;
+    }
+
+    public String getPortName() {
+        return portName;
+    }
+
+    /**
+     * @return the dispatcher in front of bglib, null if the dongle isn't open or bglib parses every packet
+     */
+    public synchronized BgapiEventDispatcher getDispatcher() {
+        return zeroCopy == null ? null : zeroCopy.getDispatcher();
+    }
+
+    public synchronized BGAPI connect() {
+        return connect((BgapiEventDispatcher) null);
+    }
+
+    /**
+     * Opens the dongle. With a fast path, attribute value events are parsed in place by a
+     * {@link ByteBufferTransport} and never reach the returned client's listeners, everything
+     * else goes through bglib as usual. The fast path only applies when the dongle is opened,
+     * later calls return the existing client.
+     *
+     * @param fastPath receives attribute values, null to let bglib parse every packet
+     */
+    public synchronized BGAPI connect(AttributeValueSink fastPath) {
+        BgapiEventDispatcher dispatcher = null;
+        if (fastPath != null && client == null) {
+            dispatcher = new BgapiEventDispatcher();
+            dispatcher.subscribeAttributeValues(fastPath);
+        }
+        return connect(dispatcher);
+    }
+
+    /**
+     * Opens the dongle with a zero copy reader in front of bglib. Packets with a handler in the
+     * dispatcher are handled in place on the reader thread and skip bglib altogether, the rest
+     * reach the returned client's listeners as usual.
+     *
+     * @param dispatcher handlers for the packets to take off the bglib path, null to let bglib parse every packet
+     */
+    public synchronized BGAPI connect(BgapiEventDispatcher dispatcher) {
         if (client == null) {
-            BGAPITransport bgapi = connectBLED112();
+            BGAPITransport bgapi = connectBLED112(dispatcher);
             client = new BGAPI(bgapi);
+            if (zeroCopy != null) {
+                zeroCopy.start();
+            }
         }
         return client;
     }
 
-    public static void disconnectBLED112() {
+    public synchronized boolean isConnected() {
+        return client != null;
+    }
+
+    public synchronized void disconnect() {
+        close(true);
+    }
+
+    private synchronized void close(boolean reset) {
+        if (client == null) {
+            if (port != null) {
+                port.close();
+                port = null;
+            }
+            return;
+        }
         //client.getLowLevelDriver().removeListener(logger);
-        logger.info("BLE: Reset BLED112 Dongle");
-        client.send_system_reset(0);
+        if (reset) {
+            logger.info(String.format("BLE: Reset BLED112 Dongle on %s", portName));
+            client.send_system_reset(0);
+        }
         client.disconnect();
+        if (zeroCopy != null) {
+            zeroCopy.stop();
+        }
 
         if (port != null) {
             port.close();
         }
         client = null;
         port = null;
+        zeroCopy = null;
     }
 
-    private static BGAPITransport connectBLED112() {
-        port = connectSerial();
+    private BGAPITransport connectBLED112(BgapiEventDispatcher dispatcher) {
+        if (transport != null || EMULATOR_PORT.equalsIgnoreCase(portName)) {
+            if (dispatcher != null) {
+                logger.debug("{} has no serial stream to read in place, bglib parses every packet", portName);
+            }
+            if (transport != null) {
+                return transport;
+            }
+            Bled112Emulator emulator = Bled112Emulator.fromSystemProperties();
+            logger.info("BLE: Emulating a BLED112 with {} armbands", emulator.getDevices().size());
+            emulator.start();
+            return emulator;
+        }
+        port = connectSerial(portName);
+        if (port == null) {
+            throw new IllegalStateException("Unable to open BLED112 on " + portName);
+        }
         try {
-            return new BGAPITransport(port.getInputStream(), port.getOutputStream());
+            if (dispatcher == null) {
+                return new BGAPITransport(port.getInputStream(), port.getOutputStream());
+            }
+            PipedInputStream slowPath = new PipedInputStream(FALLBACK_PIPE_SIZE);
+            zeroCopy = new ByteBufferTransport(port.getInputStream(), dispatcher, new PipedOutputStream(slowPath));
+            return new BGAPITransport(slowPath, port.getOutputStream());
         } catch (IOException ex) {
             logger.error("Unable to execute connectSerial", ex);
         }
         return null;
     }
 
-    private static SerialPort connectSerial() {
+    private static SerialPort connectSerial(String portName) {
         try {
 
-            String portName = selectSerialPort();
-
             CommPortIdentifier portIdentifier = CommPortIdentifier.getPortIdentifier(portName);
 
             if (portIdentifier.isCurrentlyOwned()) {
@@ -94,15 +318,9 @@ public class BluetoothClientFactory {
 
     private static String selectSerialPort() {
 
-        ArrayList<String> possibilities = new ArrayList<String>();
-        //possibilities.add("Emulator");
-        for (CommPortIdentifier commportidentifier : getAvailableSerialPorts()) {
-            possibilities.add(commportidentifier.getName());
-        }
-
-        int startPosition = 0;
-        if (possibilities.size() > 1) {
-            startPosition = 1;
+        String configured = System.getProperty(PORT_PROPERTY);
+        if (configured != null) {
+            return configured;
         }
 
         //obviously this isn't fool proof but this is a hackathon
@@ -116,18 +334,7 @@ public class BluetoothClientFactory {
             default: port = "No-Port-Determined";
         }
 
-        //temporary hardcoding
         return String.format("/dev/%s", port);
-
-        /*return (String) JOptionPane.showInputDialog(
-                null,
-                "BLED112",
-                "Select serial port",
-                JOptionPane.PLAIN_MESSAGE,
-                null,
-                possibilities.toArray(),
-                possibilities.toArray()[startPosition]);*/
-
     }
     /**
      * @return    A HashSet containing the CommPortIdentifier for all serial ports that are not currently being used.
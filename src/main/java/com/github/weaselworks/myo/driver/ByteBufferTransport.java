@@ -0,0 +1,183 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.listener.AttributeValueSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+
+/**
+ * Receive side of the BLED112 serial stream that does no allocation per packet. Bytes are read
+ * into one reusable direct buffer, packets are framed in place and handed to the
+ * {@link BgapiEventDispatcher} as views into that buffer.
+ *
+ * Every packet nobody subscribed to is copied verbatim to the fallback stream, which normally
+ * feeds the regular bglib {@code BGAPITransport}, so command responses and the remaining events
+ * still reach the usual {@code BGAPIListener}s.
+ */
+public class ByteBufferTransport implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ByteBufferTransport.class);
+
+    public static final int BUFFER_SIZE = 16384;
+
+    private final ReadableByteChannel in;
+    private final BgapiEventDispatcher dispatcher;
+    private final OutputStream fallback;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer forwardView = buffer.duplicate();
+    private final byte[] forwardScratch = new byte[MAX_PACKET_LENGTH];
+    private volatile boolean running = false;
+    private Thread thread;
+
+    private volatile long packets;
+    private volatile long dispatched;
+    private volatile long forwarded;
+    private volatile long skippedBytes;
+
+    /**
+     * Passes attribute values to the sink, everything else to the fallback.
+     */
+    public ByteBufferTransport(InputStream in, AttributeValueSink sink, OutputStream fallback) {
+        this(in, attributeValues(sink), fallback);
+    }
+
+    /**
+     * @param fallback where packets without a subscribed handler go, null to discard them
+     */
+    public ByteBufferTransport(InputStream in, BgapiEventDispatcher dispatcher, OutputStream fallback) {
+        this.in = Channels.newChannel(in);
+        this.dispatcher = dispatcher;
+        this.fallback = fallback;
+    }
+
+    private static BgapiEventDispatcher attributeValues(AttributeValueSink sink) {
+        BgapiEventDispatcher dispatcher = new BgapiEventDispatcher();
+        dispatcher.subscribeAttributeValues(sink);
+        return dispatcher;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Transport already started");
+        }
+        running = true;
+        thread = new Thread(this, "bgapi-bytebuffer-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close the serial channel", e);
+        }
+        if (fallback != null) {
+            try {
+                fallback.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close the fallback stream", e);
+            }
+        }
+    }
+
+    /**
+     * Reads until the stream ends or the transport is stopped. Runs on the calling thread if
+     * {@link #start()} isn't used, e.g. to pump a finite recording.
+     */
+    @Override
+    public void run() {
+        running = true;
+        try {
+            while (running) {
+                if (in.read(buffer) < 0) {
+                    break;
+                }
+                dispatcher.received(System.nanoTime());
+                buffer.flip();
+                frame();
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.error("Unable to read from the BLED112", e);
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Dispatches every complete packet between the buffer's position and limit and leaves the
+     * position at the start of the first incomplete one.
+     */
+    private void frame() throws IOException {
+        while (buffer.remaining() >= HEADER_LENGTH) {
+            int start = buffer.position();
+            int first = uint8(buffer, start);
+            if (!isValidHeaderStart(first)) {
+                // BGAPI has no sync byte, skip until something that looks like a BLE header
+                skippedBytes++;
+                buffer.position(start + 1);
+                continue;
+            }
+            int length = payloadLength(first, uint8(buffer, start + 1));
+            if (buffer.remaining() < HEADER_LENGTH + length) {
+                return;
+            }
+            packets++;
+            dispatch(start, length);
+            buffer.position(start + HEADER_LENGTH + length);
+        }
+    }
+
+    private void dispatch(int start, int length) throws IOException {
+        if (dispatcher.dispatch(buffer, start)) {
+            dispatched++;
+        } else if (fallback != null) {
+            forwarded++;
+            int packetLength = HEADER_LENGTH + length;
+            forwardView.limit(start + packetLength).position(start);
+            forwardView.get(forwardScratch, 0, packetLength);
+            fallback.write(forwardScratch, 0, packetLength);
+            fallback.flush();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getPackets() {
+        return packets;
+    }
+
+    public BgapiEventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    public long getForwarded() {
+        return forwarded;
+    }
+
+    public long getSkippedBytes() {
+        return skippedBytes;
+    }
+}
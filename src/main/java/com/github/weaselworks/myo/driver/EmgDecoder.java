@@ -0,0 +1,102 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.listener.EmgSampleSink;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the 16 byte EMG notification into eight signed little endian channels.
+ * Each connection owns one decoder; the channel buffer is reused for every packet,
+ * so nothing is allocated per sample.
+ */
+public class EmgDecoder {
+
+    public static final int CHANNELS = 8;
+    public static final int PAYLOAD_LENGTH = CHANNELS * 2;
+
+    private final short[] channels = new short[CHANNELS];
+    // byte offset of the pod read into each channel, the rotation costs nothing beyond the lookup
+    private volatile int[] offsets = offsets(0);
+    private volatile float[] gains;
+    private volatile int rotation;
+
+    /**
+     * Scales and rotates every decoded sample so the armband looks like the one the classifier
+     * was trained on: channel i becomes gain[i] times pod (i + rotation) mod 8, saturated to a short.
+     *
+     * @param gains one per channel, null to clear the calibration
+     */
+    public void setCalibration(float[] gains, int rotation) {
+        if (gains != null && gains.length != CHANNELS) {
+            throw new IllegalArgumentException("Expected " + CHANNELS + " gains, got " + gains.length);
+        }
+        this.gains = gains == null ? null : gains.clone();
+        setRotation(rotation);
+    }
+
+    /**
+     * Reads pod (i + rotation) mod 8 into channel i, keeping the gains.
+     */
+    public void setRotation(int rotation) {
+        this.rotation = Math.floorMod(rotation, CHANNELS);
+        this.offsets = offsets(this.rotation);
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public boolean isCalibrated() {
+        return gains != null;
+    }
+
+    /**
+     * Decodes the packet into the reusable channel buffer and returns it.
+     */
+    public short[] decode(byte[] data) {
+        int[] offsets = this.offsets;
+        for (int i = 0; i < CHANNELS; i++) {
+            int at = offsets[i];
+            channels[i] = (short) (((data[at + 1] & 0xFF) << 8) | (data[at] & 0xFF));
+        }
+        return scale();
+    }
+
+    /**
+     * Decodes the packet starting at offset in the buffer, without moving its position.
+     */
+    public short[] decode(ByteBuffer buffer, int offset) {
+        int[] offsets = this.offsets;
+        for (int i = 0; i < CHANNELS; i++) {
+            int at = offset + offsets[i];
+            channels[i] = (short) (((buffer.get(at + 1) & 0xFF) << 8) | (buffer.get(at) & 0xFF));
+        }
+        return scale();
+    }
+
+    public void decode(byte[] data, long timestamp, EmgSampleSink sink) {
+        sink.onEmg(timestamp, decode(data));
+    }
+
+    private short[] scale() {
+        float[] gains = this.gains;
+        if (gains != null) {
+            for (int i = 0; i < CHANNELS; i++) {
+                channels[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(gains[i] * channels[i])));
+            }
+        }
+        return channels;
+    }
+
+    private static int[] offsets(int rotation) {
+        int[] offsets = new int[CHANNELS];
+        for (int i = 0; i < CHANNELS; i++) {
+            offsets[i] = 2 * ((i + rotation) % CHANNELS);
+        }
+        return offsets;
+    }
+
+    public short[] getChannels() {
+        return channels;
+    }
+}
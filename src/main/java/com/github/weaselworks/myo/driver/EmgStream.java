@@ -0,0 +1,29 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.listener.EmgSampleSink;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Buffered EMG subscription: decoded samples are copied into a bounded buffer and delivered
+ * to the downstream sink on the executor.
+ */
+public class EmgStream extends SampleStream implements EmgSampleSink {
+
+    private final EmgSampleSink downstream;
+
+    public EmgStream(EmgSampleSink downstream, BackpressurePolicy policy, int capacity, Executor executor) {
+        super(EmgDecoder.CHANNELS, policy, capacity, executor);
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void onEmg(long timestamp, short[] channels) {
+        offer(timestamp, channels);
+    }
+
+    @Override
+    protected void deliver(long timestamp, short[] sample) {
+        downstream.onEmg(timestamp, sample);
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.weaselworks.myo.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thingml.bglib.BGAPI;
+import org.thingml.bglib.BGAPIDefaultListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Queues GATT attribute writes per connection. The BLED112 only runs one ATT procedure per
+ * connection at a time, so each connection keeps exactly one write in flight and starts the
+ * next one as soon as the matching procedure_completed arrives. Connections don't wait on
+ * each other, so several armbands can be configured at the same time.
+ *
+ * The queue is the single long lived listener for write completions: register it once with
+ * {@link BGAPI#addListener} and it dispatches every completion to its future by
+ * (connection, handle).
+ *
+ * Completions carry no more than the handle, so every write sent is numbered and a write that
+ * timed out is remembered until the dongle is known to have finished with it. Its late
+ * procedure_completed is dropped rather than completing the next write to the same handle.
+ */
+public class GattCommandQueue extends BGAPIDefaultListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(GattCommandQueue.class);
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    private final BGAPI client;
+    private final long timeoutMillis;
+    private final ConcurrentMap<Integer, ConnectionQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gatt-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GattCommandQueue(BGAPI client) {
+        this(client, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param timeoutMillis how long a write may stay in flight before it fails with a
+     *                      {@link TimeoutException} and the connection moves on to the next write
+     */
+    public GattCommandQueue(BGAPI client, long timeoutMillis) {
+        this.client = client;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Queues a write of the attribute on the connection. It is sent immediately if nothing else
+     * is in flight on that connection. The future completes with true if the procedure finished
+     * successfully, false if the dongle reported an error. Cancelling a write that hasn't been
+     * sent yet removes it from the queue.
+     */
+    public BgapiWriteAttrFuture write(int connection, int handle, byte[] data) {
+        BgapiWriteAttrFuture write = new BgapiWriteAttrFuture(connection, handle, data);
+        queueFor(connection).submit(write);
+        return write;
+    }
+
+    @Override
+    public void receive_attclient_procedure_completed(int connection, int result, int chrhandle) {
+        ConnectionQueue queue = queues.get(connection);
+        if (queue != null) {
+            queue.completed(chrhandle, result == 0);
+        }
+    }
+
+    /**
+     * A rejected write never produces a procedure_completed, so fail the in flight write straight away.
+     */
+    @Override
+    public void receive_attclient_attribute_write(int connection, int result) {
+        ConnectionQueue queue = queues.get(connection);
+        if (queue == null) {
+            return;
+        }
+        if (result != 0) {
+            logger.warn(String.format("Attribute write rejected on connection %d, result %d", connection, result));
+            queue.failed();
+        } else {
+            queue.accepted();
+        }
+    }
+
+    @Override
+    public void receive_connection_disconnected(int connection, int reason) {
+        ConnectionQueue queue = queues.remove(connection);
+        if (queue != null) {
+            queue.clear();
+        }
+    }
+
+    public int pending(int connection) {
+        ConnectionQueue queue = queues.get(connection);
+        return queue == null ? 0 : queue.size();
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        for (Integer connection : queues.keySet()) {
+            receive_connection_disconnected(connection, 0);
+        }
+    }
+
+    private ConnectionQueue queueFor(int connection) {
+        return queues.computeIfAbsent(connection, ConnectionQueue::new);
+    }
+
+    private class ConnectionQueue {
+
+        private final int connection;
+        private final Deque<BgapiWriteAttrFuture> waiting = new ArrayDeque<>();
+        // timed out writes whose procedure_completed may still arrive, oldest first
+        private final Deque<BgapiWriteAttrFuture> abandoned = new ArrayDeque<>();
+        private BgapiWriteAttrFuture inFlight;
+        private long sent;
+
+        ConnectionQueue(int connection) {
+            this.connection = connection;
+        }
+
+        void submit(BgapiWriteAttrFuture write) {
+            synchronized (this) {
+                waiting.addLast(write);
+                if (inFlight == null) {
+                    sendNext();
+                }
+            }
+        }
+
+        void completed(int chrhandle, boolean success) {
+            BgapiWriteAttrFuture done;
+            synchronized (this) {
+                BgapiWriteAttrFuture stale = abandoned.peekFirst();
+                if (stale != null && stale.getHandle() == chrhandle) {
+                    // the dongle answers procedures in order, so this one belongs to the oldest abandoned write
+                    abandoned.pollFirst();
+                    logger.debug(String.format("Dropping late completion of write %d to handle %d on connection %d",
+                            stale.getSequence(), chrhandle, connection));
+                    return;
+                }
+                if (inFlight == null || inFlight.getHandle() != chrhandle) {
+                    logger.warn(String.format("Unexpected procedure completion on connection %d for handle %d", connection, chrhandle));
+                    return;
+                }
+                done = release();
+            }
+            done.complete(success);
+        }
+
+        void failed() {
+            BgapiWriteAttrFuture done;
+            synchronized (this) {
+                if (inFlight == null) {
+                    return;
+                }
+                done = release();
+            }
+            done.complete(false);
+        }
+
+        /**
+         * The dongle started the write in flight, so it is done with every earlier procedure and
+         * no late completion can follow.
+         */
+        synchronized void accepted() {
+            abandoned.clear();
+        }
+
+        void timedOut(BgapiWriteAttrFuture write) {
+            synchronized (this) {
+                if (inFlight != write) {
+                    return;
+                }
+                abandoned.addLast(write);
+                release();
+            }
+            logger.warn(String.format("Attribute write to handle %d on connection %d timed out", write.getHandle(), connection));
+            write.completeExceptionally(new TimeoutException("No procedure_completed for handle " + write.getHandle()));
+        }
+
+        void clear() {
+            Deque<BgapiWriteAttrFuture> dropped;
+            synchronized (this) {
+                dropped = new ArrayDeque<>(waiting);
+                if (inFlight != null) {
+                    inFlight.cancelTimeout();
+                    dropped.addFirst(inFlight);
+                }
+                waiting.clear();
+                abandoned.clear();
+                inFlight = null;
+            }
+            for (BgapiWriteAttrFuture write : dropped) {
+                write.complete(false);
+            }
+        }
+
+        synchronized int size() {
+            return waiting.size() + (inFlight == null ? 0 : 1);
+        }
+
+        // must hold the lock, returns the write that was in flight
+        private BgapiWriteAttrFuture release() {
+            BgapiWriteAttrFuture done = inFlight;
+            done.cancelTimeout();
+            sendNext();
+            return done;
+        }
+
+        // must hold the lock. A write cancelled while in flight still occupies the
+        // connection until the dongle answers, only writes cancelled while waiting are skipped
+        private void sendNext() {
+            do {
+                inFlight = waiting.pollFirst();
+            } while (inFlight != null && inFlight.isDone());
+            if (inFlight != null) {
+                BgapiWriteAttrFuture write = inFlight;
+                write.setSequence(sent++);
+                write.setTimeout(timer.schedule(() -> timedOut(write), timeoutMillis, TimeUnit.MILLISECONDS));
+                client.send_attclient_attribute_write(connection, write.getHandle(), write.getData());
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.weaselworks.myo.driver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight view of one 20 byte IMU notification: the orientation quaternion (w, x, y, z),
+ * accelerometer xyz and gyroscope xyz, all signed little endian shorts, as laid out by the
+ * Myo's {@code myohw_imu_data_t}. A connection owns a
+ * single frame which is overwritten by every packet, so listeners must copy whatever they
+ * need to keep beyond the callback.
+ */
+public class ImuFrame {
+
+    public static final int PAYLOAD_LENGTH = 20;
+    public static final int VALUES = 10;
+
+    public static final float ORIENTATION_SCALE = 16384.0f;
+    public static final float ACCELEROMETER_SCALE = 2048.0f;
+    public static final float GYROSCOPE_SCALE = 16.0f;
+
+    private static final int ORIENTATION_OFFSET = 0;
+    private static final int ACCEL_OFFSET = 8;
+    private static final int GYRO_OFFSET = 14;
+
+    private long timestamp;
+    private short gyroX, gyroY, gyroZ;
+    private short accelX, accelY, accelZ;
+    private short orientationW, orientationX, orientationY, orientationZ;
+
+    /**
+     * Overwrites this frame with the contents of the packet.
+     */
+    public ImuFrame decode(byte[] data, long timestamp) {
+        return decode(data, data.length, timestamp);
+    }
+
+    /**
+     * Overwrites this frame with the first length bytes of data, which must hold a whole packet.
+     */
+    public ImuFrame decode(byte[] data, int length, long timestamp) {
+        checkLength(length);
+        this.timestamp = timestamp;
+        orientationW = readShort(data, ORIENTATION_OFFSET);
+        orientationX = readShort(data, ORIENTATION_OFFSET + 2);
+        orientationY = readShort(data, ORIENTATION_OFFSET + 4);
+        orientationZ = readShort(data, ORIENTATION_OFFSET + 6);
+        accelX = readShort(data, ACCEL_OFFSET);
+        accelY = readShort(data, ACCEL_OFFSET + 2);
+        accelZ = readShort(data, ACCEL_OFFSET + 4);
+        gyroX = readShort(data, GYRO_OFFSET);
+        gyroY = readShort(data, GYRO_OFFSET + 2);
+        gyroZ = readShort(data, GYRO_OFFSET + 4);
+        return this;
+    }
+
+    /**
+     * Overwrites this frame with length bytes of the buffer starting at offset, without moving
+     * the buffer's position. The bytes must hold a whole packet.
+     */
+    public ImuFrame decode(ByteBuffer buffer, int offset, int length, long timestamp) {
+        checkLength(length);
+        this.timestamp = timestamp;
+        orientationW = readShort(buffer, offset + ORIENTATION_OFFSET);
+        orientationX = readShort(buffer, offset + ORIENTATION_OFFSET + 2);
+        orientationY = readShort(buffer, offset + ORIENTATION_OFFSET + 4);
+        orientationZ = readShort(buffer, offset + ORIENTATION_OFFSET + 6);
+        accelX = readShort(buffer, offset + ACCEL_OFFSET);
+        accelY = readShort(buffer, offset + ACCEL_OFFSET + 2);
+        accelZ = readShort(buffer, offset + ACCEL_OFFSET + 4);
+        gyroX = readShort(buffer, offset + GYRO_OFFSET);
+        gyroY = readShort(buffer, offset + GYRO_OFFSET + 2);
+        gyroZ = readShort(buffer, offset + GYRO_OFFSET + 4);
+        return this;
+    }
+
+    private static void checkLength(int length) {
+        if (length < PAYLOAD_LENGTH) throw new IllegalArgumentException("IMU packets hold " + PAYLOAD_LENGTH + " bytes, got " + length);
+    }
+
+    /**
+     * Copies gyro, accel and orientation, in that order, into the first {@link #VALUES} shorts.
+     */
+    public void copyTo(short[] values) {
+        values[0] = gyroX;
+        values[1] = gyroY;
+        values[2] = gyroZ;
+        values[3] = accelX;
+        values[4] = accelY;
+        values[5] = accelZ;
+        values[6] = orientationW;
+        values[7] = orientationX;
+        values[8] = orientationY;
+        values[9] = orientationZ;
+    }
+
+    /**
+     * Overwrites this frame with values laid out as by {@link #copyTo(short[])}.
+     */
+    public ImuFrame set(long timestamp, short[] values) {
+        this.timestamp = timestamp;
+        gyroX = values[0];
+        gyroY = values[1];
+        gyroZ = values[2];
+        accelX = values[3];
+        accelY = values[4];
+        accelZ = values[5];
+        orientationW = values[6];
+        orientationX = values[7];
+        orientationY = values[8];
+        orientationZ = values[9];
+        return this;
+    }
+
+    private static short readShort(byte[] data, int offset) {
+        return (short) (((data[offset + 1] & 0xFF) << 8) | (data[offset] & 0xFF));
+    }
+
+    // byte by byte so the result doesn't depend on the buffer's byte order
+    private static short readShort(ByteBuffer buffer, int offset) {
+        return (short) (((buffer.get(offset + 1) & 0xFF) << 8) | (buffer.get(offset) & 0xFF));
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public short getGyroX() {
+        return gyroX;
+    }
+
+    public short getGyroY() {
+        return gyroY;
+    }
+
+    public short getGyroZ() {
+        return gyroZ;
+    }
+
+    public short getAccelX() {
+        return accelX;
+    }
+
+    public short getAccelY() {
+        return accelY;
+    }
+
+    public short getAccelZ() {
+        return accelZ;
+    }
+
+    public short getOrientationW() {
+        return orientationW;
+    }
+
+    public short getOrientationX() {
+        return orientationX;
+    }
+
+    public short getOrientationY() {
+        return orientationY;
+    }
+
+    public short getOrientationZ() {
+        return orientationZ;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IMU gx: %d  gy: %d  gz: %d  ax: %d  ay: %d  az: %d  q: %d %d %d %d",
+                gyroX, gyroY, gyroZ, accelX, accelY, accelZ,
+                orientationW, orientationX, orientationY, orientationZ);
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.listener.ImuFrameListener;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Buffered IMU subscription: frames are flattened into a bounded buffer and delivered to the
+ * downstream listener through a frame owned by the consumer side.
+ */
+public class ImuStream extends SampleStream implements ImuFrameListener {
+
+    private final ImuFrameListener downstream;
+    private final short[] incoming = new short[ImuFrame.VALUES];
+    private final ImuFrame outgoing = new ImuFrame();
+
+    public ImuStream(ImuFrameListener downstream, BackpressurePolicy policy, int capacity, Executor executor) {
+        super(ImuFrame.VALUES, policy, capacity, executor);
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void onImu(ImuFrame frame) {
+        frame.copyTo(incoming);
+        offer(frame.getTimestamp(), incoming);
+    }
+
+    @Override
+    protected void deliver(long timestamp, short[] sample) {
+        downstream.onImu(outgoing.set(timestamp, sample));
+    }
+}
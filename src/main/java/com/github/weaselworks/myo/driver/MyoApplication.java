@@ -15,14 +15,33 @@
  */
 package com.github.weaselworks.myo.driver;
 
-
-import net.sf.javaml.classification.Classifier;
-import net.sf.javaml.classification.KNearestNeighbors;
-import net.sf.javaml.core.Dataset;
-import net.sf.javaml.core.DefaultDataset;
-import net.sf.javaml.core.DenseInstance;
-import net.sf.javaml.core.Instance;
-import net.sf.javaml.tools.data.FileHandler;
+import com.github.weaselworks.myo.driver.calibration.CalibrationProfile;
+import com.github.weaselworks.myo.driver.calibration.CalibrationStore;
+import com.github.weaselworks.myo.driver.calibration.ClassifierCache;
+import com.github.weaselworks.myo.driver.classifier.EmgFeatureWindow;
+import com.github.weaselworks.myo.driver.classifier.FeatureSet;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import com.github.weaselworks.myo.driver.classifier.GestureModelEvaluator;
+import com.github.weaselworks.myo.driver.classifier.GestureModelFile;
+import com.github.weaselworks.myo.driver.classifier.KdTreeClassifier;
+import com.github.weaselworks.myo.driver.classifier.KnnProvider;
+import com.github.weaselworks.myo.driver.classifier.PoseClassifier;
+import com.github.weaselworks.myo.driver.classifier.PoseClassifiers;
+import com.github.weaselworks.myo.driver.classifier.PoseStateMachine;
+import com.github.weaselworks.myo.driver.classifier.RotationAligner;
+import com.github.weaselworks.myo.driver.listener.AttributeValueSink;
+import com.github.weaselworks.myo.driver.listener.EmgConsumerAdapter;
+import com.github.weaselworks.myo.driver.listener.EmgSampleSink;
+import com.github.weaselworks.myo.driver.listener.ImuConsumerAdapter;
+import com.github.weaselworks.myo.driver.listener.ImuFrameListener;
+import com.github.weaselworks.myo.driver.listener.PoseTransitionListener;
+import com.github.weaselworks.myo.driver.metrics.ConnectionLatency;
+import com.github.weaselworks.myo.driver.metrics.LatencyMetrics;
+import com.github.weaselworks.myo.driver.metrics.LatencyStage;
+import com.github.weaselworks.myo.driver.recording.SessionRecorder;
+import com.github.weaselworks.myo.driver.ring.AttributeEventProcessor;
+import com.github.weaselworks.myo.driver.ring.AttributeEventRing;
+import com.github.weaselworks.myo.driver.ring.WaitStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thingml.bglib.BDAddr;
@@ -31,15 +50,17 @@ import org.thingml.bglib.BGAPIDefaultListener;
 
 import javax.annotation.PreDestroy;
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 
-import static net.sf.javaml.tools.data.FileHandler.loadDataset;
 
-public class MyoApplication extends BGAPIDefaultListener
+public class MyoApplication extends BGAPIDefaultListener implements AttributeValueSink
 {
 
     public static final String PAULSMYO = "c3:69:40:b1:5d:f6";
@@ -52,26 +73,56 @@ public class MyoApplication extends BGAPIDefaultListener
     public static final int IMU_VALUE = 28;
     public static final int EMG_VALUE = 39;
 
-    private static final int IDLE = 0;
+    /**
+     * System property naming a binary gesture model, see {@link GestureModelFile}.
+     */
+    public static final String MODEL_PROPERTY = "myo.gesture.model";
 
+    /**
+     * System property selecting the pose classifier by provider name, see {@link PoseClassifiers}.
+     */
+    public static final String CLASSIFIER_PROPERTY = "myo.classifier";
 
+    /**
+     * System property naming the {@link FeatureSet} poses are trained and classified on,
+     * amplitude by default. {@link GestureModelEvaluator} reports which one scores best.
+     */
+    public static final String FEATURES_PROPERTY = "myo.features";
+
+    private static final int IDLE = 0;
+
+    private static GestureDataset referenceDataset;
 
     private BGAPI client;
     private Set<BDAddr> devices = new HashSet<BDAddr>();
-    private int connection;
+    private volatile int connection = -1;
     private Consumer<BDAddr> deviceFoundAction;
-    private Consumer<Integer> connectAction;
+    private final Deque<PendingConnect> pendingConnects = new ConcurrentLinkedDeque<>();
+    // connections nobody asked for, e.g. replayed ones, waiting for the status that names the armband
+    private final Set<Integer> unclaimedConnects = ConcurrentHashMap.newKeySet();
     private Consumer<Integer> disconnectAction;
-    private Consumer<String> firmwareAction;
-    private Consumer<Integer[]> imuAction;
-    private Consumer<List<Integer>> emgAction;
-    private Consumer<Pose> poseAction;
-    private Classifier knn;
-    private Semaphore semaphore = new Semaphore(1);
-
-
-
-
+    private volatile Consumer<Pose> poseAction;
+    private volatile PoseTransitionListener poseTransitionListener;
+    private volatile Consumer<MyoSession> sessionOpenedAction;
+    private final PoseClassifier classifier;
+    private final BluetoothClientFactory clientFactory;
+    private GattCommandQueue gattQueue;
+    private final MyoSessionManager sessionManager = new MyoSessionManager();
+    private volatile AttributeEventRing eventRing;
+    private AttributeEventProcessor sessionProcessor;
+    private boolean zeroCopyTransport = true;
+    private volatile int featureWindow = EmgFeatureWindow.DEFAULT_WINDOW;
+    private volatile int featureHop = EmgFeatureWindow.DEFAULT_HOP;
+    private volatile int poseVotes = PoseStateMachine.DEFAULT_VOTES;
+    private volatile long poseMinHoldMillis = PoseStateMachine.DEFAULT_MIN_HOLD_MILLIS;
+    private volatile FeatureSet featureSet = defaultFeatureSet();
+    private volatile CalibrationStore calibrationStore;
+    private volatile SessionRecorder recorder;
+    private volatile LatencyMetrics latencyMetrics;
+    private volatile BgapiEventDispatcher fastPath;
+    private volatile String profileUser;
+    private volatile Executor profileTrainer;
+    private final ClassifierCache classifierCache = new ClassifierCache();
 
     static Logger logger = LoggerFactory.getLogger(MyoApplication.class);
 
@@ -81,32 +132,76 @@ public class MyoApplication extends BGAPIDefaultListener
         myoApplication.start();
     }
 
-
     public MyoApplication(){
-        Dataset allPoses = new DefaultDataset();
-        allPoses.addAll(loadDatasetFromPoseFile("gestures/fist.data"));
-        allPoses.addAll(loadDatasetFromPoseFile("gestures/spread.data"));
-        allPoses.addAll(loadDatasetFromPoseFile("gestures/left.data"));
-        allPoses.addAll(loadDatasetFromPoseFile("gestures/right.data"));
-
-        this.knn = new KNearestNeighbors(10);
-        knn.buildClassifier(allPoses);
+        this(null, loadDefaultClassifier());
+    }
+
+    /**
+     * @param clientFactory the dongle to drive, null for the default dongle
+     * @param classifier    pose classifier, may be shared between applications
+     */
+    public MyoApplication(BluetoothClientFactory clientFactory, PoseClassifier classifier) {
+        this.clientFactory = clientFactory;
+        this.classifier = classifier;
+    }
+
+    /**
+     * Trains the classifier named by {@link #CLASSIFIER_PROPERTY}, k nearest neighbours by default,
+     * on the model file named by {@link #MODEL_PROPERTY} or on the bundled gesture recordings if
+     * no model is set, transformed by the {@link #FEATURES_PROPERTY} feature set. Classifier
+     * options are read from system properties starting with {@code myo.classifier.}, e.g.
+     * {@code -Dmyo.classifier.k=5}.
+     */
+    public static PoseClassifier loadDefaultClassifier() {
+        String name = System.getProperty(CLASSIFIER_PROPERTY, KnnProvider.NAME);
+        Properties options = PoseClassifiers.options(System.getProperties(), CLASSIFIER_PROPERTY + ".");
+        FeatureSet features = defaultFeatureSet();
+        String model = System.getProperty(MODEL_PROPERTY);
+        GestureDataset dataset;
+        if (model != null) {
+            try {
+                GestureModelFile file = GestureModelFile.map(Paths.get(model));
+                if (KnnProvider.NAME.equals(name) && file.hasIndex() && features == FeatureSet.AMPLITUDE) {
+                    // search the mapped rows in place rather than rebuilding the tree
+                    return file.classifier(PoseClassifiers.intOption(options, "k", KdTreeClassifier.DEFAULT_K));
+                }
+                dataset = file.getDataset();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to load gesture model " + model, e);
+            }
+        } else {
+            dataset = GestureDataset.loadDefault();
+        }
+        logger.info("Training {} pose classifier on {} rows of {}", name, dataset.size(), features);
+        return PoseClassifiers.train(name, features.apply(dataset), options);
     }
 
-    private Dataset loadDatasetFromPoseFile(String filename){
-        Dataset newDataset = null;
-        InputStream uri = MyoApplication.class.getResourceAsStream(String.format("/%s", filename));
-        logger.info("URI = "+uri.toString());
-        newDataset = FileHandler.load(new InputStreamReader(uri), 8, ",");
-        return  newDataset;
+    /**
+     * @return the feature set named by {@link #FEATURES_PROPERTY}
+     */
+    public static FeatureSet defaultFeatureSet() {
+        return FeatureSet.forName(System.getProperty(FEATURES_PROPERTY, FeatureSet.AMPLITUDE.name()));
     }
 
     public void start(){
         logger.info( "Connecting BLED112 Dongle..." );
 
-        client = BluetoothClientFactory.instance();
+        BgapiEventDispatcher dispatcher = null;
+        if (zeroCopyTransport) {
+            dispatcher = new BgapiEventDispatcher();
+            dispatcher.subscribeAttributeValues(this);
+            dispatcher.subscribeConnectionEvents(this);
+        }
+        fastPath = dispatcher;
+        client = clientFactory == null ? BluetoothClientFactory.instance(dispatcher) : clientFactory.connect(dispatcher);
+        // the dispatcher only claims packets if the dongle could be read in place, bglib delivers the rest
         client.addListener(this);
-
+        gattQueue = new GattCommandQueue(client);
+        client.addListener(gattQueue);
+        if (dispatcher != null) {
+            // nothing is written before start returns, so no completion can be missed
+            dispatcher.subscribeConnectionEvents(gattQueue);
+        }
 
         try {
             Thread.sleep(500);
@@ -115,6 +210,117 @@ public class MyoApplication extends BGAPIDefaultListener
         }
     }
 
+    /**
+     * Attribute values are parsed straight out of the serial buffer and connection and GATT
+     * events are routed by {@link BgapiEventDispatcher}, instead of bglib copying every packet
+     * and calling every listener. On by default, must be set before {@link #start()}.
+     *
+     * @param zeroCopyTransport false to let bglib parse every packet
+     */
+    public void setZeroCopyTransport(boolean zeroCopyTransport) {
+        this.zeroCopyTransport = zeroCopyTransport;
+    }
+
+    /**
+     * Sets the EMG window, in samples, that poses are classified over for sessions connected
+     * from now on. The classifier runs once every hop samples.
+     */
+    public void setFeatureWindow(int window, int hop) {
+        if (hop < 1 || hop > window) throw new IllegalArgumentException("Hop must be between 1 and the window length, was " + hop);
+        this.featureWindow = window;
+        this.featureHop = hop;
+    }
+
+    /**
+     * Sets the features poses are classified on for sessions connected from now on, the
+     * {@link #FEATURES_PROPERTY} feature set by default. The classifier and the rows of
+     * calibration profiles must be trained on the same features.
+     */
+    public void setFeatureSet(FeatureSet featureSet) {
+        this.featureSet = featureSet;
+    }
+
+    /**
+     * Sets how poses are debounced for sessions connected from now on: a pose must win a
+     * majority of the last votes classifications and hold it for minHoldMillis before it fires.
+     */
+    public void setPoseDebounce(int votes, long minHoldMillis) {
+        if (votes < 1) throw new IllegalArgumentException("Need at least one vote, was " + votes);
+        if (minHoldMillis < 0) throw new IllegalArgumentException("Minimum hold cannot be negative");
+        this.poseVotes = votes;
+        this.poseMinHoldMillis = minHoldMillis;
+    }
+
+    /**
+     * Appends every attribute value, connect and disconnect from now on to the recorder. The
+     * recorder is called on the reader thread, before values reach the sessions.
+     *
+     * @param recorder where to record, null to stop recording. Closing it is up to the caller
+     */
+    public void recordTo(SessionRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Times every packet from the serial port to the pose callback, see {@link LatencyStage},
+     * for the current and every future connection. Recording allocates nothing, the histograms
+     * are polled through the returned metrics.
+     *
+     * @param jmx also register each connection's percentiles with the platform MBean server
+     */
+    public synchronized LatencyMetrics trackLatency(boolean jmx) {
+        if (latencyMetrics != null) {
+            throw new IllegalStateException("Latency is already tracked");
+        }
+        String dongle = clientFactory == null ? null : clientFactory.getPortName();
+        LatencyMetrics metrics = jmx ? new LatencyMetrics(ManagementFactory.getPlatformMBeanServer(), dongle) : new LatencyMetrics();
+        for (MyoSession session : sessionManager.sessions()) {
+            session.setLatency(metrics.open(session.getConnection(), session.getAddress()));
+        }
+        latencyMetrics = metrics;
+        return metrics;
+    }
+
+    /**
+     * @return the latency histograms, null unless {@link #trackLatency(boolean)} was called
+     */
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
+
+    /**
+     * Looks up the calibration profile of every armband connected from now on. The profile's
+     * gains and rotation are applied to the session and its model, if it has one, replaces the
+     * default classifier once it has been trained on the common fork join pool. Trained
+     * classifiers are cached by profile, so a reconnecting armband doesn't retrain.
+     *
+     * @param store where profiles are kept, null to stop using profiles
+     * @param user  whose profiles to use, null for the profile shared by everyone using the armband
+     */
+    public void useCalibrationProfiles(CalibrationStore store, String user) {
+        useCalibrationProfiles(store, user, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param trainer trains profile classifiers, the session runs the default classifier until
+     *                its profile's is ready
+     */
+    public void useCalibrationProfiles(CalibrationStore store, String user, Executor trainer) {
+        this.profileTrainer = trainer;
+        this.calibrationStore = store;
+        this.profileUser = user;
+    }
+
+    /**
+     * Saves the profile and drops its cached classifier, armbands connected from now on pick it up.
+     */
+    public void saveCalibrationProfile(CalibrationProfile profile) throws IOException {
+        CalibrationStore store = calibrationStore;
+        if (store == null) throw new IllegalStateException("No calibration store, see useCalibrationProfiles");
+        store.save(profile);
+        classifierCache.invalidate(profile.getKey());
+    }
+
     public void onDeviceFound(Consumer<BDAddr> action) {
         deviceFoundAction = action;
         client.send_gap_set_scan_parameters(200, 400, 1);
@@ -122,9 +328,26 @@ public class MyoApplication extends BGAPIDefaultListener
         logger.info("Scanning for devices...");
     }
 
-    public void connect(String bluetoothAddress, Consumer<Integer> connectAction){
+    /**
+     * Connects to the armband. The action runs with the connection handle once the session is
+     * open; if the dongle refuses the connection it doesn't run and the returned future
+     * completes exceptionally instead.
+     *
+     * @param connectAction may be null
+     * @return completes with the connection handle once the action has run
+     */
+    public CompletableFuture<Integer> connect(String bluetoothAddress, Consumer<Integer> connectAction){
+        PendingConnect pending = new PendingConnect(bluetoothAddress);
+        CompletableFuture<Integer> connected = pending.connected;
+        if (connectAction != null) {
+            connected = connected.thenApply(handle -> {
+                connectAction.accept(handle);
+                return handle;
+            });
+        }
+        pendingConnects.addLast(pending);
         client.send_gap_connect_direct(BDAddr.fromString(bluetoothAddress), 0, 100, 200, 100, 0);
-        this.connectAction = connectAction;
+        return connected;
     }
 
     public void disconnect(int connId, Consumer<Integer> disconnectAction) {
@@ -133,35 +356,105 @@ public class MyoApplication extends BGAPIDefaultListener
     }
 
     public void getFirmwareVersion(Consumer<String> action ) {
-        this.firmwareAction = action;
-        client.send_attclient_read_by_handle(connection, 0x17);
+        getFirmwareVersion(connection, action);
     }
 
-    public void writeAttr(int handle, byte[] data) {
-        try {
-            Thread.sleep(250);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public void getFirmwareVersion(int connection, Consumer<String> action) {
+        MyoSession session = sessionManager.get(connection);
+        if (session == null) {
+            logger.warn(String.format("No session for connection %d", connection));
+            return;
         }
-        try {
+        session.onFirmware(action);
+        client.send_attclient_read_by_handle(connection, 0x17);
+    }
 
-            client.send_attclient_attribute_write(connection, handle, data);
-            semaphore.acquire();
+    /**
+     * Queues a write on the most recent connection. Writes are pipelined per connection, the
+     * returned future completes when the dongle reports the procedure as completed.
+     */
+    public BgapiWriteAttrFuture writeAttr(int handle, byte[] data) {
+        return writeAttr(connection, handle, data);
+    }
+
+    public BgapiWriteAttrFuture writeAttr(int connection, int handle, byte[] data) {
+        return gattQueue.write(connection, handle, data);
+    }
+
+    public CompletableFuture<Boolean> subscribeMyoData(Consumer<Integer[]> imuAction, Consumer<List<Integer>> emgAction) {
+        return subscribeMyoData(imuAction == null ? null : new ImuConsumerAdapter(imuAction),
+                emgAction == null ? null : new EmgConsumerAdapter(emgAction));
+    }
+
+    /**
+     * Subscribes to the data of the most recent connection.
+     */
+    public CompletableFuture<Boolean> subscribeMyoData(ImuFrameListener imuListener, EmgSampleSink emgSink) {
+        return subscribeMyoData(connection, imuListener, emgSink);
+    }
 
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public CompletableFuture<Boolean> subscribeMyoData(int connection, ImuFrameListener imuListener, EmgSampleSink emgSink) {
+        MyoSession session = sessionManager.get(connection);
+        if (session == null) {
+            CompletableFuture<Boolean> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("No session for connection " + connection));
+            return failed;
         }
+        session.setImuListener(imuListener);
+        session.setEmgSink(emgSink);
+        CompletableFuture<Boolean> emg = writeAttr(connection, EMG, new byte[]{0x01, 0x00});
+        //writeAttr(connection, IMU, new byte[]{0x01, 0x00});
+        return emg.thenCombine(sendSettings(connection), (emgOk, settingsOk) -> emgOk && settingsOk);
+    }
+
+    /**
+     * Moves decoding and every session callback off the BGAPI reader thread. Attribute values
+     * are published into a ring of the given size and a consumer thread with the given wait
+     * strategy feeds them to the sessions. Further consumers can subscribe to the returned ring.
+     */
+    public synchronized AttributeEventRing useEventRing(int size, WaitStrategy waitStrategy) {
+        if (eventRing != null) {
+            throw new IllegalStateException("Event ring already in use");
+        }
+        AttributeEventRing ring = new AttributeEventRing(size);
+        sessionProcessor = ring.subscribe((event, sequence, endOfBatch) ->
+                sessionManager.dispatch(event.getTimestamp(), event.getConnection(), event.getHandle(), event.getData(), event.getLength()),
+                waitStrategy);
+        sessionProcessor.start("myo-sessions");
+        eventRing = ring;
+        return ring;
+    }
+
+    /**
+     * Subscribes to the data of a connection through bounded buffers. Each stream is drained
+     * on the executor, e.g. {@code Platform::runLater}, and the policy decides what happens
+     * when the consumer falls behind. The returned subscription exposes the drop counters.
+     */
+    public MyoSubscription subscribeMyoData(int connection, ImuFrameListener imuListener, EmgSampleSink emgSink,
+                                            BackpressurePolicy policy, int capacity, Executor executor) {
+        MyoSession session = sessionManager.get(connection);
+        ImuStream imu = imuListener == null ? null : new ImuStream(imuListener, policy, capacity, executor);
+        EmgStream emg = emgSink == null ? null : new EmgStream(emgSink, policy, capacity, executor);
+        CompletableFuture<Boolean> subscribed = subscribeMyoData(connection, imu, emg);
+        return new MyoSubscription(session, imu, emg, subscribed);
     }
 
-    public void subscribeMyoData(Consumer<Integer[]> imuAction, Consumer<List<Integer>> emgAction) throws ExecutionException, InterruptedException {
-        this.imuAction = imuAction;
-        this.emgAction = emgAction;
-        writeAttr(EMG, new byte[]{0x01, 0x00});
-        //writeAttr(IMU, new byte[]{0x01, 0x00});
-        sendSettings();
+    public MyoSessionManager getSessionManager() {
+        return sessionManager;
     }
 
-    private void sendSettings() throws ExecutionException, InterruptedException {
+    /**
+     * @return open sessions plus connects still waiting for the dongle
+     */
+    public int getLoad() {
+        return sessionManager.size() + pendingConnects.size() + unclaimedConnects.size();
+    }
+
+    public BluetoothClientFactory getClientFactory() {
+        return clientFactory;
+    }
+
+    private CompletableFuture<Boolean> sendSettings(int connection) {
         int C = 350;
         byte emg_smooth = 120;
         byte imu_hz = 25;
@@ -172,16 +465,17 @@ public class MyoApplication extends BGAPIDefaultListener
         byte y = 0; y ^= 0b10010000; //400
         byte z = 0; z ^= 0b01011110; //350
 
-
         byte[] sensorSettings2 = new byte[]{0x02, 0x09, 0x02, 0x01, z, 0x01,  emg_smooth, (byte)Math.round(C / emg_hz) , imu_hz, 0, 0};
 
-        writeAttr(MYO_SENSOR_SETTINGS, sensorSettings2);
+        return writeAttr(connection, MYO_SENSOR_SETTINGS, sensorSettings2);
     }
 
     @Override
     public void receive_connection_disconnect(int connection, int result) {
-        logger.info("receive_connection_disconnect !!!");
-        disconnectAction.accept(connection);
+        closeSession(connection);
+        if (disconnectAction != null) {
+            disconnectAction.accept(connection);
+        }
     }
 
     @Override
@@ -195,633 +489,328 @@ public class MyoApplication extends BGAPIDefaultListener
     @Override
     public void receive_gap_connect_direct(int result, int connection_handle) {
         logger.info(String.format("<<< Connected >>> [%d] Result: %d", connection_handle, result));
-        connection = connection_handle;
-        connectAction.accept(connection_handle);
-    }
-
-    @Override
-    public void receive_attclient_attribute_value(int connection, int atthandle, int type, byte[] data) {
-        if (this.connection == connection) {
-            switch (atthandle) {
-                case FIRMWARE:  firmwareInfoReceived(data);
-                    break;
-                case IMU_VALUE: imuDataReceived(data);
-                    break;
-                case EMG_VALUE: emgDataReceived(data);
-                    break;
-                default:        logger.warn("Data received for unknown attr handle"+atthandle);
+        // the dongle answers connect requests in the order they were sent
+        PendingConnect pending = pendingConnects.pollFirst();
+        if (result != 0) {
+            String failure = String.format("Unable to connect to %s, result %d", pending == null ? "?" : pending.address, result);
+            logger.error(failure);
+            if (pending != null) {
+                pending.connected.completeExceptionally(new IllegalStateException(failure));
             }
+            return;
+        }
+        if (pending == null) {
+            unclaimedConnects.add(connection_handle);
+            return;
         }
+        openSession(connection_handle, pending.address);
+        pending.connected.complete(connection_handle);
     }
 
-    public void onPose(Consumer<Pose> poseFunction) {
-        this.poseAction = poseFunction;
+    /**
+     * Opens the session of a connection nobody asked for, e.g. one being replayed, now that the
+     * dongle says which armband it is.
+     */
+    @Override
+    public void receive_connection_status(int connection, int flags, BDAddr address, int address_type,
+                                          int conn_interval, int timeout, int latency, int bonding) {
+        if (unclaimedConnects.remove(connection)) {
+            openSession(connection, isUnknown(address) ? null : address.toString());
+        }
     }
 
-    private void emgDataReceived(byte[] emgData) {
-        int a = ((emgData[1] & 0xFF) << 8) + (emgData[0] & 0xFF); if (a > (1<<15)) { a = a - (1<<16); }
-        int b = ((emgData[3] & 0xFF) << 8) + (emgData[2] & 0xFF); if (b > (1<<15)) { b = b - (1<<16); }
-        int c = ((emgData[5] & 0xFF) << 8) + (emgData[4] & 0xFF); if (c > (1<<15)) { c = c - (1<<16); }
-        int d = ((emgData[7] & 0xFF) << 8) + (emgData[6] & 0xFF); if (d > (1<<15)) { d = d - (1<<16); }
-        int e = ((emgData[9] & 0xFF) << 8) + (emgData[8] & 0xFF); if (e > (1<<15)) { e = e - (1<<16); }
-        int f = ((emgData[11] & 0xFF) << 8) + (emgData[10] & 0xFF); if (f > (1<<15)) { f = f - (1<<16); }
-        int g = ((emgData[13] & 0xFF) << 8) + (emgData[12] & 0xFF); if (g > (1<<15)) { g = g - (1<<16); }
-        int h = ((emgData[15] & 0xFF) << 8) + (emgData[14] & 0xFF); if (h > (1<<15)) { h = h - (1<<16); }
-        if (emgAction != null) {
-            emgAction.accept(Arrays.asList(new Integer[]{a, b, c, d, e, f, g, h}));
+    private void openSession(int connection_handle, String address) {
+        SessionRecorder recording = recorder;
+        if (recording != null) {
+            recording.connected(System.nanoTime(), connection_handle, address);
         }
-        Instance instance = new DenseInstance(new double[]{a, b, c, d, e, f, g, h});
-        String classification = (String) knn.classify(instance);
-        Pose pose = Pose.fromString(classification);
-        if (pose.isKnownPose()){
-            logger.info(String.format("Pose: %s ", classification));
-            poseAction.accept(pose);
+        CalibrationProfile profile = loadProfile(address);
+        MyoSession session = new MyoSession(connection_handle, address, classifier);
+        if (profile != null) {
+            session.setCalibration(profile.getGains(), profile.getRotation());
+            if (profile.getModel() != null) {
+                useProfileClassifier(session, profile);
+            }
         }
-        logger.debug(String.format("EMG: %d %d %d %d %d %d %d %d ", a, b, c, d, e, f, g, h));
-    }
-
-    private void imuDataReceived(byte[] imuData) {
-
-        int gx = ((imuData[1] & 0xFF) << 8) + (imuData[0] & 0xFF); if (gx > (1<<15)) { gx = gx - (1<<16); }
-        int gy = ((imuData[3] & 0xFF) << 8) + (imuData[2] & 0xFF); if (gy > (1<<15)) { gy = gy - (1<<16); }
-        int gz = ((imuData[5] & 0xFF) << 8) + (imuData[4] & 0xFF); if (gz > (1<<15)) { gz = gz - (1<<16); }
-
-        int ax = ((imuData[7] & 0xFF) << 8) + (imuData[6] & 0xFF); if (ax > (1<<15)) { ax = ax - (1<<16); }
-        int ay = ((imuData[9] & 0xFF) << 8) + (imuData[8] & 0xFF); if (ay > (1<<15)) { ay = ay - (1<<16); }
-        int az = ((imuData[11] & 0xFF) << 8) + (imuData[10] & 0xFF); if (az > (1<<15)) { az = az - (1<<16); }
-
-        if (imuAction != null) {
-            imuAction.accept(new Integer[]{gx, gy, gz, ax, ay, az});
+        session.onPose(poseAction);
+        session.onPoseTransition(poseTransitionListener);
+        session.setFeatureWindow(featureWindow, featureHop);
+        session.setFeatureSet(featureSet);
+        session.setPoseDebounce(poseVotes, poseMinHoldMillis);
+        LatencyMetrics metrics = latencyMetrics;
+        if (metrics != null) {
+            session.setLatency(metrics.open(connection_handle, address));
         }
-
-        logger.debug(String.format("IMU gx: %d  gy: %d  gz: %d  ax: %d  ay: %d  az: %d", gx, gy, gz, ax, ay, az));
-    }
-
-
-    private void firmwareInfoReceived(byte[] value) {
-        String ver = String.format("%d.%d.%d.%d", (int) value[0], (int) value[1], (int) value[2], (int) value[3]);
-        firmwareAction.accept(ver);
-    }
-
-    @Override
-    public void receive_attclient_read_by_handle(int connection, int result) {
-        logger.info(String.format("receive_attclient_read_by_handle !!! %d %d",connection, result));
-    }
-
-    @Override
-    public void receive_attributes_read(int handle, int offset, int result, byte[] value) {
-        logger.info(String.format("handle[%d] offset[%d] result[%d]    ",handle, offset, result)+bytesToHex(value));
-
-    }
-
-    public static String bytesToHex(byte[] bytes ){
-        StringBuffer result = new StringBuffer();
-        result.append("[");
-
-        for (byte b : bytes) {
-            result.append( Integer.toHexString((int) (b & 0xFF)) + " ");
+        Consumer<MyoSession> opened = sessionOpenedAction;
+        if (opened != null) {
+            opened.accept(session);
         }
-
-        result.append("]");
-
-        return result.toString();
-    }
-
-    @Override
-    public void receive_connection_status(int connection, int flags, BDAddr address, int address_type, int conn_interval, int timeout, int latency, int bonding) {
-        logger.info(" !!!");
-    }
-
-    @Override
-    public void receive_connection_features_get(int connection, int result) {
-        logger.info("receive_connection_features_get !!! "+ result);
-    }
-
-    @Override
-    public void receive_attclient_attribute_write(int connection, int result) {
-        logger.info("receive_attclient_attribute_write !!!");
-    }
-
-    @Override
-    public void receive_attclient_procedure_completed(int connection, int result, int chrhandle) {
-        semaphore.release();
-    }
-
-    @Override
-    public void receive_system_reset() {
-        logger.info("receive_system_reset !!!");
-    }
-
-    @Override
-    public void receive_system_hello() {
-        logger.info("receive_system_hello !!!");
-    }
-
-    @Override
-    public void receive_system_address_get(BDAddr address) {
-        logger.info("receive_system_address_get !!!");
-    }
-
-    @Override
-    public void receive_system_reg_write(int result) {
-        logger.info("receive_system_reg_write !!!");
-    }
-
-    @Override
-    public void receive_system_reg_read(int address, int value) {
-        logger.info("resystem_reg_read !!!");
-    }
-
-    @Override
-    public void receive_system_get_counters(int txok, int txretry, int rxok, int rxfail) {
-        logger.info("receive_system_get_counters !!!");
-    }
-
-    @Override
-    public void receive_system_get_connections(int maxconn) {
-        logger.info("receive_system_get_connections !!!");
-    }
-
-    @Override
-    public void receive_system_read_memory(int address, byte[] data) {
-        logger.info("receive_system_read_memory !!!");
-    }
-
-    @Override
-    public void receive_system_get_info(int major, int minor, int patch, int build, int ll_version, int protocol_version, int hw) {
-        logger.info(String.format("Version: %d.%d.%d-%d Protcol-Version: %d",major,minor,patch,build,protocol_version));
-    }
-
-    @Override
-    public void receive_system_endpoint_tx() {
-        logger.info("receive_system_endpoint_tx !!!");
-    }
-
-    @Override
-    public void receive_system_whitelist_append(int result) {
-        logger.info("receive_system_whitelist_append !!!");
-    }
-
-    @Override
-    public void receive_system_whitelist_remove(int result) {
-        logger.info("receive_system_whitelist_remove !!!");
-    }
-
-    @Override
-    public void receive_system_whitelist_clear() {
-        logger.info("receive_system_whitelist_clear !!!");
-    }
-
-    @Override
-    public void receive_system_boot(int major, int minor, int patch, int build, int ll_version, int protocol_version, int hw) {
-        logger.info("receive_system_boot !!!");
-    }
-
-    @Override
-    public void receive_system_debug(byte[] data) {
-        logger.info("receive_system_debug !!!");
-    }
-
-    @Override
-    public void receive_system_endpoint_rx(int endpoint, byte[] data) {
-        logger.info("receive_system_endpoint_rx !!!");
-    }
-
-    @Override
-    public void receive_flash_ps_defrag() {
-        logger.info("receive_flash_ps_defrag !!!");
-    }
-
-    @Override
-    public void receive_flash_ps_dump() {
-        logger.info("receive_flash_ps_dump !!!");
-    }
-
-    @Override
-    public void receive_flash_ps_erase_all() {
-        logger.info("receive_flash_ps_erase_all !!!");
+        sessionManager.open(session);
+        connection = connection_handle;
     }
 
-    @Override
-    public void receive_flash_ps_save(int result) {
-        logger.info("receive_flash_ps_save !!!");
+    private static boolean isUnknown(BDAddr address) {
+        if (address == null) {
+            return true;
+        }
+        for (byte b : address.getByteAddr()) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
-    public void receive_flash_ps_load(int result, byte[] value) {
-        logger.info("receive_flash_ps_load !!!");
+    public void receive_attclient_attribute_value(int connection, int atthandle, int type, byte[] data) {
+        long received = System.nanoTime();
+        SessionRecorder recording = recorder;
+        if (recording != null) {
+            recording.attributeValue(received, connection, atthandle, data);
+        }
+        AttributeEventRing ring = eventRing;
+        if (ring != null) {
+            // a full ring counts the drop itself, the reader thread must never wait on consumers
+            ring.tryPublish(received, connection, atthandle, data);
+        } else if (!sessionManager.dispatch(received, connection, atthandle, data, data.length)) {
+            logger.debug("Dropping data for unknown connection {}", connection);
+        }
     }
 
+    /**
+     * Attribute values from the zero copy transport, called on its reader thread.
+     */
     @Override
-    public void receive_flash_ps_erase() {
-        logger.info("receive_flash_ps_erase !!!");
+    public void onAttributeValue(int connection, int atthandle, int type, ByteBuffer buffer, int offset, int length) {
+        long received = System.nanoTime();
+        long read = readNanos(received);
+        if (latencyMetrics != null) {
+            MyoSession session = sessionManager.get(connection);
+            ConnectionLatency latency = session == null ? null : session.getLatency();
+            if (latency != null && read != received) {
+                latency.record(LatencyStage.RECEIVE, read, received);
+            }
+        }
+        SessionRecorder recording = recorder;
+        if (recording != null) {
+            recording.attributeValue(received, connection, atthandle, buffer, offset, length);
+        }
+        AttributeEventRing ring = eventRing;
+        if (ring != null) {
+            ring.tryPublish(read, connection, atthandle, buffer, offset, length);
+        } else if (!sessionManager.dispatch(read, connection, atthandle, buffer, offset, length)) {
+            logger.debug("Dropping data for unknown connection {}", connection);
+        }
     }
 
-    @Override
-    public void receive_flash_erase_page(int result) {
-        logger.info("receive_flash_erase_page !!!");
+    /**
+     * Sets the pose action for every current and future session. It is called once each time
+     * a pose is entered.
+     */
+    public void onPose(Consumer<Pose> poseFunction) {
+        this.poseAction = poseFunction;
+        for (MyoSession session : sessionManager.sessions()) {
+            session.onPose(poseFunction);
+        }
     }
 
-    @Override
-    public void receive_flash_write_words() {
-        logger.info("receive_flash_write_words !!!");
+    /**
+     * Sets the action run with every session opened from now on, including connects nobody asked
+     * for such as replayed ones. It runs before the session receives any data, so sinks and
+     * listeners set on it see every sample.
+     */
+    public void onSessionOpened(Consumer<MyoSession> action) {
+        this.sessionOpenedAction = action;
     }
 
-    @Override
-    public void receive_flash_ps_key(int key, byte[] value) {
-        logger.info("receive_flash_ps_key !!!");
+    /**
+     * Sets the listener for poses being entered and released on every current and future session.
+     */
+    public void onPoseTransition(PoseTransitionListener listener) {
+        this.poseTransitionListener = listener;
+        for (MyoSession session : sessionManager.sessions()) {
+            session.onPoseTransition(listener);
+        }
     }
 
-    @Override
-    public void receive_attributes_write(int result) {
-        logger.info("receive_attributes_write !!!");
+    /**
+     * Starts teaching the classifier the pose on the connection, see {@link MyoSession#startCalibration(Pose)}.
+     * Requires an online classifier such as {@code -Dmyo.classifier=knn-online}.
+     */
+    public void startCalibration(int connection, Pose pose) {
+        MyoSession session = sessionManager.get(connection);
+        if (session == null) throw new IllegalArgumentException("No session on connection " + connection);
+        session.startCalibration(pose);
     }
 
-
-
-    @Override
-    public void receive_attributes_read_type(int handle, int result, byte[] value) {
-        logger.info("receive_attributes_read_type !!!");
+    public void stopCalibration(int connection) {
+        MyoSession session = sessionManager.get(connection);
+        if (session != null) {
+            session.stopCalibration();
+        }
     }
 
-    @Override
-    public void receive_attributes_user_response() {
-        logger.info("receive_attributes_user_response !!!");
+    private CalibrationProfile loadProfile(String address) {
+        CalibrationStore store = calibrationStore;
+        if (store == null || address == null) {
+            return null;
+        }
+        try {
+            CalibrationProfile profile = store.load(address, profileUser);
+            if (profile != null) {
+                logger.info("Using {}", profile);
+            }
+            return profile;
+        } catch (IOException e) {
+            logger.error("Unable to load the calibration profile of " + address, e);
+            return null;
+        }
     }
 
-    @Override
-    public void receive_attributes_value(int connection, int reason, int handle, int offset, byte[] value) {
-        logger.info("receive_attributes_value !!!");
+    // trains off the reader thread, the session keeps the default classifier until it's done
+    private void useProfileClassifier(MyoSession session, CalibrationProfile profile) {
+        classifierCache.get(profile.getKey(), key -> {
+            logger.info("Training {} pose classifier for {} on {} rows", profile.getClassifier(), key, profile.getModel().size());
+            return PoseClassifiers.train(profile.getClassifier(), featureSet.apply(profile.getModel()),
+                    PoseClassifiers.options(System.getProperties(), CLASSIFIER_PROPERTY + "."));
+        }, profileTrainer).whenComplete((trained, failure) -> {
+            if (failure != null) {
+                logger.error("Unable to train the classifier of " + profile + ", keeping the default", failure);
+            } else {
+                session.setClassifier(trained, profile.getModel());
+            }
+        });
+    }
+
+    /**
+     * Starts estimating how the armband on the connection is rotated, the user should hold the
+     * reference pose until {@link #stopAlignment(int)}. The pose is compared with the rows the
+     * session's classifier was trained on, the orientation it expects: the profile's model, or
+     * the {@link #MODEL_PROPERTY} model or bundled gesture recordings for the default classifier.
+     */
+    public void startAlignment(int connection, Pose reference) {
+        MyoSession session = sessionManager.get(connection);
+        if (session == null) throw new IllegalArgumentException("No session on connection " + connection);
+        GestureDataset trainingData = session.getTrainingData();
+        session.startAlignment(RotationAligner.forPose(trainingData == null ? referenceDataset() : trainingData, reference));
+    }
+
+    /**
+     * @return the rotation now applied to the connection, e.g. to keep in its {@link CalibrationProfile}
+     */
+    public int stopAlignment(int connection) {
+        MyoSession session = sessionManager.get(connection);
+        if (session == null) throw new IllegalArgumentException("No session on connection " + connection);
+        return session.stopAlignment();
+    }
+
+    // what the default classifier is trained on, see loadDefaultClassifier
+    private static synchronized GestureDataset referenceDataset() {
+        if (referenceDataset == null) {
+            String model = System.getProperty(MODEL_PROPERTY);
+            if (model == null) {
+                referenceDataset = GestureDataset.loadDefault();
+            } else {
+                try {
+                    referenceDataset = GestureModelFile.map(Paths.get(model)).getDataset();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to load gesture model " + model, e);
+                }
+            }
+        }
+        return referenceDataset;
     }
 
-    @Override
-    public void receive_attributes_user_request(int connection, int handle, int offset) {
-        logger.info("receive_attributes_user_request !!!");
+    // when the zero copy reader read the packet being dispatched, now if it doesn't say
+    private long readNanos(long now) {
+        BgapiEventDispatcher dispatcher = fastPath;
+        long read = dispatcher == null ? 0 : dispatcher.getReceivedNanos();
+        return read == 0 ? now : read;
     }
 
-    @Override
-    public void receive_connection_get_rssi(int connection, int rssi) {
-        logger.info("receive_connection_get_rssi !!!");
+    private void closeSession(int connection) {
+        unclaimedConnects.remove(connection);
+        LatencyMetrics metrics = latencyMetrics;
+        if (metrics != null) {
+            metrics.close(connection);
+        }
+        if (sessionManager.close(connection) != null && this.connection == connection) {
+            this.connection = -1;
+        }
     }
 
-    @Override
-    public void receive_connection_update(int connection, int result) {
-        logger.info("receive_connection_update !!!");
-    }
+    private static class PendingConnect {
+        final String address;
+        final CompletableFuture<Integer> connected = new CompletableFuture<>();
 
-    @Override
-    public void receive_connection_version_update(int connection, int result) {
-        logger.info("receive_connection_version_update !!!");
+        PendingConnect(String address) {
+            this.address = address;
+        }
     }
 
     @Override
-    public void receive_connection_channel_map_get(int connection, byte[] map) {
-        logger.info("receive_connection_channel_map_get !!!");
-    }
+    public void receive_attributes_read(int handle, int offset, int result, byte[] value) {
+        logger.info(String.format("handle[%d] offset[%d] result[%d]    ",handle, offset, result)+bytesToHex(value));
 
-    @Override
-    public void receive_connection_channel_map_set(int connection, int result) {
-        logger.info("receive_connection_channel_map_set !!!");
     }
 
+    public static String bytesToHex(byte[] bytes ){
+        StringBuffer result = new StringBuffer();
+        result.append("[");
 
-    @Override
-    public void receive_connection_get_status(int connection) {
-        logger.info("receive_connection_get_status !!!");
-    }
-
-    @Override
-    public void receive_connection_raw_tx(int connection) {
-        logger.info("receive_connection_raw_tx !!!");
-    }
+        for (byte b : bytes) {
+            result.append( Integer.toHexString((int) (b & 0xFF)) + " ");
+        }
 
-    @Override
-    public void receive_connection_version_ind(int connection, int vers_nr, int comp_id, int sub_vers_nr) {
-        logger.info("receive_connection_version_ind !!!");
-    }
+        result.append("]");
 
-    @Override
-    public void receive_connection_feature_ind(int connection, byte[] features) {
-        logger.info("receive_connection_feature_ind !!!");
+        return result.toString();
     }
 
     @Override
-    public void receive_connection_raw_rx(int connection, byte[] data) {
-        logger.info("receive_connection_raw_rx !!!");
+    public void receive_system_get_info(int major, int minor, int patch, int build, int ll_version, int protocol_version, int hw) {
+        logger.info(String.format("Version: %d.%d.%d-%d Protcol-Version: %d",major,minor,patch,build,protocol_version));
     }
 
     @Override
     public void receive_connection_disconnected(int connection, int reason) {
-        logger.info("receive_connection_disconnected !!!");
-    }
-
-    @Override
-    public void receive_attclient_find_by_type_value(int connection, int result) {
-        logger.info("receive_attclient_find_by_type_value !!!");
-    }
-
-    @Override
-    public void receive_attclient_read_by_group_type(int connection, int result) {
-        logger.info("receive_attclient_read_by_group_type !!!");
-    }
-
-    @Override
-    public void receive_attclient_read_by_type(int connection, int result) {
-        logger.info("receive_attclient_read_by_type !!!");
-    }
-
-    @Override
-    public void receive_attclient_find_information(int connection, int result) {
-        logger.info("receive_attclient_find_information !!!");
-    }
-
-    @Override
-    public void receive_attclient_write_command(int connection, int result) {
-        logger.info("receive_attclient_write_command !!!");
-    }
-
-    @Override
-    public void receive_attclient_reserved() {
-        logger.info("receive_attclient_reserved !!!");
-    }
-
-    @Override
-    public void receive_attclient_read_long(int connection, int result) {
-        logger.info("receive_attclient_read_long !!!");
-    }
-
-    @Override
-    public void receive_attclient_prepare_write(int connection, int result) {
-        logger.info("receive_attclient_prepare_write !!!");
-    }
-
-    @Override
-    public void receive_attclient_execute_write(int connection, int result) {
-        logger.info("receive_attclient_execute_write !!!");
-    }
-
-    @Override
-    public void receive_attclient_read_multiple(int connection, int result) {
-        logger.info("receive_attclient_read_multiple !!!");
-    }
-
-    @Override
-    public void receive_attclient_indicated(int connection, int attrhandle) {
-        logger.info("receive_attclient_indicated !!!");
-    }
-
-    @Override
-    public void receive_attclient_group_found(int connection, int start, int end, byte[] uuid) {
-        logger.info("receive_attclient_group_found !!!");
-    }
-
-    @Override
-    public void receive_attclient_attribute_found(int connection, int chrdecl, int value, int properties, byte[] uuid) {
-        logger.info("receive_attclient_attribute_found !!!");
-    }
-
-    @Override
-    public void receive_attclient_find_information_found(int connection, int chrhandle, byte[] uuid) {
-        logger.info("receive_attclient_find_information_found !!!");
-    }
-
-    @Override
-    public void receive_attclient_read_multiple_response(int connection, byte[] handles) {
-        logger.info("receive_attclient_read_multiple_response !!!");
-    }
-
-    @Override
-    public void receive_sm_encrypt_start(int handle, int result) {
-        logger.info("receive_sm_encrypt_start !!!");
-    }
-
-    @Override
-    public void receive_sm_set_bondable_mode() {
-        logger.info("receive_sm_set_bondable_mode !!!");
-    }
-
-    @Override
-    public void receive_sm_delete_bonding(int result) {
-        logger.info("receive_sm_delete_bonding !!!");
-    }
-
-    @Override
-    public void receive_sm_set_parameters() {
-        logger.info("receive_sm_set_parameters !!!");
-    }
-
-    @Override
-    public void receive_sm_passkey_entry(int result) {
-        logger.info("receive_sm_passkey_entry !!!");
-    }
-
-    @Override
-    public void receive_sm_get_bonds(int bonds) {
-        logger.info("receive_sm_get_bonds !!!");
-    }
-
-    @Override
-    public void receive_sm_set_oob_data() {
-        logger.info("receive_sm_set_oob_data !!!");
-    }
-
-    @Override
-    public void receive_sm_smp_data(int handle, int packet, byte[] data) {
-        logger.info("receive_sm_smp_data !!!");
-    }
-
-    @Override
-    public void receive_sm_bonding_fail(int handle, int result) {
-        logger.info("receive_sm_bonding_fail !!!");
-    }
-
-    @Override
-    public void receive_sm_passkey_display(int handle, int passkey) {
-        logger.info("receive_sm_passkey_display !!!");
-    }
-
-    @Override
-    public void receive_sm_passkey_request(int handle) {
-        logger.info("receive_sm_passkey_request !!!");
-    }
-
-    @Override
-    public void receive_sm_bond_status(int bond, int keysize, int mitm, int keys) {
-        logger.info("receive_sm_bond_status !!!");
-    }
-
-    @Override
-    public void receive_gap_set_privacy_flags() {
-        logger.info("receive_gap_set_privacy_flags !!!");
-    }
-
-    @Override
-    public void receive_gap_set_mode(int result) {
-        logger.info("receive_gap_set_mode !!!");
-    }
-
-    @Override
-    public void receive_gap_discover(int result) {
-        logger.info("receive_gap_discover !!!");
-    }
-
-    @Override
-    public void receive_gap_end_procedure(int result) {
-        logger.info("receive_gap_end_procedure !!!");
-    }
-
-    @Override
-    public void receive_gap_connect_selective(int result, int connection_handle) {
-        logger.info("receive_gap_connect_selective !!!");
-    }
-
-    @Override
-    public void receive_gap_set_filtering(int result) {
-        logger.info("receive_gap_set_filtering !!!");
-    }
-
-    @Override
-    public void receive_gap_set_scan_parameters(int result) {
-        logger.info("receive_gap_set_scan_parameters !!!");
-    }
-
-    @Override
-    public void receive_gap_set_adv_parameters(int result) {
-        logger.info("receive_gap_set_adv_parameters !!!");
-    }
-
-    @Override
-    public void receive_gap_set_adv_data(int result) {
-        logger.info("receive_gap_set_adv_data !!!");
-    }
-
-    @Override
-    public void receive_gap_set_directed_connectable_mode(int result) {
-        logger.info("receive_gap_set_directed_connectable_mode !!!");
-    }
-
-    @Override
-    public void receive_gap_mode_changed(int discover, int connect) {
-        logger.info("receive_gap_mode_changed !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_config_irq(int result) {
-        logger.info("receive_hardware_io_port_config_irq !!!");
-    }
-
-    @Override
-    public void receive_hardware_set_soft_timer(int result) {
-        logger.info("receive_hardware_set_soft_timer !!!");
-    }
-
-    @Override
-    public void receive_hardware_adc_read(int result) {
-        logger.info("receive_hardware_adc_read !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_config_direction(int result) {
-        logger.info("receive_hardware_io_port_config_direction !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_config_function(int result) {
-        logger.info("receive_hardware_io_port_config_function !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_config_pull(int result) {
-        logger.info("receive_hardware_io_port_config_pull !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_write(int result) {
-        logger.info("receive_hardware_io_port_write !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_read(int result, int port, int data) {
-        logger.info("receive_hardware_io_port_read !!!");
-    }
-
-    @Override
-    public void receive_hardware_spi_config(int result) {
-        logger.info("receive_hardware_spi_config !!!");
-    }
-
-    @Override
-    public void receive_hardware_spi_transfer(int result, int channel, byte[] data) {
-        logger.info("receive_hardware_spi_transfer !!!");
-    }
-
-    @Override
-    public void receive_hardware_i2c_read(int result, byte[] data) {
-        logger.info("receive_hardware_i2c_read !!!");
-    }
-
-    @Override
-    public void receive_hardware_i2c_write(int written) {
-        logger.info("receive_hardware_i2c_write !!!");
-    }
-
-    @Override
-    public void receive_hardware_set_txpower() {
-        logger.info("receive_hardware_set_txpower !!!");
-    }
-
-    @Override
-    public void receive_hardware_io_port_status(int timestamp, int port, int irq, int state) {
-        logger.info("receive_hardware_io_port_status !!!");
-    }
-
-    @Override
-    public void receive_hardware_soft_timer(int handle) {
-        logger.info("receive_hardware_soft_timer !!!");
-    }
-
-    @Override
-    public void receive_hardware_adc_result(int input, int value) {
-        logger.info("receive_hardware_adc_result !!!");
-    }
-
-    @Override
-    public void receive_test_phy_tx() {
-        logger.info("receive_test_phy_tx !!!");
-    }
-
-    @Override
-    public void receive_test_phy_rx() {
-        logger.info("receive_test_phy_rx !!!");
-    }
-
-    @Override
-    public void receive_test_phy_end(int counter) {
-        logger.info("receive_test_phy_end !!!");
-    }
-
-    @Override
-    public void receive_test_phy_reset() {
-        logger.info("receive_test_phy_reset !!!");
-    }
-
-    @Override
-    public void receive_test_get_channel_map(byte[] channel_map) {
-        logger.info("receive_test_get_channel_map !!!");
+        logger.info(String.format("Connection %d lost, reason %d", connection, reason));
+        SessionRecorder recording = recorder;
+        if (recording != null) {
+            recording.disconnected(System.nanoTime(), connection, reason);
+        }
+        closeSession(connection);
     }
 
     @PreDestroy
     public void shutdown() {
         logger.info("Destorying MyoApplication Instance");
         //client.removeListener(this);
-        if (connection >= 0) {
-            client.send_connection_disconnect(connection);
+        if (client != null) {
+            for (MyoSession session : sessionManager.sessions()) {
+                client.send_connection_disconnect(session.getConnection());
+            }
         }
 
         if (client != null) {
             client.removeListener(this);
+            client.removeListener(gattQueue);
+            gattQueue.shutdown();
+        }
+
+        synchronized (this) {
+            if (sessionProcessor != null) {
+                sessionProcessor.halt();
+            }
+            if (latencyMetrics != null) {
+                latencyMetrics.shutdown();
+            }
         }
 
-        BluetoothClientFactory.disconnectBLED112();
+        if (clientFactory == null) {
+            BluetoothClientFactory.disconnectBLED112();
+        } else {
+            clientFactory.disconnect();
+        }
     }
 }
@@ -0,0 +1,161 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.classifier.PoseClassifier;
+import com.github.weaselworks.myo.driver.listener.EmgSampleSink;
+import com.github.weaselworks.myo.driver.listener.ImuFrameListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thingml.bglib.BDAddr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Drives every BLED112 plugged into the machine behind one API. Each dongle runs its own
+ * {@link MyoApplication}, new connections go to the dongle with the fewest sessions, so
+ * throughput grows with the number of dongles.
+ */
+public class MyoDonglePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(MyoDonglePool.class);
+
+    private final List<MyoApplication> dongles;
+    private final Set<String> devicesFound = ConcurrentHashMap.newKeySet();
+
+    public MyoDonglePool(List<MyoApplication> dongles) {
+        if (dongles == null || dongles.isEmpty()) throw new IllegalArgumentException("Cannot create a pool without dongles");
+        this.dongles = new CopyOnWriteArrayList<>(dongles);
+    }
+
+    /**
+     * Creates a pool over every free serial port with a BLED112 behind it, all dongles share
+     * one classifier.
+     */
+    public static MyoDonglePool openAvailable() {
+        PoseClassifier classifier = MyoApplication.loadDefaultClassifier();
+        List<MyoApplication> dongles = new ArrayList<>();
+        for (BluetoothClientFactory factory : BluetoothClientFactory.forAvailablePorts()) {
+            logger.info(String.format("Found BLED112 candidate on %s", factory.getPortName()));
+            dongles.add(new MyoApplication(factory, classifier));
+        }
+        return new MyoDonglePool(dongles);
+    }
+
+    /**
+     * Starts every dongle. A dongle that fails to start is logged and dropped from the pool.
+     *
+     * @throws IllegalStateException if none of them started
+     */
+    public void start() {
+        for (MyoApplication dongle : dongles) {
+            try {
+                dongle.start();
+            } catch (RuntimeException e) {
+                logger.error("Unable to start the BLED112 on " + portName(dongle) + ", leaving it out", e);
+                dongles.remove(dongle);
+            }
+        }
+        if (dongles.isEmpty()) {
+            throw new IllegalStateException("None of the dongles started");
+        }
+    }
+
+    /**
+     * Scans on every dongle, each device is reported once.
+     */
+    public void onDeviceFound(Consumer<BDAddr> action) {
+        for (MyoApplication dongle : dongles) {
+            dongle.onDeviceFound(addr -> {
+                if (devicesFound.add(addr.toString())) {
+                    action.accept(addr);
+                }
+            });
+        }
+    }
+
+    /**
+     * Connects through the least loaded dongle.
+     *
+     * @return completes with the session, or exceptionally if the dongle refused the connection
+     */
+    public CompletableFuture<MyoSession> connect(String bluetoothAddress, Consumer<MyoSession> connectAction) {
+        MyoApplication dongle = leastLoaded();
+        CompletableFuture<MyoSession> connected = dongle.connect(bluetoothAddress, null)
+                .thenApply(connection -> dongle.getSessionManager().get(connection));
+        if (connectAction != null) {
+            connected.thenAccept(session -> {
+                if (session != null) {
+                    connectAction.accept(session);
+                }
+            });
+        }
+        return connected;
+    }
+
+    public void disconnect(MyoSession session, Consumer<Integer> disconnectAction) {
+        dongleFor(session).disconnect(session.getConnection(), disconnectAction);
+    }
+
+    public CompletableFuture<Boolean> subscribeMyoData(MyoSession session, ImuFrameListener imuListener, EmgSampleSink emgSink) {
+        return dongleFor(session).subscribeMyoData(session.getConnection(), imuListener, emgSink);
+    }
+
+    public MyoSubscription subscribeMyoData(MyoSession session, ImuFrameListener imuListener, EmgSampleSink emgSink,
+                                            BackpressurePolicy policy, int capacity, Executor executor) {
+        return dongleFor(session).subscribeMyoData(session.getConnection(), imuListener, emgSink, policy, capacity, executor);
+    }
+
+    public void onPose(Consumer<Pose> poseFunction) {
+        for (MyoApplication dongle : dongles) {
+            dongle.onPose(poseFunction);
+        }
+    }
+
+    public List<MyoSession> sessions() {
+        List<MyoSession> sessions = new ArrayList<>();
+        for (MyoApplication dongle : dongles) {
+            sessions.addAll(dongle.getSessionManager().sessions());
+        }
+        return sessions;
+    }
+
+    public List<MyoApplication> getDongles() {
+        return Collections.unmodifiableList(dongles);
+    }
+
+    public MyoApplication dongleFor(MyoSession session) {
+        for (MyoApplication dongle : dongles) {
+            if (dongle.getSessionManager().get(session.getConnection()) == session) {
+                return dongle;
+            }
+        }
+        throw new IllegalArgumentException("Session is not open in this pool " + session);
+    }
+
+    public void shutdown() {
+        for (MyoApplication dongle : dongles) {
+            dongle.shutdown();
+        }
+    }
+
+    private static String portName(MyoApplication dongle) {
+        return dongle.getClientFactory() == null ? "the default port" : dongle.getClientFactory().getPortName();
+    }
+
+    private MyoApplication leastLoaded() {
+        MyoApplication best = dongles.get(0);
+        for (MyoApplication dongle : dongles) {
+            if (dongle.getLoad() < best.getLoad()) {
+                best = dongle;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,413 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.classifier.EmgFeatureWindow;
+import com.github.weaselworks.myo.driver.classifier.FeatureSet;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import com.github.weaselworks.myo.driver.classifier.OnlinePoseClassifier;
+import com.github.weaselworks.myo.driver.classifier.PoseClassifier;
+import com.github.weaselworks.myo.driver.classifier.PoseStateMachine;
+import com.github.weaselworks.myo.driver.classifier.RotationAligner;
+import com.github.weaselworks.myo.driver.listener.EmgSampleSink;
+import com.github.weaselworks.myo.driver.listener.ImuFrameListener;
+import com.github.weaselworks.myo.driver.listener.PoseTransitionListener;
+import com.github.weaselworks.myo.driver.metrics.ConnectionLatency;
+import com.github.weaselworks.myo.driver.metrics.LatencyStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * State of one connected armband: its decoders, classifier scratch space and the callbacks
+ * subscribed to it. Notifications for a session arrive on one thread at a time, the BGAPI or
+ * zero-copy reader thread or the event ring's processor, so the reusable buffers need no locking.
+ */
+public class MyoSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(MyoSession.class);
+
+    private final int connection;
+    private final String address;
+    private volatile PoseClassifier classifier;
+    private volatile GestureDataset trainingData;
+    private final EmgDecoder emgDecoder = new EmgDecoder();
+    private final ImuFrame imuFrame = new ImuFrame();
+    private final float[] emgValues = new float[EmgDecoder.CHANNELS];
+    private volatile EmgFeatureWindow featureWindow = new EmgFeatureWindow();
+    private volatile PoseStateMachine poseStateMachine = new PoseStateMachine();
+    private volatile FeatureSet featureSet = FeatureSet.AMPLITUDE;
+
+    private volatile EmgSampleSink emgSink;
+    private volatile ImuFrameListener imuListener;
+    private volatile Consumer<Pose> poseAction;
+    private volatile PoseTransitionListener poseTransitionListener;
+    private volatile Pose calibrationPose;
+    private volatile int calibrationWindows;
+    private volatile RotationAligner aligner;
+    private volatile Consumer<String> firmwareAction;
+    private volatile ConnectionLatency latency;
+
+    /**
+     * @param classifier pose classifier, null to skip classification
+     */
+    public MyoSession(int connection, String address, PoseClassifier classifier) {
+        this.connection = connection;
+        this.address = address;
+        this.classifier = classifier;
+    }
+
+    public int getConnection() {
+        return connection;
+    }
+
+    /**
+     * Replaces the classifier, e.g. once the armband's profile classifier has been trained.
+     * Takes effect from the next complete window.
+     *
+     * @param classifier   pose classifier, null to skip classification
+     * @param trainingData the rows the classifier was trained on, null if they aren't known
+     */
+    public void setClassifier(PoseClassifier classifier, GestureDataset trainingData) {
+        this.trainingData = trainingData;
+        this.classifier = classifier;
+    }
+
+    public PoseClassifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * @return the rows the classifier was trained on, null if the session was opened with the
+     *         application's classifier and it hasn't been replaced
+     */
+    public GestureDataset getTrainingData() {
+        return trainingData;
+    }
+
+    /**
+     * @return the bluetooth address the session was connected to, or null if it isn't known
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Applies the channel gains and pod rotation of a calibration profile to every EMG sample
+     * from now on, see {@link EmgDecoder#setCalibration(float[], int)}.
+     */
+    public void setCalibration(float[] gains, int rotation) {
+        emgDecoder.setCalibration(gains, rotation);
+    }
+
+    /**
+     * Starts estimating how the armband is rotated: the user should hold the aligner's reference
+     * gesture until {@link #stopAlignment()}. Poses aren't classified while aligning.
+     */
+    public void startAlignment(RotationAligner aligner) {
+        aligner.reset();
+        this.aligner = aligner;
+    }
+
+    /**
+     * Estimates the rotation from the windows seen since {@link #startAlignment(RotationAligner)}
+     * and applies it to every EMG sample from now on.
+     *
+     * @return the rotation now applied, see {@link EmgDecoder#setRotation(int)}
+     * @throws IllegalStateException if the session isn't aligning or hasn't seen a complete window
+     */
+    public int stopAlignment() {
+        RotationAligner aligner = this.aligner;
+        if (aligner == null) throw new IllegalStateException(this + " isn't aligning");
+        this.aligner = null;
+        // the windows were seen through the current rotation, so the estimate is relative to it
+        int rotation = (emgDecoder.getRotation() + aligner.estimate()) % EmgDecoder.CHANNELS;
+        emgDecoder.setRotation(rotation);
+        logger.info("Rotation of {} is {} pods after {} windows", this, rotation, aligner.getWindows());
+        return rotation;
+    }
+
+    public boolean isAligning() {
+        return aligner != null;
+    }
+
+    /**
+     * @return the pods the EMG channels are rotated by
+     */
+    public int getRotation() {
+        return emgDecoder.getRotation();
+    }
+
+    /**
+     * @param latency where every packet records the {@link LatencyStage}s it passes, null to stop timing
+     */
+    public void setLatency(ConnectionLatency latency) {
+        this.latency = latency;
+    }
+
+    public ConnectionLatency getLatency() {
+        return latency;
+    }
+
+    public void setEmgSink(EmgSampleSink emgSink) {
+        this.emgSink = emgSink;
+    }
+
+    public void setImuListener(ImuFrameListener imuListener) {
+        this.imuListener = imuListener;
+    }
+
+    /**
+     * Called once each time a pose is entered, after debouncing.
+     */
+    public void onPose(Consumer<Pose> poseAction) {
+        this.poseAction = poseAction;
+    }
+
+    /**
+     * Called when a pose is entered and when it is released.
+     */
+    public void onPoseTransition(PoseTransitionListener poseTransitionListener) {
+        this.poseTransitionListener = poseTransitionListener;
+    }
+
+    /**
+     * Replaces the pose debouncing, see {@link PoseStateMachine}.
+     */
+    public void setPoseDebounce(int votes, long minHoldMillis) {
+        this.poseStateMachine = new PoseStateMachine(votes, minHoldMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void onFirmware(Consumer<String> firmwareAction) {
+        this.firmwareAction = firmwareAction;
+    }
+
+    /**
+     * Replaces the feature window, poses are classified once per hop of the window.
+     */
+    public void setFeatureWindow(int window, int hop) {
+        this.featureWindow = new EmgFeatureWindow(EmgDecoder.CHANNELS, window, hop, 0);
+    }
+
+    /**
+     * Sets how the mean absolute values of a window are transformed before they are classified
+     * or learned, which must match the rows the classifier was trained on.
+     */
+    public void setFeatureSet(FeatureSet featureSet) {
+        this.featureSet = featureSet;
+    }
+
+    public FeatureSet getFeatureSet() {
+        return featureSet;
+    }
+
+    /**
+     * Teaches the classifier that the pose is being held: every complete feature window from
+     * now until {@link #stopCalibration()} is added to the model as an example of it. Other
+     * sessions sharing the classifier pick up the examples straight away.
+     *
+     * @throws IllegalStateException if the classifier can't learn online
+     */
+    public void startCalibration(Pose pose) {
+        if (!(classifier instanceof OnlinePoseClassifier)) {
+            throw new IllegalStateException("The classifier of " + this + " can't learn online");
+        }
+        calibrationWindows = 0;
+        calibrationPose = pose;
+    }
+
+    public void stopCalibration() {
+        calibrationPose = null;
+    }
+
+    /**
+     * @return the pose being calibrated, null if the session isn't calibrating
+     */
+    public Pose getCalibrationPose() {
+        return calibrationPose;
+    }
+
+    /**
+     * @return the number of windows learned since calibration last started
+     */
+    public int getCalibrationWindows() {
+        return calibrationWindows;
+    }
+
+    public EmgFeatureWindow getFeatureWindow() {
+        return featureWindow;
+    }
+
+    public void attributeValue(int atthandle, byte[] data) {
+        attributeValue(atthandle, data, data.length);
+    }
+
+    /**
+     * Handles the first length bytes of data, which may be a larger reused buffer.
+     */
+    public void attributeValue(int atthandle, byte[] data, int length) {
+        attributeValue(System.nanoTime(), atthandle, data, length);
+    }
+
+    /**
+     * @param readNanos when the value was read from the dongle, as from {@link System#nanoTime()}.
+     *                  Samples are stamped with it and latencies measured from it
+     */
+    public void attributeValue(long readNanos, int atthandle, byte[] data, int length) {
+        checkpoint(LatencyStage.DISPATCH, readNanos);
+        switch (atthandle) {
+            case MyoApplication.FIRMWARE:  firmwareInfoReceived(data);
+                break;
+            case MyoApplication.IMU_VALUE: imuDataReceived(readNanos, data, length);
+                break;
+            case MyoApplication.EMG_VALUE: emgDataReceived(readNanos, data, length);
+                break;
+            default:        logger.warn("Data received for unknown attr handle"+atthandle);
+        }
+    }
+
+    /**
+     * Handles length bytes of the buffer starting at offset. The buffer is only read during the
+     * call, typically it is the transport's receive buffer.
+     */
+    public void attributeValue(int atthandle, ByteBuffer buffer, int offset, int length) {
+        attributeValue(System.nanoTime(), atthandle, buffer, offset, length);
+    }
+
+    public void attributeValue(long readNanos, int atthandle, ByteBuffer buffer, int offset, int length) {
+        checkpoint(LatencyStage.DISPATCH, readNanos);
+        switch (atthandle) {
+            case MyoApplication.FIRMWARE:
+                if (length >= 4) {
+                    firmwareInfoReceived(buffer.get(offset), buffer.get(offset + 1), buffer.get(offset + 2), buffer.get(offset + 3));
+                }
+                break;
+            case MyoApplication.IMU_VALUE:
+                if (checkLength("IMU", length, ImuFrame.PAYLOAD_LENGTH)) {
+                    imuFrameReceived(imuFrame.decode(buffer, offset, length, readNanos));
+                }
+                break;
+            case MyoApplication.EMG_VALUE:
+                if (checkLength("EMG", length, EmgDecoder.PAYLOAD_LENGTH)) {
+                    emgReceived(readNanos, emgDecoder.decode(buffer, offset));
+                }
+                break;
+            default:        logger.warn("Data received for unknown attr handle"+atthandle);
+        }
+    }
+
+    private boolean checkLength(String kind, int length, int minimum) {
+        if (length < minimum) {
+            logger.warn(String.format("Short %s packet of %d bytes on connection %d", kind, length, connection));
+            return false;
+        }
+        return true;
+    }
+
+    private void emgDataReceived(long readNanos, byte[] emgData, int length) {
+        if (checkLength("EMG", length, EmgDecoder.PAYLOAD_LENGTH)) {
+            emgReceived(readNanos, emgDecoder.decode(emgData));
+        }
+    }
+
+    private void emgReceived(long timestamp, short[] channels) {
+        checkpoint(LatencyStage.DECODE, timestamp);
+        EmgSampleSink sink = emgSink;
+        if (sink != null) {
+            sink.onEmg(timestamp, channels);
+        }
+        EmgFeatureWindow window = featureWindow;
+        boolean complete = window.add(timestamp, channels);
+        checkpoint(LatencyStage.FEATURE, timestamp);
+        if (complete) {
+            classify(window, timestamp);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("EMG [{}]: {}", connection, Arrays.toString(channels));
+        }
+    }
+
+    private void classify(EmgFeatureWindow window, long readNanos) {
+        RotationAligner aligning = aligner;
+        if (aligning != null) {
+            window.copyFeature(EmgFeatureWindow.MEAN_ABSOLUTE_VALUE, emgValues);
+            aligning.add(emgValues);
+            return;
+        }
+        PoseClassifier current = classifier;
+        if (current == null) {
+            return;
+        }
+        // the training data holds rectified channel magnitudes, which the window's mean absolute value matches
+        window.copyFeature(EmgFeatureWindow.MEAN_ABSOLUTE_VALUE, emgValues);
+        featureSet.apply(emgValues);
+        Pose calibrating = calibrationPose;
+        if (calibrating != null && current instanceof OnlinePoseClassifier) {
+            ((OnlinePoseClassifier) current).learn(emgValues, calibrating);
+            calibrationWindows++;
+        }
+        PoseStateMachine poses = poseStateMachine;
+        boolean changed = poses.update(window.getTimestamp(), current.classify(emgValues));
+        checkpoint(LatencyStage.CLASSIFY, readNanos);
+        if (changed) {
+            poseChanged(window, poses);
+            checkpoint(LatencyStage.CALLBACK, readNanos);
+        }
+    }
+
+    private void poseChanged(EmgFeatureWindow window, PoseStateMachine poses) {
+        Pose pose = poses.getCurrent();
+        logger.info("Pose: {} -> {} [{}]", poses.getPrevious(), pose, connection);
+        PoseTransitionListener listener = poseTransitionListener;
+        if (listener != null) {
+            listener.onPoseTransition(window.getTimestamp(), poses.getPrevious(), pose);
+        }
+        Consumer<Pose> action = poseAction;
+        if (action != null && pose.isKnownPose()) {
+            action.accept(pose);
+        }
+    }
+
+    private void imuDataReceived(long readNanos, byte[] imuData, int length) {
+        if (checkLength("IMU", length, ImuFrame.PAYLOAD_LENGTH)) {
+            imuFrameReceived(imuFrame.decode(imuData, length, readNanos));
+        }
+    }
+
+    private void imuFrameReceived(ImuFrame imuFrame) {
+        checkpoint(LatencyStage.DECODE, imuFrame.getTimestamp());
+        ImuFrameListener listener = imuListener;
+        if (listener != null) {
+            listener.onImu(imuFrame);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(imuFrame.toString());
+        }
+    }
+
+    private void checkpoint(LatencyStage stage, long readNanos) {
+        ConnectionLatency timing = latency;
+        if (timing != null) {
+            timing.record(stage, readNanos, System.nanoTime());
+        }
+    }
+
+    private void firmwareInfoReceived(byte[] value) {
+        firmwareInfoReceived(value[0], value[1], value[2], value[3]);
+    }
+
+    private void firmwareInfoReceived(byte major, byte minor, byte patch, byte hardware) {
+        Consumer<String> action = firmwareAction;
+        if (action != null) {
+            String ver = String.format("%d.%d.%d.%d", (int) major, (int) minor, (int) patch, (int) hardware);
+            action.accept(ver);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MyoSession[%d %s]", connection, address);
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.weaselworks.myo.driver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks the sessions of every armband connected through one BLED112. BGAPI connection
+ * handles are a single byte, so sessions live in an array indexed by handle and routing a
+ * notification to its session is a plain array load.
+ */
+public class MyoSessionManager {
+
+    public static final int MAX_CONNECTION_HANDLES = 256;
+
+    private final AtomicReferenceArray<MyoSession> sessions = new AtomicReferenceArray<>(MAX_CONNECTION_HANDLES);
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Registers the session under its connection handle, replacing any stale session that
+     * the dongle never reported as disconnected.
+     */
+    public MyoSession open(MyoSession session) {
+        MyoSession previous = sessions.getAndSet(checkHandle(session.getConnection()), session);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    public MyoSession get(int connection) {
+        if (connection < 0 || connection >= MAX_CONNECTION_HANDLES) {
+            return null;
+        }
+        return sessions.get(connection);
+    }
+
+    public MyoSession close(int connection) {
+        MyoSession previous = sessions.getAndSet(checkHandle(connection), null);
+        if (previous != null) {
+            size.decrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Routes an attribute value to the session for the connection.
+     *
+     * @return false if there is no session for the connection
+     */
+    public boolean dispatch(int connection, int atthandle, byte[] data) {
+        return dispatch(connection, atthandle, data, data.length);
+    }
+
+    public boolean dispatch(int connection, int atthandle, byte[] data, int length) {
+        return dispatch(System.nanoTime(), connection, atthandle, data, length);
+    }
+
+    /**
+     * @param readNanos when the value was read from the dongle, as from {@link System#nanoTime()}
+     */
+    public boolean dispatch(long readNanos, int connection, int atthandle, byte[] data, int length) {
+        MyoSession session = get(connection);
+        if (session == null) {
+            return false;
+        }
+        session.attributeValue(readNanos, atthandle, data, length);
+        return true;
+    }
+
+    /**
+     * Routes length bytes of the buffer starting at offset to the session for the connection.
+     *
+     * @return false if there is no session for the connection
+     */
+    public boolean dispatch(int connection, int atthandle, ByteBuffer buffer, int offset, int length) {
+        return dispatch(System.nanoTime(), connection, atthandle, buffer, offset, length);
+    }
+
+    public boolean dispatch(long readNanos, int connection, int atthandle, ByteBuffer buffer, int offset, int length) {
+        MyoSession session = get(connection);
+        if (session == null) {
+            return false;
+        }
+        session.attributeValue(readNanos, atthandle, buffer, offset, length);
+        return true;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public List<MyoSession> sessions() {
+        List<MyoSession> open = new ArrayList<>();
+        for (int i = 0; i < MAX_CONNECTION_HANDLES; i++) {
+            MyoSession session = sessions.get(i);
+            if (session != null) {
+                open.add(session);
+            }
+        }
+        return open;
+    }
+
+    private static int checkHandle(int connection) {
+        if (connection < 0 || connection >= MAX_CONNECTION_HANDLES) {
+            throw new IllegalArgumentException("Invalid connection handle " + connection);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.weaselworks.myo.driver;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle on the buffered sensor streams of one connection, as returned by
+ * {@link MyoApplication#subscribeMyoData(int, com.github.weaselworks.myo.driver.listener.ImuFrameListener,
+ * com.github.weaselworks.myo.driver.listener.EmgSampleSink, BackpressurePolicy, int, java.util.concurrent.Executor)}.
+ */
+public class MyoSubscription {
+
+    private final MyoSession session;
+    private final ImuStream imu;
+    private final EmgStream emg;
+    private final CompletableFuture<Boolean> subscribed;
+
+    MyoSubscription(MyoSession session, ImuStream imu, EmgStream emg, CompletableFuture<Boolean> subscribed) {
+        this.session = session;
+        this.imu = imu;
+        this.emg = emg;
+        this.subscribed = subscribed;
+    }
+
+    /**
+     * @return completes once the armband has been told to stream
+     */
+    public CompletableFuture<Boolean> whenSubscribed() {
+        return subscribed;
+    }
+
+    /**
+     * @return the IMU stream with its drop counters, null if no IMU listener was given
+     */
+    public ImuStream getImu() {
+        return imu;
+    }
+
+    /**
+     * @return the EMG stream with its drop counters, null if no EMG sink was given
+     */
+    public EmgStream getEmg() {
+        return emg;
+    }
+
+    public int getConnection() {
+        return session == null ? -1 : session.getConnection();
+    }
+
+    /**
+     * Detaches both streams from the session and discards anything still buffered.
+     */
+    public void cancel() {
+        if (imu != null) {
+            if (session != null) {
+                session.setImuListener(null);
+            }
+            imu.cancel();
+        }
+        if (emg != null) {
+            if (session != null) {
+                session.setEmgSink(null);
+            }
+            emg.cancel();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.github.weaselworks.myo.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded buffer of fixed width sensor samples between the decoding thread and a consumer
+ * running on an {@link Executor}. Samples are copied into a pre-allocated array, a full buffer
+ * is handled by the {@link BackpressurePolicy}, and at most one drain task is queued on the
+ * executor at any time, so memory stays bounded however slow the consumer is.
+ */
+public abstract class SampleStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(SampleStream.class);
+
+    private final BackpressurePolicy policy;
+    private final Executor executor;
+    private final int width;
+    private final int capacity;
+    private final short[] values;
+    private final long[] timestamps;
+    private final short[] delivery;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+    private long head = 0;
+    private long tail = 0;
+    private volatile boolean cancelled = false;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong droppedOldest = new AtomicLong();
+    private final AtomicLong droppedNewest = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    protected SampleStream(int width, BackpressurePolicy policy, int capacity, Executor executor) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        if (policy == null || executor == null) throw new IllegalArgumentException("Policy and executor are required");
+        this.policy = policy;
+        this.executor = executor;
+        this.width = width;
+        this.capacity = policy == BackpressurePolicy.CONFLATE_LATEST ? 1 : capacity;
+        this.values = new short[this.capacity * width];
+        this.timestamps = new long[this.capacity];
+        this.delivery = new short[width];
+    }
+
+    /**
+     * Hands one buffered sample to the consumer, on the executor's thread. The array is reused.
+     */
+    protected abstract void deliver(long timestamp, short[] sample);
+
+    protected void offer(long timestamp, short[] sample) {
+        if (cancelled) {
+            return;
+        }
+        offered.incrementAndGet();
+        lock.lock();
+        try {
+            if (tail - head == capacity) {
+                switch (policy) {
+                    case DROP_NEWEST:
+                        droppedNewest.incrementAndGet();
+                        return;
+                    case DROP_OLDEST:
+                        droppedOldest.incrementAndGet();
+                        head++;
+                        break;
+                    case CONFLATE_LATEST:
+                        conflated.incrementAndGet();
+                        head++;
+                        break;
+                    case BLOCK:
+                        long start = System.nanoTime();
+                        while (tail - head == capacity && !cancelled) {
+                            notFull.awaitUninterruptibly();
+                        }
+                        blockedNanos.addAndGet(System.nanoTime() - start);
+                        if (cancelled) {
+                            return;
+                        }
+                        break;
+                }
+            }
+            int slot = (int) (tail % capacity);
+            System.arraycopy(sample, 0, values, slot * width, width);
+            timestamps[slot] = timestamp;
+            tail++;
+        } finally {
+            lock.unlock();
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(drainTask);
+        }
+    }
+
+    /**
+     * Delivers at most one buffer's worth of samples, then queues itself again if more arrived
+     * meanwhile, so a producer that keeps up with delivery can't hold the executor's thread,
+     * e.g. the FX application thread, forever.
+     */
+    private void drain() {
+        for (int batch = 0; ; batch++) {
+            long timestamp;
+            lock.lock();
+            try {
+                if (tail == head || cancelled) {
+                    // cleared under the lock, so any later offer is guaranteed to schedule a new drain
+                    drainScheduled.set(false);
+                    return;
+                }
+                if (batch == capacity) {
+                    break;
+                }
+                int slot = (int) (head % capacity);
+                System.arraycopy(values, slot * width, delivery, 0, width);
+                timestamp = timestamps[slot];
+                head++;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                deliver(timestamp, delivery);
+                delivered.incrementAndGet();
+            } catch (RuntimeException e) {
+                logger.error("Sensor consumer failed", e);
+            }
+        }
+        // still scheduled, so offers in the meantime don't queue a second drain
+        executor.execute(drainTask);
+    }
+
+    /**
+     * Stops delivery, drops whatever is buffered and releases a blocked producer.
+     */
+    public void cancel() {
+        cancelled = true;
+        lock.lock();
+        try {
+            head = tail;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBuffered() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getOffered() {
+        return offered.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getDroppedOldest() {
+        return droppedOldest.get();
+    }
+
+    public long getDroppedNewest() {
+        return droppedNewest.get();
+    }
+
+    public long getConflated() {
+        return conflated.get();
+    }
+
+    public long getBlockedNanos() {
+        return blockedNanos.get();
+    }
+
+    /**
+     * @return every sample lost to the policy, whichever policy it is
+     */
+    public long getDropped() {
+        return droppedOldest.get() + droppedNewest.get() + conflated.get();
+    }
+}
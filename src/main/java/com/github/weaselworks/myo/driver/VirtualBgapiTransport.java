@@ -0,0 +1,208 @@
+package com.github.weaselworks.myo.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thingml.bglib.BGAPITransport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+
+/**
+ * A {@link BGAPITransport} with no dongle behind it. Subclasses produce the dongle's events on
+ * the transport's own thread and answer the commands bglib sends; bglib parses both exactly as
+ * it would serial data, so everything above the transport runs unchanged. Every byte reaching
+ * bglib is written by the transport thread, which stays alive until {@link #stop()}.
+ *
+ * Attribute writes are acknowledged and completed straight away, so subscriptions succeed.
+ *
+ * bglib's transport reads the event pipe on a thread of its own that calls its {@code run()},
+ * so the producing thread runs a separate method and {@code run()} is left alone.
+ */
+public abstract class VirtualBgapiTransport extends BGAPITransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualBgapiTransport.class);
+
+    private static final int PIPE_SIZE = 65536;
+
+    private final String name;
+    private final PipedOutputStream events;
+    private final BlockingQueue<byte[]> responses;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean finished;
+
+    protected VirtualBgapiTransport(String name) throws IOException {
+        this(name, new PipedOutputStream(), new CommandStream(), new LinkedBlockingQueue<>());
+    }
+
+    private VirtualBgapiTransport(String name, PipedOutputStream events, CommandStream commands, BlockingQueue<byte[]> responses) throws IOException {
+        super(readerOf(events), commands);
+        this.name = name;
+        this.events = events;
+        this.responses = responses;
+        commands.transport = this;
+    }
+
+    // bglib starts reading as soon as its transport is constructed, so the pipe must be connected before
+    private static PipedInputStream readerOf(PipedOutputStream events) throws IOException {
+        return new PipedInputStream(events, PIPE_SIZE);
+    }
+
+    /**
+     * Starts producing events. Add the listeners first, the events aren't buffered for later.
+     */
+    public synchronized void start() {
+        if (thread != null) throw new IllegalStateException(name + " is already started");
+        running = true;
+        thread = new Thread(this::pump, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread running;
+        synchronized (this) {
+            this.running = false;
+            running = thread;
+        }
+        if (running != null) {
+            running.interrupt();
+            try {
+                running.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            events.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close " + name, e);
+        }
+        super.stop();
+    }
+
+    private void pump() {
+        try {
+            produce();
+        } catch (InterruptedException e) {
+            return;
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                logger.error(name + " failed", e);
+            }
+        } finally {
+            finished = true;
+        }
+        // keep the pipe's writer alive and answering commands until stopped
+        try {
+            while (running) {
+                flushResponses(Long.MAX_VALUE);
+            }
+        } catch (InterruptedException | IOException e) {
+            logger.debug("{} stopped", name);
+        }
+    }
+
+    /**
+     * @return true once {@link #produce()} has returned
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Produces the dongle's events until there are no more or the transport is stopped, see
+     * {@link #isRunning()}. Runs on the transport thread.
+     */
+    protected abstract void produce() throws IOException, InterruptedException;
+
+    /**
+     * Passes a packet to bglib, after any responses waiting to go out. Transport thread only.
+     */
+    protected void emit(byte[] packet) throws IOException {
+        byte[] response;
+        while ((response = responses.poll()) != null) {
+            events.write(response);
+        }
+        events.write(packet);
+    }
+
+    /**
+     * Waits until {@link System#nanoTime()} reaches the deadline, answering commands meanwhile.
+     * Transport thread only.
+     */
+    protected void waitUntil(long deadline) throws InterruptedException, IOException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            flushResponses(remaining);
+        }
+    }
+
+    /**
+     * Queues a response, it goes out from the transport thread before the next event. Any thread.
+     */
+    protected void respond(byte[] packet) {
+        responses.add(packet);
+    }
+
+    /**
+     * Called for every command bglib sends, on the thread sending it.
+     *
+     * @param payload the command's payload, little endian, only valid during the call
+     */
+    protected void onCommand(int classId, int commandId, ByteBuffer payload) {
+        if (classId == CLASS_ATTCLIENT && commandId == ATTCLIENT_ATTRIBUTE_WRITE) {
+            int connection = uint8(payload, 0);
+            respond(BgapiPackets.attributeWriteResponse(connection, 0));
+            respond(BgapiPackets.procedureCompleted(connection, 0, uint16(payload, 1)));
+        }
+    }
+
+    private void flushResponses(long timeoutNanos) throws InterruptedException, IOException {
+        byte[] response = responses.poll(Math.min(timeoutNanos, TimeUnit.MILLISECONDS.toNanos(100)), TimeUnit.NANOSECONDS);
+        if (response != null) {
+            events.write(response);
+        }
+    }
+
+    /**
+     * Frames the bytes bglib writes into commands.
+     */
+    private static class CommandStream extends OutputStream {
+
+        private final ByteBuffer packet = ByteBuffer.allocate(MAX_PACKET_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        private volatile VirtualBgapiTransport transport;
+
+        @Override
+        public synchronized void write(int b) {
+            packet.put((byte) b);
+            if (packet.position() < HEADER_LENGTH) {
+                return;
+            }
+            int length = payloadLength(packet.get(0), packet.get(1));
+            if (packet.position() < HEADER_LENGTH + length) {
+                return;
+            }
+            ByteBuffer payload = ByteBuffer.wrap(packet.array(), HEADER_LENGTH, length).slice().order(ByteOrder.LITTLE_ENDIAN);
+            VirtualBgapiTransport target = transport;
+            if (target != null) {
+                target.onCommand(uint8(packet, 2), uint8(packet, 3), payload);
+            }
+            packet.clear();
+        }
+    }
+}
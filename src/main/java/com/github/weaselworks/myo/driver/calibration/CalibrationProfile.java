@@ -0,0 +1,90 @@
+package com.github.weaselworks.myo.driver.calibration;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+
+import java.util.Arrays;
+
+/**
+ * How one user wears one armband: a gain per EMG channel to even out amplitudes, how many pods
+ * the armband is rotated by relative to the position the model was trained in, and optionally
+ * the user's own training data with the classifier to build from it.
+ */
+public class CalibrationProfile {
+
+    private final String address;
+    private final String user;
+    private final float[] gains;
+    private final int rotation;
+    private final String classifier;
+    private final GestureDataset model;
+
+    /**
+     * @param user       null for the profile shared by everyone using the armband
+     * @param gains      one per channel of the calibrated sample, applied after the rotation
+     * @param rotation   pods to rotate by, channel i of the calibrated sample is pod (i + rotation) mod 8
+     * @param classifier provider name to train the model with, see {@code PoseClassifiers}
+     * @param model      the user's training data, null to use the default classifier
+     */
+    public CalibrationProfile(String address, String user, float[] gains, int rotation, String classifier, GestureDataset model) {
+        if (address == null) throw new IllegalArgumentException("Cannot create a profile without an address");
+        if (gains.length != EmgDecoder.CHANNELS) throw new IllegalArgumentException("Expected " + EmgDecoder.CHANNELS + " gains, got " + gains.length);
+        if (model != null && classifier == null) throw new IllegalArgumentException("A model needs a classifier to train");
+        this.address = address;
+        this.user = user;
+        this.gains = gains.clone();
+        this.rotation = Math.floorMod(rotation, EmgDecoder.CHANNELS);
+        this.classifier = classifier;
+        this.model = model;
+    }
+
+    /**
+     * @return a profile with unit gains, no rotation and no model
+     */
+    public static CalibrationProfile uncalibrated(String address, String user) {
+        float[] gains = new float[EmgDecoder.CHANNELS];
+        Arrays.fill(gains, 1f);
+        return new CalibrationProfile(address, user, gains, 0, null, null);
+    }
+
+    /**
+     * @return the key of the profile: address, or address/user for a personal profile
+     */
+    public static String key(String address, String user) {
+        return user == null ? address.toLowerCase() : address.toLowerCase() + "/" + user;
+    }
+
+    public String getKey() {
+        return key(address, user);
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public float[] getGains() {
+        return gains.clone();
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public String getClassifier() {
+        return classifier;
+    }
+
+    public GestureDataset getModel() {
+        return model;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CalibrationProfile[%s gains=%s rotation=%d classifier=%s rows=%d]", getKey(),
+                Arrays.toString(gains), rotation, classifier, model == null ? 0 : model.size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.weaselworks.myo.driver.calibration;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import com.github.weaselworks.myo.driver.classifier.GestureModelFile;
+import com.github.weaselworks.myo.driver.classifier.KnnProvider;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Keeps calibration profiles on disk, one directory per profile holding {@code profile.properties}
+ * and, if the profile has one, the training data as a {@link GestureModelFile} named
+ * {@code gestures.model}.
+ */
+public class CalibrationStore {
+
+    /**
+     * System property overriding the default directory, {@code ~/.myo/profiles}.
+     */
+    public static final String DIRECTORY_PROPERTY = "myo.profile.dir";
+
+    private static final String PROFILE_FILE = "profile.properties";
+    private static final String MODEL_FILE = "gestures.model";
+
+    private final Path directory;
+
+    public CalibrationStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public static CalibrationStore openDefault() {
+        String configured = System.getProperty(DIRECTORY_PROPERTY);
+        return new CalibrationStore(configured != null ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".myo", "profiles"));
+    }
+
+    /**
+     * @return the stored profile, or null if there is none
+     */
+    public CalibrationProfile load(String address, String user) throws IOException {
+        Path profileDirectory = directoryFor(address, user);
+        Path file = profileDirectory.resolve(PROFILE_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String[] values = properties.getProperty("gains", "").split(",");
+        if (values.length != EmgDecoder.CHANNELS) {
+            throw new IOException(String.format("%s: expected %d gains, got %d", file, EmgDecoder.CHANNELS, values.length));
+        }
+        float[] gains = new float[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                gains[i] = Float.parseFloat(values[i].trim());
+            }
+            int rotation = Integer.parseInt(properties.getProperty("rotation", "0").trim());
+            Path modelFile = profileDirectory.resolve(MODEL_FILE);
+            GestureDataset model = Files.exists(modelFile) ? GestureModelFile.map(modelFile).getDataset() : null;
+            String classifier = properties.getProperty("classifier", model == null ? null : KnnProvider.NAME);
+            return new CalibrationProfile(address, user, gains, rotation, classifier, model);
+        } catch (NumberFormatException e) {
+            throw new IOException(file + " is corrupt", e);
+        }
+    }
+
+    public void save(CalibrationProfile profile) throws IOException {
+        Path profileDirectory = directoryFor(profile.getAddress(), profile.getUser());
+        Files.createDirectories(profileDirectory);
+        Properties properties = new Properties();
+        properties.setProperty("address", profile.getAddress());
+        if (profile.getUser() != null) {
+            properties.setProperty("user", profile.getUser());
+        }
+        StringBuilder gains = new StringBuilder();
+        for (float gain : profile.getGains()) {
+            if (gains.length() > 0) gains.append(',');
+            gains.append(gain);
+        }
+        properties.setProperty("gains", gains.toString());
+        properties.setProperty("rotation", String.valueOf(profile.getRotation()));
+        Path modelFile = profileDirectory.resolve(MODEL_FILE);
+        if (profile.getModel() != null) {
+            properties.setProperty("classifier", profile.getClassifier());
+            GestureModelFile.write(modelFile, profile.getModel(), KnnProvider.NAME.equals(profile.getClassifier()));
+        } else {
+            Files.deleteIfExists(modelFile);
+        }
+        try (Writer writer = Files.newBufferedWriter(profileDirectory.resolve(PROFILE_FILE), StandardCharsets.UTF_8)) {
+            properties.store(writer, "Myo calibration profile");
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path directoryFor(String address, String user) {
+        String name = address.toLowerCase().replace(':', '-');
+        if (user != null) {
+            name += "_" + user.replaceAll("[^A-Za-z0-9._-]", "_");
+        }
+        return directory.resolve(name);
+    }
+}
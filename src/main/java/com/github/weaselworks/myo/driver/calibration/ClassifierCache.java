@@ -0,0 +1,91 @@
+package com.github.weaselworks.myo.driver.calibration;
+
+import com.github.weaselworks.myo.driver.classifier.PoseClassifier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Least recently used cache of trained classifiers by profile key, so an armband reconnecting
+ * gets its classifier back instead of retraining it. Classifiers are cached as futures while
+ * they train, so a key is never trained twice at the same time and training holds no lock.
+ */
+public class ClassifierCache {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final Map<String, CompletableFuture<PoseClassifier>> classifiers;
+
+    public ClassifierCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ClassifierCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        classifiers = new LinkedHashMap<String, CompletableFuture<PoseClassifier>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<PoseClassifier>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the cached classifier, training it with the function on the calling thread on a miss
+     */
+    public PoseClassifier get(String key, Function<String, PoseClassifier> train) {
+        return get(key, train, Runnable::run).join();
+    }
+
+    /**
+     * @return the cached classifier, completing once the function has trained it on the executor
+     *         on a miss. A failed training, including an error or the executor rejecting it, is
+     *         not cached, the next call tries again
+     */
+    public CompletableFuture<PoseClassifier> get(String key, Function<String, PoseClassifier> train, Executor executor) {
+        CompletableFuture<PoseClassifier> classifier;
+        synchronized (this) {
+            classifier = classifiers.get(key);
+            if (classifier != null) {
+                return classifier;
+            }
+            classifier = new CompletableFuture<>();
+            classifiers.put(key, classifier);
+        }
+        CompletableFuture<PoseClassifier> training = classifier;
+        try {
+            executor.execute(() -> {
+                try {
+                    training.complete(train.apply(key));
+                } catch (Throwable e) {
+                    fail(key, training, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            fail(key, training, e);
+        }
+        return training;
+    }
+
+    private void fail(String key, CompletableFuture<PoseClassifier> training, Throwable cause) {
+        synchronized (this) {
+            classifiers.remove(key, training);
+        }
+        training.completeExceptionally(cause);
+    }
+
+    public synchronized void put(String key, PoseClassifier classifier) {
+        classifiers.put(key, CompletableFuture.completedFuture(classifier));
+    }
+
+    public synchronized void invalidate(String key) {
+        classifiers.remove(key);
+    }
+
+    public synchronized int size() {
+        return classifiers.size();
+    }
+}
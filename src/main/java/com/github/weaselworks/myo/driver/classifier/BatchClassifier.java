@@ -0,0 +1,186 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.MyoApplication;
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies whole recordings instead of one sample at a time. Windows are placed exactly where
+ * a live session's {@link EmgFeatureWindow} completes them and classified on the same mean
+ * absolute values and {@link FeatureSet}, so a recording scores as it would have live. The windows are split into
+ * chunks classified in parallel as fork join tasks; each chunk reads the window - 1 samples
+ * before its first window again rather than waiting for the chunk before it. Within a chunk
+ * the features are computed a channel at a time over primitive arrays.
+ *
+ * <pre>
+ * BatchClassifier [--window 50] [--hop 10] [--raw] recording.csv...
+ * </pre>
+ *
+ * The command line uses the classifier and feature set configured for {@link MyoApplication},
+ * see {@link MyoApplication#loadDefaultClassifier()}, and prints the debounced poses of each
+ * recording unless --raw is given.
+ */
+public class BatchClassifier {
+
+    public static final int DEFAULT_CHUNK = 2048;
+
+    private final PoseClassifier classifier;
+    private final FeatureSet featureSet;
+    private final int window;
+    private final int hop;
+    private final int chunk;
+
+    public BatchClassifier(PoseClassifier classifier) {
+        this(classifier, EmgFeatureWindow.DEFAULT_WINDOW, EmgFeatureWindow.DEFAULT_HOP, DEFAULT_CHUNK);
+    }
+
+    public BatchClassifier(PoseClassifier classifier, int window, int hop, int chunk) {
+        this(classifier, FeatureSet.AMPLITUDE, window, hop, chunk);
+    }
+
+    /**
+     * @param featureSet what the classifier was trained on, applied to every window's mean absolute values
+     * @param window     samples per window
+     * @param hop        samples between windows, at most the window length
+     * @param chunk      windows classified by one task
+     */
+    public BatchClassifier(PoseClassifier classifier, FeatureSet featureSet, int window, int hop, int chunk) {
+        if (window < 1) throw new IllegalArgumentException("Window must be at least 1, was " + window);
+        if (hop < 1 || hop > window) throw new IllegalArgumentException("Hop must be between 1 and the window length, was " + hop);
+        if (chunk < 1) throw new IllegalArgumentException("Chunk must be at least 1, was " + chunk);
+        this.classifier = classifier;
+        this.featureSet = featureSet;
+        this.window = window;
+        this.hop = hop;
+        this.chunk = chunk;
+    }
+
+    public PoseTimeline classify(EmgRecording recording) {
+        return classify(recording, ForkJoinPool.commonPool());
+    }
+
+    public PoseTimeline classify(EmgRecording recording, ForkJoinPool pool) {
+        int windows = windows(recording.size());
+        long[] timestamps = new long[windows];
+        Pose[] poses = new Pose[windows];
+        if (windows > 0) {
+            pool.invoke(new ChunkTask(recording, timestamps, poses, 0, windows));
+        }
+        return new PoseTimeline(timestamps, poses);
+    }
+
+    /**
+     * @return the number of windows a live session completes over that many samples
+     */
+    public int windows(int samples) {
+        // a session's first window completes as soon as the window fills, then every hop
+        return samples < window ? 0 : (samples - window) / hop + 1;
+    }
+
+    // index of the last sample of the window
+    private int end(int index) {
+        return window - 1 + index * hop;
+    }
+
+    private void classifyChunk(EmgRecording recording, long[] timestamps, Pose[] poses, int from, int to) {
+        int channels = recording.getChannelCount();
+        int start = end(from) - window + 1;
+        int span = end(to - 1) - start + 1;
+        int count = to - from;
+        // prefix sums of the rectified samples, the sum over a window is then one subtraction
+        long[] prefix = new long[span + 1];
+        float[][] features = new float[count][channels];
+        for (int ch = 0; ch < channels; ch++) {
+            short[] samples = recording.getChannel(ch);
+            long sum = 0;
+            for (int i = 0; i < span; i++) {
+                sum += Math.abs(samples[start + i]);
+                prefix[i + 1] = sum;
+            }
+            for (int w = 0; w < count; w++) {
+                int last = window - 1 + w * hop;
+                features[w][ch] = (float) (prefix[last + 1] - prefix[last + 1 - window]) / window;
+            }
+        }
+        for (int w = 0; w < count; w++) {
+            timestamps[from + w] = recording.getTimestamp(end(from + w));
+            featureSet.apply(features[w]);
+            poses[from + w] = classifier.classify(features[w]);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int window = EmgFeatureWindow.DEFAULT_WINDOW;
+        int hop = EmgFeatureWindow.DEFAULT_HOP;
+        boolean raw = false;
+        List<Path> recordings = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--window": window = Integer.parseInt(args[++i]); break;
+                case "--hop": hop = Integer.parseInt(args[++i]); break;
+                case "--raw": raw = true; break;
+                default: recordings.add(Paths.get(args[i]));
+            }
+        }
+        if (recordings.isEmpty()) {
+            System.err.println("Usage: BatchClassifier [--window 50] [--hop 10] [--raw] recording.csv...");
+            System.exit(1);
+        }
+
+        BatchClassifier batch = new BatchClassifier(MyoApplication.loadDefaultClassifier(), MyoApplication.defaultFeatureSet(),
+                window, hop, DEFAULT_CHUNK);
+        for (Path path : recordings) {
+            EmgRecording recording = EmgRecording.load(path);
+            long started = System.nanoTime();
+            PoseTimeline timeline = batch.classify(recording);
+            long elapsed = System.nanoTime() - started;
+            if (!raw) {
+                timeline = timeline.debounce(PoseStateMachine.DEFAULT_VOTES, PoseStateMachine.DEFAULT_MIN_HOLD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            System.out.println(String.format("%s: %d samples, %d windows in %d ms", path, recording.size(), timeline.size(), elapsed / 1000000));
+            for (PoseTimeline.Segment segment : timeline.segments()) {
+                if (segment.getPose().isKnownPose()) {
+                    System.out.println("  " + segment);
+                }
+            }
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final EmgRecording recording;
+        private final long[] timestamps;
+        private final Pose[] poses;
+        private final int from;
+        private final int to;
+
+        ChunkTask(EmgRecording recording, long[] timestamps, Pose[] poses, int from, int to) {
+            this.recording = recording;
+            this.timestamps = timestamps;
+            this.poses = poses;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                classifyChunk(recording, timestamps, poses, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(recording, timestamps, poses, from, middle),
+                    new ChunkTask(recording, timestamps, poses, middle, to));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+/**
+ * Counts of actual against predicted pose. Accuracy alone flatters a classifier on the bundled
+ * data, where most rows are the rest position, so the balanced accuracy, the mean recall over
+ * the poses, is reported too.
+ */
+public class ConfusionMatrix {
+
+    private final long[][] counts;
+
+    public ConfusionMatrix() {
+        int poses = Pose.values().length;
+        counts = new long[poses][poses];
+    }
+
+    public void add(Pose actual, Pose predicted) {
+        counts[actual.ordinal()][(predicted == null ? Pose.UNKNOWN : predicted).ordinal()]++;
+    }
+
+    public void addAll(ConfusionMatrix other) {
+        for (int a = 0; a < counts.length; a++) {
+            for (int p = 0; p < counts.length; p++) {
+                counts[a][p] += other.counts[a][p];
+            }
+        }
+    }
+
+    public long get(Pose actual, Pose predicted) {
+        return counts[actual.ordinal()][predicted.ordinal()];
+    }
+
+    public long total() {
+        long total = 0;
+        for (long[] row : counts) {
+            for (long count : row) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    public double accuracy() {
+        long correct = 0;
+        for (int i = 0; i < counts.length; i++) {
+            correct += counts[i][i];
+        }
+        long total = total();
+        return total == 0 ? 0 : (double) correct / total;
+    }
+
+    /**
+     * @return the fraction of the rows of the pose that were classified as it, NaN if there were none
+     */
+    public double recall(Pose pose) {
+        long[] row = counts[pose.ordinal()];
+        long total = 0;
+        for (long count : row) {
+            total += count;
+        }
+        return total == 0 ? Double.NaN : (double) row[pose.ordinal()] / total;
+    }
+
+    /**
+     * @return the fraction of the rows classified as the pose that were it, NaN if none were
+     */
+    public double precision(Pose pose) {
+        long total = 0;
+        for (long[] row : counts) {
+            total += row[pose.ordinal()];
+        }
+        return total == 0 ? Double.NaN : (double) counts[pose.ordinal()][pose.ordinal()] / total;
+    }
+
+    /**
+     * @return the mean recall over the poses that occur
+     */
+    public double balancedAccuracy() {
+        double sum = 0;
+        int poses = 0;
+        for (Pose pose : Pose.values()) {
+            double recall = recall(pose);
+            if (!Double.isNaN(recall)) {
+                sum += recall;
+                poses++;
+            }
+        }
+        return poses == 0 ? 0 : sum / poses;
+    }
+
+    /**
+     * @return the matrix as a table, actual poses down and predicted across, skipping poses that never occur
+     */
+    public String format() {
+        StringBuilder table = new StringBuilder(String.format("%-10s", "actual"));
+        for (Pose predicted : Pose.values()) {
+            if (occurs(predicted)) {
+                table.append(String.format("%10s", predicted.getName()));
+            }
+        }
+        table.append(String.format("%10s%n", "recall"));
+        for (Pose actual : Pose.values()) {
+            if (!occurs(actual)) {
+                continue;
+            }
+            table.append(String.format("%-10s", actual.getName()));
+            for (Pose predicted : Pose.values()) {
+                if (occurs(predicted)) {
+                    table.append(String.format("%10d", get(actual, predicted)));
+                }
+            }
+            table.append(String.format("%10.3f%n", recall(actual)));
+        }
+        return table.toString();
+    }
+
+    private boolean occurs(Pose pose) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[pose.ordinal()][i] > 0 || counts[i][pose.ordinal()] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Stratified k-fold cross validation. Every pose is split into folds of consecutive rows, so
+ * each fold holds the same share of every pose and windowed rows, which overlap their
+ * neighbours, rarely leak between training and test data. The folds are trained and tested in
+ * parallel as fork join tasks, in the common pool or in the pool of the calling task.
+ */
+public class CrossValidation {
+
+    public static final int DEFAULT_FOLDS = 5;
+
+    private final GestureDataset dataset;
+    private final int folds;
+    private final int[] foldOfRow;
+
+    public CrossValidation(GestureDataset dataset, int folds) {
+        if (folds < 2) throw new IllegalArgumentException("Need at least two folds, was " + folds);
+        if (dataset.size() < folds) throw new IllegalArgumentException("Fewer rows than folds");
+        this.dataset = dataset;
+        this.folds = folds;
+        this.foldOfRow = stratify(dataset, folds);
+    }
+
+    /**
+     * Feeds the rows of every pose through an {@link EmgFeatureWindow}, restarting whenever the
+     * pose changes, and keeps the mean absolute values of each complete window with the feature
+     * set applied. This is what a live session does to its samples before classifying them.
+     * Rows are rounded to whole amplitudes on the way in, like the samples of an armband.
+     *
+     * @param hop rows between windows, at most the window length
+     */
+    public static GestureDataset prepare(GestureDataset dataset, int window, int hop, FeatureSet features) {
+        int size = dataset.size();
+        int dimensions = dataset.getDimensions();
+        EmgFeatureWindow windows = new EmgFeatureWindow(dimensions, window, hop, 0);
+        short[] sample = new short[dimensions];
+        float[][] rows = new float[size][];
+        int[] labels = new int[size];
+        int count = 0;
+        for (int r = 0; r < size; r++) {
+            int label = dataset.getLabel(r);
+            if (r > 0 && label != dataset.getLabel(r - 1)) {
+                windows.reset();
+            }
+            for (int d = 0; d < dimensions; d++) {
+                float value = Math.round(dataset.get(r, d));
+                sample[d] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            }
+            if (windows.add(r, sample)) {
+                float[] row = new float[dimensions];
+                windows.copyFeature(EmgFeatureWindow.MEAN_ABSOLUTE_VALUE, row);
+                features.apply(row);
+                rows[count] = row;
+                labels[count++] = label;
+            }
+        }
+        float[] values = new float[count * dimensions];
+        for (int r = 0; r < count; r++) {
+            for (int d = 0; d < dimensions; d++) {
+                values[d * count + r] = rows[r][d];
+            }
+        }
+        return new GestureDataset(dimensions, FloatBuffer.wrap(values), Arrays.copyOf(labels, count), dataset.getClasses());
+    }
+
+    /**
+     * Trains on all but one fold and tests on the one left out, for every fold in parallel.
+     *
+     * @param trainer builds a classifier from the training rows of a fold
+     */
+    public Result evaluate(Function<GestureDataset, PoseClassifier> trainer) {
+        List<FoldTask> tasks = new ArrayList<>();
+        for (int fold = 0; fold < folds; fold++) {
+            tasks.add(new FoldTask(fold, trainer));
+        }
+        Result total = new Result();
+        for (FoldTask task : ForkJoinTask.invokeAll(tasks)) {
+            total.add(task.join());
+        }
+        return total;
+    }
+
+    public int getFolds() {
+        return folds;
+    }
+
+    /**
+     * @return the fold the row is tested in
+     */
+    public int foldOf(int row) {
+        return foldOfRow[row];
+    }
+
+    /**
+     * @return the rows in the fold, or all the others
+     */
+    public GestureDataset subset(int fold, boolean inFold) {
+        int size = dataset.size();
+        int rows = 0;
+        for (int r = 0; r < size; r++) {
+            if ((foldOfRow[r] == fold) == inFold) rows++;
+        }
+        int dimensions = dataset.getDimensions();
+        float[] values = new float[rows * dimensions];
+        int[] labels = new int[rows];
+        int i = 0;
+        for (int r = 0; r < size; r++) {
+            if ((foldOfRow[r] == fold) != inFold) {
+                continue;
+            }
+            for (int d = 0; d < dimensions; d++) {
+                values[d * rows + i] = dataset.get(r, d);
+            }
+            labels[i++] = dataset.getLabel(r);
+        }
+        return new GestureDataset(dimensions, FloatBuffer.wrap(values), labels, dataset.getClasses());
+    }
+
+    private static int[] stratify(GestureDataset dataset, int folds) {
+        int[] perLabel = new int[dataset.getClasses().length];
+        for (int r = 0; r < dataset.size(); r++) {
+            perLabel[dataset.getLabel(r)]++;
+        }
+        int[] seen = new int[perLabel.length];
+        int[] foldOfRow = new int[dataset.size()];
+        for (int r = 0; r < dataset.size(); r++) {
+            int label = dataset.getLabel(r);
+            foldOfRow[r] = (int) ((long) seen[label]++ * folds / perLabel[label]);
+        }
+        return foldOfRow;
+    }
+
+    private class FoldTask extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fold;
+        private final Function<GestureDataset, PoseClassifier> trainer;
+
+        FoldTask(int fold, Function<GestureDataset, PoseClassifier> trainer) {
+            this.fold = fold;
+            this.trainer = trainer;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = new Result();
+            long started = System.nanoTime();
+            PoseClassifier classifier = trainer.apply(subset(fold, false));
+            result.trainingNanos = System.nanoTime() - started;
+            GestureDataset test = subset(fold, true);
+            float[] row = new float[test.getDimensions()];
+            for (int r = 0; r < test.size(); r++) {
+                test.copyRow(r, row);
+                long before = System.nanoTime();
+                Pose predicted = classifier.classify(row);
+                result.classifyNanos += System.nanoTime() - before;
+                result.matrix.add(test.getPose(r), predicted);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The confusion matrix over every fold, with the time spent training and classifying.
+     */
+    public static class Result {
+
+        private final ConfusionMatrix matrix = new ConfusionMatrix();
+        private long trainingNanos;
+        private long classifyNanos;
+
+        void add(Result other) {
+            matrix.addAll(other.matrix);
+            trainingNanos += other.trainingNanos;
+            classifyNanos += other.classifyNanos;
+        }
+
+        public ConfusionMatrix getMatrix() {
+            return matrix;
+        }
+
+        /**
+         * @return the time spent training, summed over the folds
+         */
+        public long getTrainingNanos() {
+            return trainingNanos;
+        }
+
+        /**
+         * @return the mean time to classify one row
+         */
+        public double getLatencyNanos() {
+            long total = matrix.total();
+            return total == 0 ? 0 : (double) classifyNanos / total;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+
+/**
+ * Sliding window of EMG samples with the classic time domain features kept up to date per
+ * channel: root mean square, mean absolute value, waveform length, zero crossings and slope
+ * sign changes. Every sample adds its contribution to running sums and the sample falling out
+ * of the window takes its contribution back out, so a sample costs the same whatever the window
+ * length. The first window is complete as soon as the window has filled and then every hop
+ * samples, which is when a classifier should run.
+ *
+ * Not thread safe, a session feeds its window from the reader thread.
+ */
+public class EmgFeatureWindow {
+
+    public static final int DEFAULT_WINDOW = 50;
+    public static final int DEFAULT_HOP = 10;
+
+    public static final int RMS = 0;
+    public static final int MEAN_ABSOLUTE_VALUE = 1;
+    public static final int WAVEFORM_LENGTH = 2;
+    public static final int ZERO_CROSSINGS = 3;
+    public static final int SLOPE_SIGN_CHANGES = 4;
+    public static final int FEATURES_PER_CHANNEL = 5;
+
+    private final int channels;
+    private final int window;
+    private final int hop;
+    private final int threshold;
+
+    // per channel history, one row per channel indexed by sample number modulo window
+    private final int[][] samples;
+    private final int[][] absoluteDifferences;
+    private final boolean[][] zeroCrossings;
+    private final boolean[][] slopeSignChanges;
+
+    private final long[] sumOfSquares;
+    private final long[] sumOfAbsolutes;
+    private final long[] waveformLength;
+    private final int[] zeroCrossingCount;
+    private final int[] slopeSignChangeCount;
+
+    private final float[] features;
+    private long count;
+    private int sinceHop;
+    private long timestamp;
+
+    public EmgFeatureWindow() {
+        this(EmgDecoder.CHANNELS, DEFAULT_WINDOW, DEFAULT_HOP, 0);
+    }
+
+    /**
+     * @param window    samples per window
+     * @param hop       samples between complete windows, at most the window length
+     * @param threshold minimum step for a zero crossing or slope sign change to count, keeps
+     *                  noise around the baseline out of the counts
+     */
+    public EmgFeatureWindow(int channels, int window, int hop, int threshold) {
+        if (channels < 1) throw new IllegalArgumentException("Need at least one channel");
+        if (window < 3) throw new IllegalArgumentException("Window must hold at least three samples, was " + window);
+        if (hop < 1 || hop > window) throw new IllegalArgumentException("Hop must be between 1 and the window length, was " + hop);
+        if (threshold < 0) throw new IllegalArgumentException("Threshold cannot be negative");
+        this.channels = channels;
+        this.window = window;
+        this.hop = hop;
+        this.threshold = threshold;
+        samples = new int[channels][window];
+        absoluteDifferences = new int[channels][window];
+        zeroCrossings = new boolean[channels][window];
+        slopeSignChanges = new boolean[channels][window];
+        sumOfSquares = new long[channels];
+        sumOfAbsolutes = new long[channels];
+        waveformLength = new long[channels];
+        zeroCrossingCount = new int[channels];
+        slopeSignChangeCount = new int[channels];
+        features = new float[channels * FEATURES_PER_CHANNEL];
+    }
+
+    /**
+     * Adds one sample of every channel.
+     *
+     * @return true if this sample completed a window, the features are then up to date
+     */
+    public boolean add(long timestamp, short[] sample) {
+        int slot = (int) (count % window);
+        boolean full = count >= window;
+        for (int ch = 0; ch < channels; ch++) {
+            int[] history = samples[ch];
+            int x = sample[ch];
+            if (full) {
+                int old = history[slot];
+                sumOfSquares[ch] -= (long) old * old;
+                sumOfAbsolutes[ch] -= Math.abs(old);
+                waveformLength[ch] -= absoluteDifferences[ch][slot];
+                if (zeroCrossings[ch][slot]) zeroCrossingCount[ch]--;
+                if (slopeSignChanges[ch][slot]) slopeSignChangeCount[ch]--;
+            }
+
+            int difference = 0;
+            boolean zeroCrossing = false;
+            boolean slopeSignChange = false;
+            if (count > 0) {
+                int previous = history[(int) ((count - 1) % window)];
+                difference = Math.abs(x - previous);
+                zeroCrossing = ((previous > 0 && x < 0) || (previous < 0 && x > 0)) && difference >= threshold;
+                if (count > 1) {
+                    int beforePrevious = history[(int) ((count - 2) % window)];
+                    long slope = (long) (previous - beforePrevious) * (previous - x);
+                    slopeSignChange = slope > 0 && slope >= threshold;
+                }
+            }
+
+            history[slot] = x;
+            sumOfSquares[ch] += (long) x * x;
+            sumOfAbsolutes[ch] += Math.abs(x);
+            absoluteDifferences[ch][slot] = difference;
+            waveformLength[ch] += difference;
+            zeroCrossings[ch][slot] = zeroCrossing;
+            if (zeroCrossing) zeroCrossingCount[ch]++;
+            slopeSignChanges[ch][slot] = slopeSignChange;
+            if (slopeSignChange) slopeSignChangeCount[ch]++;
+        }
+        count++;
+        this.timestamp = timestamp;
+        if (count < window || (count > window && ++sinceHop < hop)) {
+            return false;
+        }
+        sinceHop = 0;
+        updateFeatures();
+        return true;
+    }
+
+    /**
+     * Transitions are stored with the later sample, so the oldest sample's step in from before
+     * the window and, for slope sign changes, the second oldest's are left out of the features.
+     */
+    private void updateFeatures() {
+        int oldest = (int) (count % window);
+        int secondOldest = (oldest + 1) % window;
+        for (int ch = 0; ch < channels; ch++) {
+            int base = ch * FEATURES_PER_CHANNEL;
+            features[base + RMS] = (float) Math.sqrt((double) sumOfSquares[ch] / window);
+            features[base + MEAN_ABSOLUTE_VALUE] = (float) sumOfAbsolutes[ch] / window;
+            features[base + WAVEFORM_LENGTH] = waveformLength[ch] - absoluteDifferences[ch][oldest];
+            features[base + ZERO_CROSSINGS] = zeroCrossingCount[ch] - (zeroCrossings[ch][oldest] ? 1 : 0);
+            features[base + SLOPE_SIGN_CHANGES] = slopeSignChangeCount[ch]
+                    - (slopeSignChanges[ch][oldest] ? 1 : 0) - (slopeSignChanges[ch][secondOldest] ? 1 : 0);
+        }
+    }
+
+    /**
+     * @return the features of the last complete window, {@link #FEATURES_PER_CHANNEL} per channel
+     *         in channel order. The array is reused by the next window
+     */
+    public float[] getFeatures() {
+        return features;
+    }
+
+    public float getFeature(int channel, int feature) {
+        return features[channel * FEATURES_PER_CHANNEL + feature];
+    }
+
+    /**
+     * Copies one feature of every channel, e.g. the mean absolute values as an envelope.
+     */
+    public void copyFeature(int feature, float[] values) {
+        for (int ch = 0; ch < channels; ch++) {
+            values[ch] = features[ch * FEATURES_PER_CHANNEL + feature];
+        }
+    }
+
+    /**
+     * Forgets all samples, the next window completes after another full window.
+     */
+    public void reset() {
+        for (int ch = 0; ch < channels; ch++) {
+            sumOfSquares[ch] = 0;
+            sumOfAbsolutes[ch] = 0;
+            waveformLength[ch] = 0;
+            zeroCrossingCount[ch] = 0;
+            slopeSignChangeCount[ch] = 0;
+        }
+        count = 0;
+        sinceHop = 0;
+    }
+
+    /**
+     * @return the timestamp of the sample that completed the last window
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getHop() {
+        return hop;
+    }
+
+    public int getFeatureCount() {
+        return features.length;
+    }
+}
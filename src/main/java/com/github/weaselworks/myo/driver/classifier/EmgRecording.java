@@ -0,0 +1,104 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A recorded stream of EMG samples held channel by channel: one array of timestamps and one
+ * array of samples per channel, so a pass over a channel reads contiguous memory.
+ */
+public class EmgRecording {
+
+    private final long[] timestamps;
+    private final short[][] channels;
+
+    /**
+     * @param timestamps nanoseconds of every sample
+     * @param channels   one array of samples per channel, each as long as timestamps
+     */
+    public EmgRecording(long[] timestamps, short[][] channels) {
+        if (channels.length < 1) throw new IllegalArgumentException("Need at least one channel");
+        for (short[] channel : channels) {
+            if (channel.length != timestamps.length) {
+                throw new IllegalArgumentException(String.format("Expected %d samples per channel, got %d", timestamps.length, channel.length));
+            }
+        }
+        this.timestamps = timestamps;
+        this.channels = channels;
+    }
+
+    /**
+     * Reads comma separated lines of a timestamp in nanoseconds followed by the eight channels,
+     * e.g. {@code 1250000000,-3,12,40,-7,2,0,-1,5}. Empty lines and lines starting with # are skipped.
+     */
+    public static EmgRecording load(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        long[] timestamps = new long[1024];
+        short[][] channels = new short[EmgDecoder.CHANNELS][1024];
+        int size = 0;
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length != EmgDecoder.CHANNELS + 1) {
+                throw new IOException(String.format("Line %d: expected a timestamp and %d channels", lineNumber, EmgDecoder.CHANNELS));
+            }
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                for (int ch = 0; ch < channels.length; ch++) {
+                    channels[ch] = Arrays.copyOf(channels[ch], size * 2);
+                }
+            }
+            try {
+                timestamps[size] = Long.parseLong(fields[0].trim());
+                for (int ch = 0; ch < channels.length; ch++) {
+                    channels[ch][size] = Short.parseShort(fields[ch + 1].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format("Line %d: %s", lineNumber, e.getMessage()), e);
+            }
+            size++;
+        }
+        for (int ch = 0; ch < channels.length; ch++) {
+            channels[ch] = Arrays.copyOf(channels[ch], size);
+        }
+        return new EmgRecording(Arrays.copyOf(timestamps, size), channels);
+    }
+
+    public static EmgRecording load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public int getChannelCount() {
+        return channels.length;
+    }
+
+    public long getTimestamp(int sample) {
+        return timestamps[sample];
+    }
+
+    /**
+     * @return the samples of the channel, not a copy
+     */
+    public short[] getChannel(int channel) {
+        return channels[channel];
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Transformations of the per channel amplitudes a classifier is trained and queried on. A
+ * classifier trained on transformed rows must be queried with rows transformed the same way,
+ * see {@code MyoApplication#FEATURES_PROPERTY}.
+ */
+public enum FeatureSet {
+
+    /**
+     * The amplitudes as recorded.
+     */
+    AMPLITUDE {
+        @Override
+        public void apply(float[] row) {
+        }
+    },
+
+    /**
+     * Each amplitude as a fraction of the row total, so only the pattern across the pods matters
+     * and not how hard the pose is held.
+     */
+    NORMALISED {
+        @Override
+        public void apply(float[] row) {
+            float total = 0;
+            for (float value : row) {
+                total += Math.abs(value);
+            }
+            if (total > 0) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] /= total;
+                }
+            }
+        }
+    },
+
+    /**
+     * log(1 + amplitude), which compresses the loud channels.
+     */
+    LOG {
+        @Override
+        public void apply(float[] row) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (float) Math.log1p(Math.abs(row[i]));
+            }
+        }
+    };
+
+    /**
+     * Transforms the row in place.
+     */
+    public abstract void apply(float[] row);
+
+    /**
+     * @return a copy of the dataset with every row transformed, the dataset itself for {@link #AMPLITUDE}
+     */
+    public GestureDataset apply(GestureDataset dataset) {
+        if (this == AMPLITUDE) {
+            return dataset;
+        }
+        int size = dataset.size();
+        int dimensions = dataset.getDimensions();
+        float[] values = new float[size * dimensions];
+        int[] labels = new int[size];
+        float[] row = new float[dimensions];
+        for (int r = 0; r < size; r++) {
+            dataset.copyRow(r, row);
+            apply(row);
+            for (int d = 0; d < dimensions; d++) {
+                values[d * size + r] = row[d];
+            }
+            labels[r] = dataset.getLabel(r);
+        }
+        return new GestureDataset(dimensions, FloatBuffer.wrap(values), labels, dataset.getClasses());
+    }
+
+    public static FeatureSet forName(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Labelled training rows as primitive floats. Values are held column by column, one column per
+ * dimension, in a single {@link FloatBuffer} which may be heap, direct or memory mapped. Labels
+ * index into a dictionary of poses.
+ */
+public class GestureDataset {
+
+    public static final String[] DEFAULT_RESOURCES = {
+            "/gestures/fist.data", "/gestures/spread.data", "/gestures/left.data", "/gestures/right.data"};
+
+    private final int dimensions;
+    private final FloatBuffer values;
+    private final int[] labels;
+    private final Pose[] classes;
+
+    /**
+     * @param values  size * dimensions values, column after column, read from index 0
+     * @param labels  index into classes for every row
+     * @param classes the pose of every label
+     */
+    public GestureDataset(int dimensions, FloatBuffer values, int[] labels, Pose[] classes) {
+        if (dimensions < 1) throw new IllegalArgumentException("Need at least one dimension");
+        if (values.limit() != labels.length * dimensions) {
+            throw new IllegalArgumentException(String.format("Expected %d values for %d rows, got %d",
+                    labels.length * dimensions, labels.length, values.limit()));
+        }
+        for (int label : labels) {
+            if (label < 0 || label >= classes.length) throw new IllegalArgumentException("Unknown label " + label);
+        }
+        this.dimensions = dimensions;
+        this.values = values;
+        this.labels = labels;
+        this.classes = classes;
+    }
+
+    /**
+     * Loads the gesture recordings bundled with the driver.
+     */
+    public static GestureDataset loadDefault() {
+        return loadResources(EmgDecoder.CHANNELS, DEFAULT_RESOURCES);
+    }
+
+    public static GestureDataset loadResources(int dimensions, String... resources) {
+        Loader loader = new Loader(dimensions);
+        for (String resource : resources) {
+            InputStream in = GestureDataset.class.getResourceAsStream(resource);
+            if (in == null) throw new IllegalArgumentException("No gesture data at " + resource);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                loader.read(reader, resource);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read " + resource, e);
+            }
+        }
+        return loader.toDataset();
+    }
+
+    public static GestureDataset loadFiles(List<Path> files, int dimensions) throws IOException {
+        Loader loader = new Loader(dimensions);
+        for (Path file : files) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                loader.read(reader, file.toString());
+            }
+        }
+        return loader.toDataset();
+    }
+
+    /**
+     * Reads comma separated rows of dimensions values followed by the pose name, e.g.
+     * {@code 412,159,564,298,196,223,196,205,FIST}. Unrecognised pose names, like the
+     * {@code x} of the rest position, become {@link Pose#UNKNOWN}.
+     */
+    public static GestureDataset load(Reader reader, int dimensions) throws IOException {
+        Loader loader = new Loader(dimensions);
+        loader.read(reader, "gesture data");
+        return loader.toDataset();
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public float get(int row, int dimension) {
+        return values.get(dimension * labels.length + row);
+    }
+
+    public void copyRow(int row, float[] destination) {
+        for (int d = 0; d < dimensions; d++) {
+            destination[d] = values.get(d * labels.length + row);
+        }
+    }
+
+    public int getLabel(int row) {
+        return labels[row];
+    }
+
+    public Pose getPose(int row) {
+        return classes[labels[row]];
+    }
+
+    /**
+     * @return the label dictionary, not a copy
+     */
+    public Pose[] getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return a read only view of all values, column after column
+     */
+    public FloatBuffer getValues() {
+        return values.asReadOnlyBuffer();
+    }
+
+    private static class Loader {
+
+        private final int dimensions;
+        private float[] values = new float[1024];
+        private int[] labels = new int[128];
+        private int size;
+
+        Loader(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        void read(Reader reader, String source) throws IOException {
+            BufferedReader lines = new BufferedReader(reader);
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != dimensions + 1) {
+                    throw new IOException(String.format("%s line %d: expected %d values and a pose", source, lineNumber, dimensions));
+                }
+                ensureCapacity(size + 1);
+                try {
+                    for (int d = 0; d < dimensions; d++) {
+                        values[size * dimensions + d] = Float.parseFloat(fields[d].trim());
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException(String.format("%s line %d: %s", source, lineNumber, e.getMessage()), e);
+                }
+                labels[size++] = Pose.fromString(fields[dimensions].trim()).ordinal();
+            }
+        }
+
+        private void ensureCapacity(int rows) {
+            if (rows > labels.length) {
+                labels = Arrays.copyOf(labels, labels.length * 2);
+            }
+            if (rows * dimensions > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, rows * dimensions));
+            }
+        }
+
+        GestureDataset toDataset() {
+            float[] columns = new float[size * dimensions];
+            for (int row = 0; row < size; row++) {
+                for (int d = 0; d < dimensions; d++) {
+                    columns[d * size + row] = values[row * dimensions + d];
+                }
+            }
+            return new GestureDataset(dimensions, FloatBuffer.wrap(columns), Arrays.copyOf(labels, size), Pose.values());
+        }
+    }
+}
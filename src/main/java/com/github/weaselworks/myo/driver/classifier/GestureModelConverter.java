@@ -0,0 +1,46 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts gesture recordings in the comma separated .data format into a binary
+ * {@link GestureModelFile}.
+ *
+ * <pre>
+ * GestureModelConverter [--no-index] output.model input.data...
+ * </pre>
+ */
+public class GestureModelConverter {
+
+    public static void main(String[] args) throws IOException {
+        boolean withIndex = true;
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if ("--no-index".equals(arg)) {
+                withIndex = false;
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.size() < 2) {
+            System.err.println("Usage: GestureModelConverter [--no-index] output.model input.data...");
+            System.exit(1);
+        }
+
+        Path output = Paths.get(paths.get(0));
+        List<Path> inputs = new ArrayList<>();
+        for (String input : paths.subList(1, paths.size())) {
+            inputs.add(Paths.get(input));
+        }
+        GestureDataset dataset = GestureDataset.loadFiles(inputs, EmgDecoder.CHANNELS);
+        GestureModelFile.write(output, dataset, withIndex);
+        System.out.println(String.format("Wrote %d rows of %d dimensions to %s%s", dataset.size(),
+                dataset.getDimensions(), output, withIndex ? " with a kd-tree index" : ""));
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.MyoApplication;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Grid search over the number of neighbours, the feature window and the feature set, scoring
+ * every configuration with stratified {@link CrossValidation}. The rows are windowed by an
+ * {@link EmgFeatureWindow} like live samples, a hop longer than a window is cut to the window.
+ * Configurations and their folds all run as tasks in one fork join pool. Prints every
+ * configuration by balanced accuracy with its mean latency to classify one row, then the
+ * confusion matrix of the best and the system properties that use it live.
+ *
+ * <pre>
+ * GestureModelEvaluator [--classifier knn] [--folds 5] [--k 1,5,10,20] [--window 3,5,10] [--hop 1]
+ *                       [--features amplitude,normalised,log] [--threads n] [input.data...]
+ * </pre>
+ *
+ * Without inputs the bundled gesture recordings are used.
+ */
+public class GestureModelEvaluator {
+
+    private final GestureDataset dataset;
+    private final String classifier;
+    private final int folds;
+
+    public GestureModelEvaluator(GestureDataset dataset, String classifier, int folds) {
+        this.dataset = dataset;
+        this.classifier = classifier;
+        this.folds = folds;
+    }
+
+    /**
+     * Scores every combination of the parameters in the pool.
+     */
+    public List<Score> search(ForkJoinPool pool, int[] ks, int[] windows, int hop, FeatureSet[] featureSets) {
+        List<ScoreTask> tasks = new ArrayList<>();
+        for (int window : windows) {
+            for (FeatureSet features : featureSets) {
+                for (int k : ks) {
+                    tasks.add(new ScoreTask(k, window, Math.min(hop, window), features));
+                }
+            }
+        }
+        List<Score> scores = pool.invoke(new RecursiveTask<List<Score>>() {
+            @Override
+            protected List<Score> compute() {
+                List<Score> scores = new ArrayList<>();
+                for (ScoreTask task : ForkJoinTask.invokeAll(tasks)) {
+                    scores.add(task.join());
+                }
+                return scores;
+            }
+        });
+        scores.sort(Comparator.comparingDouble((Score score) -> score.getResult().getMatrix().balancedAccuracy()).reversed());
+        return scores;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String classifier = KnnProvider.NAME;
+        int folds = CrossValidation.DEFAULT_FOLDS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[] ks = {1, 5, KdTreeClassifier.DEFAULT_K, 20};
+        int[] windows = {3, 5, 10};
+        int hop = 1;
+        FeatureSet[] featureSets = FeatureSet.values();
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--classifier": classifier = args[++i]; break;
+                case "--folds": folds = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--k": ks = parseInts(args[++i]); break;
+                case "--window": windows = parseInts(args[++i]); break;
+                case "--hop": hop = Integer.parseInt(args[++i]); break;
+                case "--features": featureSets = parseFeatureSets(args[++i]); break;
+                default: inputs.add(Paths.get(args[i]));
+            }
+        }
+
+        GestureDataset dataset = inputs.isEmpty() ? GestureDataset.loadDefault() : GestureDataset.loadFiles(inputs, EmgDecoder.CHANNELS);
+        System.out.println(String.format("Evaluating %s on %d rows with %d folds, %d threads", classifier, dataset.size(), folds, threads));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Score> scores;
+        try {
+            scores = new GestureModelEvaluator(dataset, classifier, folds).search(pool, ks, windows, hop, featureSets);
+        } finally {
+            pool.shutdown();
+        }
+
+        System.out.println(String.format("%5s %7s %4s %-11s %9s %9s %11s %11s", "k", "window", "hop", "features", "accuracy", "balanced", "latency ns", "training ms"));
+        for (Score score : scores) {
+            CrossValidation.Result result = score.getResult();
+            System.out.println(String.format("%5d %7d %4d %-11s %9.3f %9.3f %11.0f %11d", score.getK(), score.getWindow(), score.getHop(),
+                    score.getFeatures().name().toLowerCase(), result.getMatrix().accuracy(), result.getMatrix().balancedAccuracy(),
+                    result.getLatencyNanos(), result.getTrainingNanos() / 1000000));
+        }
+        Score best = scores.get(0);
+        System.out.println(String.format("%nBest: k=%d window=%d features=%s", best.getK(), best.getWindow(),
+                best.getFeatures().name().toLowerCase()));
+        System.out.print(best.getResult().getMatrix().format());
+        System.out.println(String.format("%nLive: -D%s=%s -D%s.k=%d -D%s=%s and MyoApplication.setFeatureWindow(%d, hop)",
+                MyoApplication.CLASSIFIER_PROPERTY, classifier, MyoApplication.CLASSIFIER_PROPERTY, best.getK(),
+                MyoApplication.FEATURES_PROPERTY, best.getFeatures().name().toLowerCase(), best.getWindow()));
+    }
+
+    private static int[] parseInts(String list) {
+        String[] values = list.split(",");
+        int[] ints = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ints[i] = Integer.parseInt(values[i].trim());
+        }
+        return ints;
+    }
+
+    private static FeatureSet[] parseFeatureSets(String list) {
+        String[] values = list.split(",");
+        FeatureSet[] featureSets = new FeatureSet[values.length];
+        for (int i = 0; i < values.length; i++) {
+            featureSets[i] = FeatureSet.forName(values[i]);
+        }
+        return featureSets;
+    }
+
+    private class ScoreTask extends RecursiveTask<Score> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int k;
+        private final int window;
+        private final int hop;
+        private final FeatureSet features;
+
+        ScoreTask(int k, int window, int hop, FeatureSet features) {
+            this.k = k;
+            this.window = window;
+            this.hop = hop;
+            this.features = features;
+        }
+
+        @Override
+        protected Score compute() {
+            Properties options = new Properties();
+            options.setProperty("k", String.valueOf(k));
+            CrossValidation validation = new CrossValidation(CrossValidation.prepare(dataset, window, hop, features), folds);
+            return new Score(k, window, hop, features, validation.evaluate(training -> PoseClassifiers.train(classifier, training, options)));
+        }
+    }
+
+    /**
+     * The cross validation result of one configuration.
+     */
+    public static class Score {
+
+        private final int k;
+        private final int window;
+        private final int hop;
+        private final FeatureSet features;
+        private final CrossValidation.Result result;
+
+        Score(int k, int window, int hop, FeatureSet features, CrossValidation.Result result) {
+            this.k = k;
+            this.window = window;
+            this.hop = hop;
+            this.features = features;
+            this.result = result;
+        }
+
+        public int getK() {
+            return k;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public int getHop() {
+            return hop;
+        }
+
+        public FeatureSet getFeatures() {
+            return features;
+        }
+
+        public CrossValidation.Result getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary gesture model, read by memory mapping so loading costs next to nothing and the feature
+ * matrix stays off the heap. All fields are little endian:
+ *
+ * <pre>
+ * header      magic "MYOG", version u16, flags u16, dimensions i32, rows i32, classes i32
+ * classes     per class: name length u8, UTF-8 pose name
+ * labels      rows x u8, index into the classes
+ * features    dimensions x rows float32, one column per dimension, 4 byte aligned
+ * index       rows x u8 kd-tree split dimensions, only with {@link #FLAG_INDEX}
+ * </pre>
+ *
+ * With an index the rows are stored in kd-tree order and {@link #classifier(int)} searches the
+ * mapped columns directly, without building anything.
+ */
+public class GestureModelFile {
+
+    public static final int MAGIC = 0x474F594D; // "MYOG" read little endian
+    public static final int VERSION = 1;
+    public static final int FLAG_INDEX = 1;
+
+    private static final int HEADER_LENGTH = 20;
+    private static final int MAX_CLASSES = 256;
+
+    private final GestureDataset dataset;
+    private final byte[] splitDimensions;
+
+    private GestureModelFile(GestureDataset dataset, byte[] splitDimensions) {
+        this.dataset = dataset;
+        this.splitDimensions = splitDimensions;
+    }
+
+    /**
+     * Maps the model at path. The mapping stays valid after the file channel is closed.
+     */
+    public static GestureModelFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(mapped, path.toString());
+        }
+    }
+
+    static GestureModelFile read(ByteBuffer buffer, String source) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.getInt() != MAGIC) throw new IOException(source + " is not a gesture model");
+            int version = in.getShort() & 0xFFFF;
+            if (version != VERSION) throw new IOException(String.format("%s has unsupported version %d", source, version));
+            int flags = in.getShort() & 0xFFFF;
+            int dimensions = in.getInt();
+            int rows = in.getInt();
+            int classCount = in.getInt();
+            if (dimensions < 1 || rows < 0 || classCount < 1 || classCount > MAX_CLASSES) {
+                throw new IOException(String.format("%s has an invalid header: %d dimensions, %d rows, %d classes",
+                        source, dimensions, rows, classCount));
+            }
+
+            Pose[] classes = new Pose[classCount];
+            byte[] name = new byte[255];
+            for (int c = 0; c < classCount; c++) {
+                int length = in.get() & 0xFF;
+                in.get(name, 0, length);
+                classes[c] = Pose.fromString(new String(name, 0, length, StandardCharsets.UTF_8));
+            }
+
+            int[] labels = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                labels[i] = in.get() & 0xFF;
+            }
+
+            align(in);
+            int featureBytes = Math.multiplyExact(Math.multiplyExact(rows, dimensions), Float.BYTES);
+            in.limit(Math.addExact(in.position(), featureBytes));
+            FloatBuffer features = in.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            in.position(in.limit()).limit(in.capacity());
+
+            byte[] splitDimensions = null;
+            if ((flags & FLAG_INDEX) != 0) {
+                splitDimensions = new byte[rows];
+                in.get(splitDimensions);
+            }
+            return new GestureModelFile(new GestureDataset(dimensions, features, labels, classes), splitDimensions);
+        } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException(source + " is truncated or corrupt", e);
+        }
+    }
+
+    /**
+     * Writes the dataset, with a prebuilt kd-tree index unless withIndex is false.
+     */
+    public static void write(Path path, GestureDataset dataset, boolean withIndex) throws IOException {
+        byte[] splitDimensions = null;
+        if (withIndex && dataset.size() > 0) {
+            KdTreeClassifier tree = new KdTreeClassifier(dataset, 1);
+            dataset = tree.toDataset();
+            splitDimensions = tree.getSplitDimensions();
+        }
+        Pose[] classes = dataset.getClasses();
+        if (classes.length > MAX_CLASSES) throw new IllegalArgumentException("At most " + MAX_CLASSES + " classes fit a model");
+        int rows = dataset.size();
+        int dimensions = dataset.getDimensions();
+
+        byte[][] names = new byte[classes.length][];
+        int dictionaryLength = 0;
+        for (int c = 0; c < classes.length; c++) {
+            names[c] = classes[c].getName().getBytes(StandardCharsets.UTF_8);
+            dictionaryLength += 1 + names[c].length;
+        }
+        int featuresOffset = alignUp(HEADER_LENGTH + dictionaryLength + rows);
+        int length = featuresOffset + rows * dimensions * Float.BYTES + (splitDimensions == null ? 0 : rows);
+
+        ByteBuffer out = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC);
+        out.putShort((short) VERSION);
+        out.putShort((short) (splitDimensions == null ? 0 : FLAG_INDEX));
+        out.putInt(dimensions);
+        out.putInt(rows);
+        out.putInt(classes.length);
+        for (byte[] name : names) {
+            out.put((byte) name.length);
+            out.put(name);
+        }
+        for (int i = 0; i < rows; i++) {
+            out.put((byte) dataset.getLabel(i));
+        }
+        out.position(featuresOffset);
+        for (int d = 0; d < dimensions; d++) {
+            for (int i = 0; i < rows; i++) {
+                out.putFloat(dataset.get(i, d));
+            }
+        }
+        if (splitDimensions != null) {
+            out.put(splitDimensions);
+        }
+        out.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    private static void align(ByteBuffer buffer) {
+        buffer.position(alignUp(buffer.position()));
+    }
+
+    private static int alignUp(int position) {
+        return (position + Float.BYTES - 1) & -Float.BYTES;
+    }
+
+    public GestureDataset getDataset() {
+        return dataset;
+    }
+
+    public boolean hasIndex() {
+        return splitDimensions != null;
+    }
+
+    /**
+     * @return a k nearest neighbour classifier, searching the mapped rows in place if the model has an index
+     */
+    public KdTreeClassifier classifier(int k) {
+        return hasIndex() ? new KdTreeClassifier(dataset, splitDimensions, k) : new KdTreeClassifier(dataset, k);
+    }
+}
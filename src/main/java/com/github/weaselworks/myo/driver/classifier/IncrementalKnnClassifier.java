@@ -0,0 +1,263 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * k nearest neighbour classifier that learns online. The examples live in a persistent kd-tree:
+ * an insert copies only the path from the root to the new leaf, O(log n) nodes, and publishes
+ * the new root with a single atomic swap. A query works on whichever root it read when it
+ * started, so classification never waits for training and always sees a complete tree.
+ *
+ * Live calibration doesn't deliver examples in random order, a held pose gives near identical
+ * or slowly drifting windows, so inserts keep the tree balanced the way a scapegoat tree does:
+ * when a new leaf lands deeper than twice the log of the size, the lowest ancestor whose path
+ * child holds more than {@link #BALANCE} of its examples is rebuilt around medians. That bounds
+ * the depth, and with it the path copies of an insert and the recursion of a query, to
+ * O(log n), and amortises the rebuilds to O(log n) per insert.
+ */
+public class IncrementalKnnClassifier implements OnlinePoseClassifier {
+
+    private static final Pose[] POSES = Pose.values();
+
+    /** the largest share of a subtree's examples one child may hold once the tree is too deep */
+    static final double BALANCE = 0.7;
+
+    private final int k;
+    private final int dimensions;
+    private final AtomicReference<Tree> tree = new AtomicReference<>(new Tree(null, 0));
+    private final ThreadLocal<NearestNeighbours> scratch;
+    // the nodes from the root to the insert point, only touched while learning
+    private Node[] path = new Node[64];
+
+    public IncrementalKnnClassifier(int dimensions, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1, was " + k);
+        if (dimensions < 1) throw new IllegalArgumentException("Need at least one dimension");
+        this.k = k;
+        this.dimensions = dimensions;
+        scratch = ThreadLocal.withInitial(() -> new NearestNeighbours(k, POSES.length));
+    }
+
+    /**
+     * Starts from the examples in the dataset.
+     */
+    public IncrementalKnnClassifier(GestureDataset seed, int k) {
+        this(seed.getDimensions(), k);
+        int[] order = new int[seed.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(0);
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        float[] row = new float[dimensions];
+        for (int i : order) {
+            seed.copyRow(i, row);
+            learn(row, seed.getPose(i));
+        }
+    }
+
+    @Override
+    public synchronized void learn(float[] features, Pose pose) {
+        if (features.length < dimensions) {
+            throw new IllegalArgumentException(String.format("Expected %d features, got %d", dimensions, features.length));
+        }
+        float[] point = new float[dimensions];
+        System.arraycopy(features, 0, point, 0, dimensions);
+        Tree current = tree.get();
+        tree.set(new Tree(insert(current.root, point, pose.ordinal(), current.size + 1), current.size + 1));
+    }
+
+    @Override
+    public Pose classify(float[] features) {
+        if (features.length < dimensions) {
+            throw new IllegalArgumentException(String.format("Expected %d features, got %d", dimensions, features.length));
+        }
+        Node root = tree.get().root;
+        if (root == null) {
+            return Pose.UNKNOWN;
+        }
+        NearestNeighbours neighbours = scratch.get();
+        neighbours.clear();
+        search(root, features, neighbours);
+        return POSES[neighbours.vote()];
+    }
+
+    @Override
+    public int size() {
+        return tree.get().size;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the deepest a leaf may be in a tree of the given size before its path is rebalanced
+     */
+    static int maxDepth(int size) {
+        return 2 * (32 - Integer.numberOfLeadingZeros(size));
+    }
+
+    /**
+     * @return the number of edges from the root to the deepest leaf
+     */
+    int depth() {
+        Node root = tree.get().root;
+        if (root == null) {
+            return -1;
+        }
+        int deepest = 0;
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        nodes.push(root);
+        depths.push(0);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            int depth = depths.pop();
+            deepest = Math.max(deepest, depth);
+            if (node.left != null) {
+                nodes.push(node.left);
+                depths.push(depth + 1);
+            }
+            if (node.right != null) {
+                nodes.push(node.right);
+                depths.push(depth + 1);
+            }
+        }
+        return deepest;
+    }
+
+    private Node insert(Node root, float[] point, int label, int size) {
+        int depth = 0;
+        for (Node node = root; node != null; node = goesLeft(node, point) ? node.left : node.right) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = node;
+        }
+        int scapegoat = -1;
+        if (depth > maxDepth(size)) {
+            // the subtree sizes on the path include the new leaf
+            int childSize = 1;
+            for (int i = depth - 1; i >= 0 && scapegoat < 0; i--) {
+                int nodeSize = path[i].size + 1;
+                if (childSize > BALANCE * nodeSize) {
+                    scapegoat = i;
+                }
+                childSize = nodeSize;
+            }
+            scapegoat = Math.max(scapegoat, 0);
+        }
+        Node child = new Node(point, label, depth % dimensions, null, null);
+        for (int i = depth - 1; i >= 0; i--) {
+            Node node = path[i];
+            child = goesLeft(node, point)
+                    ? new Node(node.point, node.label, node.dimension, child, node.right)
+                    : new Node(node.point, node.label, node.dimension, node.left, child);
+            if (i == scapegoat) {
+                child = rebuild(child, i);
+            }
+            path[i] = null;
+        }
+        return child;
+    }
+
+    private static boolean goesLeft(Node node, float[] point) {
+        return point[node.dimension] < node.point[node.dimension];
+    }
+
+    private Node rebuild(Node subtree, int depth) {
+        Node[] nodes = new Node[subtree.size];
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(subtree);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            nodes[count++] = node;
+            if (node.left != null) {
+                pending.push(node.left);
+            }
+            if (node.right != null) {
+                pending.push(node.right);
+            }
+        }
+        return build(nodes, 0, count, depth);
+    }
+
+    /**
+     * Splits at the median, so equal values may end up on either side. Inserts still send them
+     * right and queries visit both sides of a split they lie on, so that is fine.
+     */
+    private Node build(Node[] nodes, int from, int to, int depth) {
+        if (from == to) {
+            return null;
+        }
+        int dimension = depth % dimensions;
+        Arrays.sort(nodes, from, to, Comparator.comparingDouble(node -> node.point[dimension]));
+        int median = (from + to) >>> 1;
+        Node left = build(nodes, from, median, depth + 1);
+        Node right = build(nodes, median + 1, to, depth + 1);
+        return new Node(nodes[median].point, nodes[median].label, dimension, left, right);
+    }
+
+    private void search(Node node, float[] query, NearestNeighbours neighbours) {
+        float distance = 0;
+        for (int d = 0; d < dimensions; d++) {
+            float delta = query[d] - node.point[d];
+            distance += delta * delta;
+        }
+        neighbours.offer(distance, node.label);
+        float delta = query[node.dimension] - node.point[node.dimension];
+        Node near = delta < 0 ? node.left : node.right;
+        Node far = delta < 0 ? node.right : node.left;
+        if (near != null) {
+            search(near, query, neighbours);
+        }
+        if (far != null && delta * delta < neighbours.worst()) {
+            search(far, query, neighbours);
+        }
+    }
+
+    private static final class Tree {
+        final Node root;
+        final int size;
+
+        Tree(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    private static final class Node {
+        final float[] point;
+        final int label;
+        final int dimension;
+        final Node left;
+        final Node right;
+        final int size;
+
+        Node(float[] point, int label, int dimension, Node left, Node right) {
+            this.point = point;
+            this.label = label;
+            this.dimension = dimension;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.util.Properties;
+
+/**
+ * Provides the {@link IncrementalKnnClassifier}, which sessions can keep training while they
+ * run. Option {@code k}, the number of neighbours.
+ */
+public class IncrementalKnnProvider implements PoseClassifierProvider {
+
+    public static final String NAME = "knn-online";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PoseClassifier train(GestureDataset dataset, Properties options) {
+        return new IncrementalKnnClassifier(dataset, PoseClassifiers.intOption(options, "k", KdTreeClassifier.DEFAULT_K));
+    }
+}
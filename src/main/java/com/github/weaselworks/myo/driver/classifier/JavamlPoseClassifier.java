@@ -0,0 +1,28 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import net.sf.javaml.classification.Classifier;
+import net.sf.javaml.core.DenseInstance;
+
+/**
+ * Adapts a java-ml classifier trained on pose names. java-ml needs a new instance per call, so
+ * this allocates on every classification, prefer {@link KdTreeClassifier} on the reader thread.
+ */
+public class JavamlPoseClassifier implements PoseClassifier {
+
+    private final Classifier classifier;
+
+    public JavamlPoseClassifier(Classifier classifier) {
+        this.classifier = classifier;
+    }
+
+    @Override
+    public Pose classify(float[] features) {
+        double[] values = new double[features.length];
+        for (int i = 0; i < features.length; i++) {
+            values[i] = features[i];
+        }
+        Object classification = classifier.classify(new DenseInstance(values));
+        return Pose.fromString(classification == null ? null : classification.toString());
+    }
+}
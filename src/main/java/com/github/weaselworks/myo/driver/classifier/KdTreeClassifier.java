@@ -0,0 +1,218 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.nio.FloatBuffer;
+
+/**
+ * k nearest neighbour pose classifier over a kd-tree, so a query visits a logarithmic number of
+ * training rows instead of scanning them all. The tree is implicit: rows are reordered so that
+ * the node for the range [lo, hi) is the median row at (lo + hi) / 2, split on the dimension
+ * with the widest spread, with its two halves on either side. Queries keep their candidates in
+ * per thread scratch arrays and allocate nothing.
+ *
+ * Building copies the rows onto the heap to reorder them. A dataset that is already in tree
+ * order, such as one mapped from a {@link GestureModelFile} with an index, is searched in place.
+ */
+public class KdTreeClassifier implements PoseClassifier {
+
+    public static final int DEFAULT_K = 10;
+
+    private final int k;
+    private final int dimensions;
+    private final int size;
+    // column major, like GestureDataset
+    private final FloatBuffer points;
+    private final int[] labels;
+    private final byte[] splitDimensions;
+    private final Pose[] classes;
+    private final ThreadLocal<NearestNeighbours> scratch;
+
+    public KdTreeClassifier(GestureDataset dataset) {
+        this(dataset, DEFAULT_K);
+    }
+
+    public KdTreeClassifier(GestureDataset dataset, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1, was " + k);
+        if (dataset.size() == 0) throw new IllegalArgumentException("Cannot classify without training data");
+        if (dataset.getDimensions() > Byte.MAX_VALUE) throw new IllegalArgumentException("Too many dimensions " + dataset.getDimensions());
+        this.k = k;
+        this.dimensions = dataset.getDimensions();
+        this.size = dataset.size();
+        this.classes = dataset.getClasses().clone();
+        points = FloatBuffer.allocate(size * dimensions);
+        points.put(dataset.getValues()).clear();
+        labels = new int[size];
+        splitDimensions = new byte[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = dataset.getLabel(i);
+        }
+        build(0, size);
+        scratch = newScratch(k, size, classes.length);
+    }
+
+    /**
+     * Searches a dataset already in tree order, as written by {@link #toDataset()}, without
+     * copying its values.
+     *
+     * @param splitDimensions the split dimension of every row, see {@link #getSplitDimensions()}
+     */
+    public KdTreeClassifier(GestureDataset ordered, byte[] splitDimensions, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1, was " + k);
+        if (ordered.size() == 0) throw new IllegalArgumentException("Cannot classify without training data");
+        if (splitDimensions.length != ordered.size()) {
+            throw new IllegalArgumentException(String.format("Index covers %d rows, dataset has %d", splitDimensions.length, ordered.size()));
+        }
+        for (byte dimension : splitDimensions) {
+            if (dimension < 0 || dimension >= ordered.getDimensions()) throw new IllegalArgumentException("Invalid split dimension " + dimension);
+        }
+        this.k = k;
+        this.dimensions = ordered.getDimensions();
+        this.size = ordered.size();
+        this.classes = ordered.getClasses().clone();
+        this.points = ordered.getValues();
+        this.splitDimensions = splitDimensions.clone();
+        labels = new int[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = ordered.getLabel(i);
+        }
+        scratch = newScratch(k, size, classes.length);
+    }
+
+    private static ThreadLocal<NearestNeighbours> newScratch(int k, int size, int classes) {
+        int neighbours = Math.min(k, size);
+        return ThreadLocal.withInitial(() -> new NearestNeighbours(neighbours, classes));
+    }
+
+    @Override
+    public Pose classify(float[] features) {
+        if (features.length < dimensions) {
+            throw new IllegalArgumentException(String.format("Expected %d features, got %d", dimensions, features.length));
+        }
+        NearestNeighbours neighbours = scratch.get();
+        neighbours.clear();
+        search(0, size, features, neighbours);
+        return classes[neighbours.vote()];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the training rows in tree order, sharing this classifier's values
+     */
+    public GestureDataset toDataset() {
+        return new GestureDataset(dimensions, points.duplicate(), labels.clone(), classes.clone());
+    }
+
+    /**
+     * @return the split dimension of every row of {@link #toDataset()}
+     */
+    public byte[] getSplitDimensions() {
+        return splitDimensions.clone();
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo < 2) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int dimension = widestDimension(lo, hi);
+        select(lo, hi - 1, mid, dimension);
+        splitDimensions[mid] = (byte) dimension;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    private int widestDimension(int lo, int hi) {
+        int widest = 0;
+        float widestSpread = -1;
+        for (int d = 0; d < dimensions; d++) {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            int column = d * size;
+            for (int i = lo; i < hi; i++) {
+                float value = points.get(column + i);
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = d;
+            }
+        }
+        return widest;
+    }
+
+    // quickselect on one dimension, leaves the nth row in place with smaller values before it
+    private void select(int left, int right, int nth, int dimension) {
+        int column = dimension * size;
+        while (right > left) {
+            float pivot = points.get(column + ((left + right) >>> 1));
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points.get(column + i) < pivot) i++;
+                while (points.get(column + j) > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (nth <= j) {
+                right = j;
+            } else if (nth >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        for (int column = 0; column < size * dimensions; column += size) {
+            float value = points.get(column + a);
+            points.put(column + a, points.get(column + b));
+            points.put(column + b, value);
+        }
+        int label = labels[a];
+        labels[a] = labels[b];
+        labels[b] = label;
+    }
+
+    private void search(int lo, int hi, float[] query, NearestNeighbours neighbours) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        float distance = 0;
+        for (int d = 0; d < dimensions; d++) {
+            float delta = query[d] - points.get(d * size + mid);
+            distance += delta * delta;
+        }
+        neighbours.offer(distance, labels[mid]);
+        if (hi - lo == 1) {
+            return;
+        }
+        int dimension = splitDimensions[mid];
+        float delta = query[dimension] - points.get(dimension * size + mid);
+        if (delta < 0) {
+            search(lo, mid, query, neighbours);
+            if (delta * delta < neighbours.worst()) search(mid + 1, hi, query, neighbours);
+        } else {
+            search(mid + 1, hi, query, neighbours);
+            if (delta * delta < neighbours.worst()) search(lo, mid, query, neighbours);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.util.Properties;
+
+/**
+ * Provides the {@link KdTreeClassifier}. Option {@code k}, the number of neighbours.
+ */
+public class KnnProvider implements PoseClassifierProvider {
+
+    public static final String NAME = "knn";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PoseClassifier train(GestureDataset dataset, Properties options) {
+        return new KdTreeClassifier(dataset, PoseClassifiers.intOption(options, "k", KdTreeClassifier.DEFAULT_K));
+    }
+}
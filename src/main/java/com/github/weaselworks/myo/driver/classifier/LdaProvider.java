@@ -0,0 +1,22 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.util.Properties;
+
+/**
+ * Provides {@link LinearDiscriminantAnalysis}. Option {@code shrinkage}, between 0 and 1.
+ */
+public class LdaProvider implements PoseClassifierProvider {
+
+    public static final String NAME = "lda";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PoseClassifier train(GestureDataset dataset, Properties options) {
+        return LinearDiscriminantAnalysis.train(dataset,
+                PoseClassifiers.doubleOption(options, "shrinkage", LinearDiscriminantAnalysis.DEFAULT_SHRINKAGE));
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import Jama.CholeskyDecomposition;
+import Jama.Matrix;
+import com.github.weaselworks.myo.driver.Pose;
+
+/**
+ * Trains a linear discriminant analysis model: Gaussian classes sharing one covariance matrix,
+ * which gives linear scores wc = S^-1 mc and bc = -mc' S^-1 mc / 2 + ln(prior c). The pooled
+ * covariance is shrunk towards a scaled identity so that correlated EMG channels stay invertible.
+ */
+public final class LinearDiscriminantAnalysis {
+
+    public static final double DEFAULT_SHRINKAGE = 0.01;
+
+    private LinearDiscriminantAnalysis() {
+    }
+
+    public static LinearPoseClassifier train(GestureDataset dataset) {
+        return train(dataset, DEFAULT_SHRINKAGE);
+    }
+
+    /**
+     * @param shrinkage between 0 and 1, how far the pooled covariance is pulled towards its average variance
+     */
+    public static LinearPoseClassifier train(GestureDataset dataset, double shrinkage) {
+        if (shrinkage < 0 || shrinkage > 1) throw new IllegalArgumentException("Shrinkage must be between 0 and 1, was " + shrinkage);
+        int rows = dataset.size();
+        int dimensions = dataset.getDimensions();
+        Pose[] classes = dataset.getClasses();
+        if (rows == 0) throw new IllegalArgumentException("Cannot train without training data");
+
+        double[][] means = new double[classes.length][dimensions];
+        int[] counts = new int[classes.length];
+        for (int i = 0; i < rows; i++) {
+            int label = dataset.getLabel(i);
+            counts[label]++;
+            for (int d = 0; d < dimensions; d++) {
+                means[label][d] += dataset.get(i, d);
+            }
+        }
+        for (int c = 0; c < classes.length; c++) {
+            for (int d = 0; d < dimensions && counts[c] > 0; d++) {
+                means[c][d] /= counts[c];
+            }
+        }
+
+        double[][] covariance = new double[dimensions][dimensions];
+        double[] centred = new double[dimensions];
+        for (int i = 0; i < rows; i++) {
+            double[] mean = means[dataset.getLabel(i)];
+            for (int d = 0; d < dimensions; d++) {
+                centred[d] = dataset.get(i, d) - mean[d];
+            }
+            for (int a = 0; a < dimensions; a++) {
+                for (int b = 0; b <= a; b++) {
+                    covariance[a][b] += centred[a] * centred[b];
+                }
+            }
+        }
+        int present = 0;
+        for (int count : counts) {
+            if (count > 0) present++;
+        }
+        double degreesOfFreedom = Math.max(1, rows - present);
+        double trace = 0;
+        for (int a = 0; a < dimensions; a++) {
+            for (int b = 0; b <= a; b++) {
+                covariance[a][b] /= degreesOfFreedom;
+                covariance[b][a] = covariance[a][b];
+            }
+            trace += covariance[a][a];
+        }
+        double averageVariance = trace / dimensions;
+        for (int a = 0; a < dimensions; a++) {
+            for (int b = 0; b < dimensions; b++) {
+                covariance[a][b] *= 1 - shrinkage;
+            }
+            covariance[a][a] += shrinkage * averageVariance;
+        }
+
+        CholeskyDecomposition cholesky = new Matrix(covariance).chol();
+        if (!cholesky.isSPD()) {
+            throw new IllegalArgumentException("Covariance is singular, increase the shrinkage");
+        }
+        float[] weights = new float[classes.length * dimensions];
+        float[] biases = new float[classes.length];
+        for (int c = 0; c < classes.length; c++) {
+            if (counts[c] == 0) {
+                biases[c] = Float.NEGATIVE_INFINITY;
+                continue;
+            }
+            Matrix mean = new Matrix(means[c], dimensions);
+            Matrix weight = cholesky.solve(mean);
+            double bias = Math.log((double) counts[c] / rows) - 0.5 * mean.transpose().times(weight).get(0, 0);
+            for (int d = 0; d < dimensions; d++) {
+                weights[c * dimensions + d] = (float) weight.get(d, 0);
+            }
+            biases[c] = (float) bias;
+        }
+        return new LinearPoseClassifier(weights, biases, classes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+/**
+ * Linear model scoring every class as bias + weights . features and picking the highest score.
+ * Both {@link LinearDiscriminantAnalysis} and {@link LogisticRegression} train one. A
+ * classification is a fixed size matrix-vector product, with no allocation and no dependence on
+ * the amount of training data.
+ */
+public class LinearPoseClassifier implements PoseClassifier {
+
+    private final int dimensions;
+    private final float[] weights;
+    private final float[] biases;
+    private final Pose[] classes;
+
+    /**
+     * @param weights one row of dimensions weights per class, row after row
+     * @param biases  one per class, negative infinity for a class that can never be chosen
+     */
+    public LinearPoseClassifier(float[] weights, float[] biases, Pose[] classes) {
+        if (biases.length != classes.length || classes.length == 0 || weights.length % classes.length != 0) {
+            throw new IllegalArgumentException(String.format("%d weights and %d biases don't fit %d classes",
+                    weights.length, biases.length, classes.length));
+        }
+        this.dimensions = weights.length / classes.length;
+        this.weights = weights.clone();
+        this.biases = biases.clone();
+        this.classes = classes.clone();
+    }
+
+    /**
+     * Builds the classifier from a model trained on standardised features, (x - mean) / scale,
+     * folding the standardisation into the weights so raw features can be classified directly.
+     */
+    static LinearPoseClassifier fromStandardised(double[][] weights, double[] biases, double[] mean, double[] scale, Pose[] classes) {
+        int dimensions = mean.length;
+        float[] folded = new float[classes.length * dimensions];
+        float[] foldedBiases = new float[classes.length];
+        for (int c = 0; c < classes.length; c++) {
+            double bias = biases[c];
+            for (int d = 0; d < dimensions; d++) {
+                double weight = weights[c][d] / scale[d];
+                folded[c * dimensions + d] = (float) weight;
+                bias -= weight * mean[d];
+            }
+            foldedBiases[c] = (float) bias;
+        }
+        return new LinearPoseClassifier(folded, foldedBiases, classes);
+    }
+
+    @Override
+    public Pose classify(float[] features) {
+        if (features.length < dimensions) {
+            throw new IllegalArgumentException(String.format("Expected %d features, got %d", dimensions, features.length));
+        }
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < biases.length; c++) {
+            float score = score(c, features);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return classes[best];
+    }
+
+    public float score(int classIndex, float[] features) {
+        float score = biases[classIndex];
+        int base = classIndex * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            score += weights[base + d] * features[d];
+        }
+        return score;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public Pose[] getClasses() {
+        return classes.clone();
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.util.Arrays;
+
+/**
+ * Trains a multinomial logistic regression (softmax) model by full batch gradient descent with
+ * L2 regularisation. Features are standardised while training and the scaling is folded back
+ * into the weights, so the result classifies raw features.
+ */
+public final class LogisticRegression {
+
+    public static final int DEFAULT_ITERATIONS = 300;
+    public static final double DEFAULT_LEARNING_RATE = 0.5;
+    public static final double DEFAULT_L2 = 1e-4;
+
+    private LogisticRegression() {
+    }
+
+    public static LinearPoseClassifier train(GestureDataset dataset) {
+        return train(dataset, DEFAULT_ITERATIONS, DEFAULT_LEARNING_RATE, DEFAULT_L2);
+    }
+
+    public static LinearPoseClassifier train(GestureDataset dataset, int iterations, double learningRate, double l2) {
+        if (iterations < 1) throw new IllegalArgumentException("Need at least one iteration");
+        if (learningRate <= 0) throw new IllegalArgumentException("Learning rate must be positive");
+        if (l2 < 0) throw new IllegalArgumentException("L2 penalty cannot be negative");
+        int rows = dataset.size();
+        int dimensions = dataset.getDimensions();
+        Pose[] classes = dataset.getClasses();
+        if (rows == 0) throw new IllegalArgumentException("Cannot train without training data");
+
+        double[] mean = new double[dimensions];
+        double[] scale = new double[dimensions];
+        double[][] x = standardise(dataset, mean, scale);
+        int[] counts = new int[classes.length];
+        for (int i = 0; i < rows; i++) {
+            counts[dataset.getLabel(i)]++;
+        }
+
+        double[][] weights = new double[classes.length][dimensions];
+        double[] biases = new double[classes.length];
+        double[][] weightGradient = new double[classes.length][dimensions];
+        double[] biasGradient = new double[classes.length];
+        double[] probabilities = new double[classes.length];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int c = 0; c < classes.length; c++) {
+                Arrays.fill(weightGradient[c], 0);
+            }
+            Arrays.fill(biasGradient, 0);
+            for (int i = 0; i < rows; i++) {
+                softmax(weights, biases, x[i], counts, probabilities);
+                int label = dataset.getLabel(i);
+                for (int c = 0; c < classes.length; c++) {
+                    double error = probabilities[c] - (c == label ? 1 : 0);
+                    biasGradient[c] += error;
+                    for (int d = 0; d < dimensions; d++) {
+                        weightGradient[c][d] += error * x[i][d];
+                    }
+                }
+            }
+            for (int c = 0; c < classes.length; c++) {
+                biases[c] -= learningRate * biasGradient[c] / rows;
+                for (int d = 0; d < dimensions; d++) {
+                    weights[c][d] -= learningRate * (weightGradient[c][d] / rows + l2 * weights[c][d]);
+                }
+            }
+        }
+        for (int c = 0; c < classes.length; c++) {
+            if (counts[c] == 0) {
+                biases[c] = Double.NEGATIVE_INFINITY;
+            }
+        }
+        return LinearPoseClassifier.fromStandardised(weights, biases, mean, scale, classes);
+    }
+
+    private static double[][] standardise(GestureDataset dataset, double[] mean, double[] scale) {
+        int rows = dataset.size();
+        int dimensions = dataset.getDimensions();
+        double[][] x = new double[rows][dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            double sum = 0;
+            for (int i = 0; i < rows; i++) {
+                sum += dataset.get(i, d);
+            }
+            mean[d] = sum / rows;
+            double squares = 0;
+            for (int i = 0; i < rows; i++) {
+                double centred = dataset.get(i, d) - mean[d];
+                squares += centred * centred;
+            }
+            double deviation = Math.sqrt(squares / rows);
+            scale[d] = deviation > 0 ? deviation : 1;
+            for (int i = 0; i < rows; i++) {
+                x[i][d] = (dataset.get(i, d) - mean[d]) / scale[d];
+            }
+        }
+        return x;
+    }
+
+    // classes without rows are left out so their weights stay at zero
+    private static void softmax(double[][] weights, double[] biases, double[] x, int[] counts, double[] probabilities) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < biases.length; c++) {
+            if (counts[c] == 0) {
+                probabilities[c] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            double score = biases[c];
+            for (int d = 0; d < x.length; d++) {
+                score += weights[c][d] * x[d];
+            }
+            probabilities[c] = score;
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        for (int c = 0; c < biases.length; c++) {
+            probabilities[c] = counts[c] == 0 ? 0 : Math.exp(probabilities[c] - max);
+            sum += probabilities[c];
+        }
+        for (int c = 0; c < biases.length; c++) {
+            probabilities[c] /= sum;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.util.Properties;
+
+/**
+ * Provides {@link LogisticRegression}. Options {@code iterations}, {@code learningRate} and {@code l2}.
+ */
+public class LogisticRegressionProvider implements PoseClassifierProvider {
+
+    public static final String NAME = "logistic";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PoseClassifier train(GestureDataset dataset, Properties options) {
+        return LogisticRegression.train(dataset,
+                PoseClassifiers.intOption(options, "iterations", LogisticRegression.DEFAULT_ITERATIONS),
+                PoseClassifiers.doubleOption(options, "learningRate", LogisticRegression.DEFAULT_LEARNING_RATE),
+                PoseClassifiers.doubleOption(options, "l2", LogisticRegression.DEFAULT_L2));
+    }
+}
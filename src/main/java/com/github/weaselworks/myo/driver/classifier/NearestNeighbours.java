@@ -0,0 +1,61 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+/**
+ * Scratch space for a k nearest neighbour query: the k best candidates so far, sorted nearest
+ * first, and the vote counts. One per thread, reused by every query.
+ */
+class NearestNeighbours {
+
+    private final float[] distances;
+    private final int[] labels;
+    private final int[] votes;
+    private int size;
+
+    NearestNeighbours(int k, int classes) {
+        distances = new float[k];
+        labels = new int[k];
+        votes = new int[classes];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    float worst() {
+        return size < distances.length ? Float.POSITIVE_INFINITY : distances[size - 1];
+    }
+
+    void offer(float distance, int label) {
+        if (size == distances.length) {
+            if (distance >= distances[size - 1]) {
+                return;
+            }
+            size--;
+        }
+        int i = size++;
+        while (i > 0 && distances[i - 1] > distance) {
+            distances[i] = distances[i - 1];
+            labels[i] = labels[i - 1];
+            i--;
+        }
+        distances[i] = distance;
+        labels[i] = label;
+    }
+
+    // majority of the neighbours, a tie goes to the class with the nearer neighbour
+    int vote() {
+        for (int i = 0; i < size; i++) {
+            votes[labels[i]]++;
+        }
+        int best = labels[0];
+        for (int i = 1; i < size; i++) {
+            if (votes[labels[i]] > votes[best]) {
+                best = labels[i];
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            votes[labels[i]] = 0;
+        }
+        return best;
+    }
+}
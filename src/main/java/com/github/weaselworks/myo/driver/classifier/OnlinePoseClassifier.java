@@ -0,0 +1,21 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+/**
+ * A pose classifier that keeps learning from labelled examples while it is in use.
+ * {@link #learn} may run on any thread at the same time as {@link #classify}, which never waits
+ * for it.
+ */
+public interface OnlinePoseClassifier extends PoseClassifier {
+
+    /**
+     * Adds one labelled example, the values are copied.
+     */
+    void learn(float[] features, Pose pose);
+
+    /**
+     * @return the number of examples the classifier knows
+     */
+    int size();
+}
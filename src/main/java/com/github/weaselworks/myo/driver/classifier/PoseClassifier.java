@@ -0,0 +1,18 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+/**
+ * Maps a feature vector to a pose. Sessions call it from their reader thread, one classifier is
+ * shared by every session, so implementations must be safe to call concurrently and should not
+ * allocate per call.
+ */
+@FunctionalInterface
+public interface PoseClassifier {
+
+    /**
+     * @param features the values to classify, only read during the call
+     * @return the pose, {@link Pose#UNKNOWN} for the rest position or anything unrecognised
+     */
+    Pose classify(float[] features);
+}
@@ -0,0 +1,24 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.util.Properties;
+
+/**
+ * Service interface for pose classifier implementations. Providers are found with
+ * {@link java.util.ServiceLoader}, list an implementation in
+ * {@code META-INF/services/com.github.weaselworks.myo.driver.classifier.PoseClassifierProvider}
+ * to make it available through {@link PoseClassifiers}.
+ */
+public interface PoseClassifierProvider {
+
+    /**
+     * @return the short name the classifier is selected by, e.g. {@code knn}
+     */
+    String getName();
+
+    /**
+     * Trains a classifier on the dataset.
+     *
+     * @param options implementation specific settings, unknown keys are ignored
+     */
+    PoseClassifier train(GestureDataset dataset, Properties options);
+}
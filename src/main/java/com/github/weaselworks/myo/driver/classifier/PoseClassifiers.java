@@ -0,0 +1,64 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+/**
+ * Looks up the {@link PoseClassifierProvider}s on the classpath by name.
+ */
+public final class PoseClassifiers {
+
+    private PoseClassifiers() {
+    }
+
+    public static List<PoseClassifierProvider> providers() {
+        List<PoseClassifierProvider> providers = new ArrayList<>();
+        for (PoseClassifierProvider provider : ServiceLoader.load(PoseClassifierProvider.class)) {
+            providers.add(provider);
+        }
+        return providers;
+    }
+
+    public static PoseClassifierProvider forName(String name) {
+        List<String> names = new ArrayList<>();
+        for (PoseClassifierProvider provider : providers()) {
+            if (provider.getName().equalsIgnoreCase(name)) {
+                return provider;
+            }
+            names.add(provider.getName());
+        }
+        throw new IllegalArgumentException(String.format("No pose classifier called %s, available: %s", name, names));
+    }
+
+    public static PoseClassifier train(String name, GestureDataset dataset, Properties options) {
+        return forName(name).train(dataset, options);
+    }
+
+    /**
+     * @return the properties starting with prefix, with the prefix removed
+     */
+    public static Properties options(Properties properties, String prefix) {
+        Properties options = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                options.setProperty(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * @return the option as an int, surrounding whitespace ignored, or defaultValue if it isn't set
+     */
+    public static int intOption(Properties options, String key, int defaultValue) {
+        String value = options.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    static double doubleOption(Properties options, String key, double defaultValue) {
+        String value = options.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces raw classifications into stable poses. Each classification votes, the pose with a
+ * strict majority of the last N votes becomes the candidate, and the candidate only replaces the
+ * current pose once it has kept its majority for the minimum hold time. Callers only hear about
+ * the edges, so a held fist is one transition in and one out instead of an event per window.
+ *
+ * Not thread safe, a session feeds its state machine from the reader thread.
+ */
+public class PoseStateMachine {
+
+    public static final int DEFAULT_VOTES = 5;
+    public static final long DEFAULT_MIN_HOLD_MILLIS = 150;
+
+    private static final Pose[] POSES = Pose.values();
+
+    private final int[] votes;
+    private final int[] counts = new int[POSES.length];
+    private final long minHoldNanos;
+    private int voted;
+    private int next;
+
+    private Pose current = Pose.UNKNOWN;
+    private Pose previous = Pose.UNKNOWN;
+    private Pose candidate = Pose.UNKNOWN;
+    private long candidateSince;
+
+    public PoseStateMachine() {
+        this(DEFAULT_VOTES, DEFAULT_MIN_HOLD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param votes   number of recent classifications voting on the pose
+     * @param minHold how long a pose must keep its majority before it is reported
+     */
+    public PoseStateMachine(int votes, long minHold, TimeUnit unit) {
+        if (votes < 1) throw new IllegalArgumentException("Need at least one vote, was " + votes);
+        if (minHold < 0) throw new IllegalArgumentException("Minimum hold cannot be negative");
+        this.votes = new int[votes];
+        this.minHoldNanos = unit.toNanos(minHold);
+    }
+
+    /**
+     * Adds one classification.
+     *
+     * @param timestamp nanoseconds, as from {@link System#nanoTime()}
+     * @return true if the current pose changed, see {@link #getCurrent()} and {@link #getPrevious()}
+     */
+    public boolean update(long timestamp, Pose classified) {
+        if (voted == votes.length) {
+            counts[votes[next]]--;
+        } else {
+            voted++;
+        }
+        votes[next] = classified.ordinal();
+        counts[votes[next]]++;
+        next = (next + 1) % votes.length;
+
+        Pose majority = majority();
+        if (majority == null || majority == current) {
+            candidate = current;
+            return false;
+        }
+        if (majority != candidate) {
+            candidate = majority;
+            candidateSince = timestamp;
+        }
+        if (timestamp - candidateSince < minHoldNanos) {
+            return false;
+        }
+        previous = current;
+        current = candidate;
+        return true;
+    }
+
+    // the pose with more than half of the votes cast so far, null if there is none
+    private Pose majority() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] * 2 > voted) {
+                return POSES[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the stable pose, {@link Pose#UNKNOWN} at rest
+     */
+    public Pose getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return the stable pose before the last transition
+     */
+    public Pose getPrevious() {
+        return previous;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        voted = 0;
+        next = 0;
+        current = Pose.UNKNOWN;
+        previous = Pose.UNKNOWN;
+        candidate = Pose.UNKNOWN;
+    }
+}
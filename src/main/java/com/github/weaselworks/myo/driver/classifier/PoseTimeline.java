@@ -0,0 +1,114 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pose classified at each complete window of a recording, by the timestamp of the window's
+ * last sample.
+ */
+public class PoseTimeline {
+
+    private final long[] timestamps;
+    private final Pose[] poses;
+
+    public PoseTimeline(long[] timestamps, Pose[] poses) {
+        if (timestamps.length != poses.length) throw new IllegalArgumentException("Need a pose for every timestamp");
+        this.timestamps = timestamps;
+        this.poses = poses;
+    }
+
+    public int size() {
+        return poses.length;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public Pose getPose(int index) {
+        return poses[index];
+    }
+
+    /**
+     * Runs the classifications through a {@link PoseStateMachine}, as a live session would.
+     *
+     * @return the debounced pose at every window
+     */
+    public PoseTimeline debounce(int votes, long minHold, TimeUnit unit) {
+        PoseStateMachine machine = new PoseStateMachine(votes, minHold, unit);
+        Pose[] debounced = new Pose[poses.length];
+        for (int i = 0; i < poses.length; i++) {
+            machine.update(timestamps[i], poses[i]);
+            debounced[i] = machine.getCurrent();
+        }
+        return new PoseTimeline(timestamps, debounced);
+    }
+
+    /**
+     * @return runs of windows with the same pose, in order
+     */
+    public List<Segment> segments() {
+        if (poses.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= poses.length; i++) {
+            if (i == poses.length || poses[i] != poses[start]) {
+                segments.add(new Segment(poses[start], timestamps[start], timestamps[i - 1], i - start));
+                start = i;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * A run of windows classified as the same pose.
+     */
+    public static class Segment {
+
+        private final Pose pose;
+        private final long start;
+        private final long end;
+        private final int windows;
+
+        Segment(Pose pose, long start, long end, int windows) {
+            this.pose = pose;
+            this.start = start;
+            this.end = end;
+            this.windows = windows;
+        }
+
+        public Pose getPose() {
+            return pose;
+        }
+
+        /**
+         * @return the timestamp of the first window
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return the timestamp of the last window
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        public int getWindows() {
+            return windows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %d-%d (%d windows)", pose, start, end, windows);
+        }
+    }
+}
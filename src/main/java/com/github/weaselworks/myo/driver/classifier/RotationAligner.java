@@ -0,0 +1,108 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+import java.util.Arrays;
+
+/**
+ * Estimates how far the armband has been rotated around the arm from a short reference
+ * gesture. While the user holds the gesture the energy of every channel is summed, then the
+ * circular cross correlation of that energy against the gesture's energy in the training data
+ * is taken at every offset, and the best offset is the rotation. Done once per session, the
+ * rotation is then applied by the decoder as an index remap, see
+ * {@link com.github.weaselworks.myo.driver.EmgDecoder#setRotation(int)}.
+ *
+ * Fist works well as the reference, every pod is active but not equally.
+ */
+public class RotationAligner {
+
+    private final float[] template;
+    private final double[] energy;
+    private int windows;
+
+    /**
+     * @param template energy of every channel during the reference gesture, as trained
+     */
+    public RotationAligner(float[] template) {
+        if (template.length < 2) throw new IllegalArgumentException("Need at least two channels");
+        this.template = template.clone();
+        this.energy = new double[template.length];
+    }
+
+    /**
+     * @return an aligner for the pose, with the mean of the pose's rows as the template
+     */
+    public static RotationAligner forPose(GestureDataset dataset, Pose reference) {
+        float[] template = new float[dataset.getDimensions()];
+        int rows = 0;
+        for (int r = 0; r < dataset.size(); r++) {
+            if (dataset.getPose(r) == reference) {
+                for (int d = 0; d < template.length; d++) {
+                    template[d] += dataset.get(r, d);
+                }
+                rows++;
+            }
+        }
+        if (rows == 0) throw new IllegalArgumentException("No rows of " + reference + " to align against");
+        for (int d = 0; d < template.length; d++) {
+            template[d] /= rows;
+        }
+        return new RotationAligner(template);
+    }
+
+    /**
+     * Adds the mean absolute value of every channel over one window of the reference gesture.
+     */
+    public synchronized void add(float[] amplitudes) {
+        for (int i = 0; i < energy.length; i++) {
+            energy[i] += amplitudes[i];
+        }
+        windows++;
+    }
+
+    public synchronized int getWindows() {
+        return windows;
+    }
+
+    /**
+     * @return the rotation r for which channel i of the armband best matches channel i + r of the template
+     * @throws IllegalStateException if no windows were added
+     */
+    public synchronized int estimate() {
+        if (windows == 0) throw new IllegalStateException("No windows of the reference gesture yet");
+        return bestOffset(template, energy);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(energy, 0);
+        windows = 0;
+    }
+
+    /**
+     * @return the offset r maximising the sum over i of template[i] * observed[(i + r) mod n], both mean centred
+     */
+    static int bestOffset(float[] template, double[] observed) {
+        int n = template.length;
+        double templateMean = 0;
+        double observedMean = 0;
+        for (int i = 0; i < n; i++) {
+            templateMean += template[i];
+            observedMean += observed[i];
+        }
+        templateMean /= n;
+        observedMean /= n;
+        int best = 0;
+        double bestCorrelation = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < n; r++) {
+            double correlation = 0;
+            for (int i = 0; i < n; i++) {
+                correlation += (template[i] - templateMean) * (observed[(i + r) % n] - observedMean);
+            }
+            if (correlation > bestCorrelation) {
+                bestCorrelation = correlation;
+                best = r;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.weaselworks.myo.driver.emulator;
+
+import com.github.weaselworks.myo.driver.BgapiPackets;
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.ImuFrame;
+import com.github.weaselworks.myo.driver.MyoApplication;
+import com.github.weaselworks.myo.driver.VirtualBgapiTransport;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+
+/**
+ * An in process BLED112 with virtual Myos in range. It answers the commands the driver sends:
+ * scans report every armband, connect_direct connects, read_by_handle reads the firmware
+ * version, attribute writes are acknowledged and completed, and disconnect disconnects. Once
+ * EMG notifications are enabled a connected armband streams synthetic EMG, see
+ * {@link VirtualMyo}, and once IMU notifications or the sensor settings are written it streams
+ * IMU too. Rates are scaled by the speed, so the driver can be loaded at several times the
+ * traffic of real armbands.
+ *
+ * Selected with {@code -Dmyo.serial.port=Emulator}, configured with {@link #DEVICES_PROPERTY}
+ * and {@link #SPEED_PROPERTY}, or over any transport with
+ * {@link com.github.weaselworks.myo.driver.BluetoothClientFactory#forTransport}.
+ */
+public class Bled112Emulator extends VirtualBgapiTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(Bled112Emulator.class);
+
+    public static final String DEVICES_PROPERTY = "myo.emulator.devices";
+    public static final String SPEED_PROPERTY = "myo.emulator.speed";
+
+    public static final int DEFAULT_EMG_RATE = 200;
+    public static final int DEFAULT_IMU_RATE = 50;
+    public static final long DEFAULT_HOLD_MILLIS = 2000;
+
+    // the driver reads the version from 0x17, the Myo's version characteristic is u16 major, minor, patch, hardware revision
+    static final int VERSION_HANDLE = 0x17;
+    private static final byte[] FIRMWARE_VERSION = {1, 0, 5, 0, 0x6E, 0x03, 2, 0};
+    private static final byte[] SCAN_DATA = "Myo".getBytes();
+
+    private static final int ERROR_INVALID_PARAMETER = 0x0180;
+    private static final int ERROR_INVALID_HANDLE = 0x0401;
+    private static final int LOCAL_HOST_TERMINATED = 0x0216;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final List<VirtualMyo> devices;
+    private final long emgPeriod;
+    private final long imuPeriod;
+    private final AtomicLong notifications = new AtomicLong();
+
+    public Bled112Emulator(int devices) throws IOException {
+        this(devices, DEFAULT_EMG_RATE, DEFAULT_IMU_RATE, 1.0);
+    }
+
+    /**
+     * @param emgRate EMG samples a second per armband, before scaling
+     * @param imuRate IMU frames a second per armband, before scaling
+     * @param speed   multiplies both rates
+     */
+    public Bled112Emulator(int devices, int emgRate, int imuRate, double speed) throws IOException {
+        super("bled112-emulator");
+        if (devices < 1 || devices > 255) throw new IllegalArgumentException("Between 1 and 255 armbands, was " + devices);
+        if (emgRate < 1 || imuRate < 1) throw new IllegalArgumentException("Rates must be positive");
+        if (!(speed > 0)) throw new IllegalArgumentException("Speed must be positive, was " + speed);
+        this.emgPeriod = (long) (TimeUnit.SECONDS.toNanos(1) / (emgRate * speed));
+        this.imuPeriod = (long) (TimeUnit.SECONDS.toNanos(1) / (imuRate * speed));
+        float[][] templates = VirtualMyo.templates(GestureDataset.loadDefault());
+        long holdSamples = emgRate * DEFAULT_HOLD_MILLIS / 1000;
+        List<VirtualMyo> myos = new ArrayList<>();
+        for (int i = 0; i < devices; i++) {
+            myos.add(new VirtualMyo(String.format("e0:00:00:00:00:%02x", i + 1), templates, holdSamples, i));
+        }
+        this.devices = Collections.unmodifiableList(myos);
+    }
+
+    /**
+     * @return an emulator configured by {@link #DEVICES_PROPERTY} and {@link #SPEED_PROPERTY}, one armband at real speed by default
+     */
+    public static Bled112Emulator fromSystemProperties() {
+        int devices = Integer.getInteger(DEVICES_PROPERTY, 1);
+        double speed = Double.parseDouble(System.getProperty(SPEED_PROPERTY, "1"));
+        try {
+            return new Bled112Emulator(devices, DEFAULT_EMG_RATE, DEFAULT_IMU_RATE, speed);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start the emulator", e);
+        }
+    }
+
+    public List<VirtualMyo> getDevices() {
+        return devices;
+    }
+
+    /**
+     * @return the EMG and IMU notifications sent so far
+     */
+    public long getNotifications() {
+        return notifications.get();
+    }
+
+    @Override
+    protected void produce() throws IOException, InterruptedException {
+        byte[] emg = new byte[EmgDecoder.PAYLOAD_LENGTH];
+        byte[] imu = new byte[ImuFrame.PAYLOAD_LENGTH];
+        while (isRunning()) {
+            long now = System.nanoTime();
+            VirtualMyo due = null;
+            boolean dueEmg = false;
+            long deadline = now + IDLE_NANOS;
+            for (VirtualMyo device : devices) {
+                boolean connected = device.connection >= 0;
+                // start streams from now, and never try to catch up more than a second
+                device.nextEmg = !(connected && device.emgEnabled) ? 0 : Math.max(device.nextEmg == 0 ? now : device.nextEmg, now - TimeUnit.SECONDS.toNanos(1));
+                device.nextImu = !(connected && device.imuEnabled) ? 0 : Math.max(device.nextImu == 0 ? now : device.nextImu, now - TimeUnit.SECONDS.toNanos(1));
+                if (device.nextEmg != 0 && device.nextEmg < deadline) {
+                    deadline = device.nextEmg;
+                    due = device;
+                    dueEmg = true;
+                }
+                if (device.nextImu != 0 && device.nextImu < deadline) {
+                    deadline = device.nextImu;
+                    due = device;
+                    dueEmg = false;
+                }
+            }
+            waitUntil(deadline);
+            if (due == null || due.connection < 0) {
+                continue;
+            }
+            if (dueEmg) {
+                due.emg(emg);
+                emit(BgapiPackets.attributeValue(due.connection, MyoApplication.EMG_VALUE, 1, emg, 0, emg.length));
+                due.nextEmg += emgPeriod;
+            } else {
+                due.imu(imu);
+                emit(BgapiPackets.attributeValue(due.connection, MyoApplication.IMU_VALUE, 1, imu, 0, imu.length));
+                due.nextImu += imuPeriod;
+            }
+            notifications.incrementAndGet();
+        }
+    }
+
+    @Override
+    protected void onCommand(int classId, int commandId, ByteBuffer payload) {
+        switch (classId << 8 | commandId) {
+            case CLASS_SYSTEM << 8 | SYSTEM_GET_INFO:
+                respond(BgapiPackets.systemInfoResponse(1, 3, 1, 143, 3, 1, 1));
+                break;
+            case CLASS_GAP << 8 | GAP_SET_SCAN_PARAMETERS:
+            case CLASS_GAP << 8 | GAP_END_PROCEDURE:
+            case CLASS_GAP << 8 | GAP_SET_MODE:
+                respond(BgapiPackets.resultResponse(classId, commandId, 0));
+                break;
+            case CLASS_GAP << 8 | GAP_DISCOVER:
+                respond(BgapiPackets.resultResponse(classId, commandId, 0));
+                for (VirtualMyo device : devices) {
+                    if (device.connection < 0) {
+                        respond(BgapiPackets.scanResponse(-60, device.getAddress(), SCAN_DATA));
+                    }
+                }
+                break;
+            case CLASS_GAP << 8 | GAP_CONNECT_DIRECT:
+                connect(BgapiPackets.address(payload, 0));
+                break;
+            case CLASS_CONNECTION << 8 | CONNECTION_DISCONNECT:
+                disconnect(uint8(payload, 0));
+                break;
+            case CLASS_ATTCLIENT << 8 | ATTCLIENT_READ_BY_HANDLE:
+                read(uint8(payload, 0), uint16(payload, 1));
+                break;
+            case CLASS_ATTCLIENT << 8 | ATTCLIENT_ATTRIBUTE_WRITE:
+                super.onCommand(classId, commandId, payload);
+                written(uint8(payload, 0), uint16(payload, 1), uint8(payload, 3) > 0 ? uint8(payload, 4) : 0);
+                break;
+            case CLASS_ATTCLIENT << 8 | ATTCLIENT_WRITE_COMMAND:
+                respond(BgapiPackets.connectionResponse(classId, commandId, uint8(payload, 0), 0));
+                written(uint8(payload, 0), uint16(payload, 1), uint8(payload, 3) > 0 ? uint8(payload, 4) : 0);
+                break;
+            default:
+                logger.debug("Ignoring command {}/{}", classId, commandId);
+        }
+    }
+
+    private void connect(String address) {
+        for (int i = 0; i < devices.size(); i++) {
+            VirtualMyo device = devices.get(i);
+            if (device.getAddress().equals(address) && device.connection < 0) {
+                respond(BgapiPackets.connectDirectResponse(0, i));
+                respond(BgapiPackets.connectionStatus(i, address));
+                device.connection = i;
+                return;
+            }
+        }
+        logger.warn("No free virtual armband at {}", address);
+        respond(BgapiPackets.connectDirectResponse(ERROR_INVALID_PARAMETER, 0));
+    }
+
+    private void disconnect(int connection) {
+        VirtualMyo device = connected(connection);
+        respond(BgapiPackets.disconnectResponse(connection, device == null ? ERROR_INVALID_PARAMETER : 0));
+        if (device != null) {
+            device.connection = -1;
+            device.emgEnabled = false;
+            device.imuEnabled = false;
+            respond(BgapiPackets.disconnected(connection, LOCAL_HOST_TERMINATED));
+        }
+    }
+
+    private void read(int connection, int handle) {
+        VirtualMyo device = connected(connection);
+        respond(BgapiPackets.connectionResponse(CLASS_ATTCLIENT, ATTCLIENT_READ_BY_HANDLE, connection, device == null ? ERROR_INVALID_PARAMETER : 0));
+        if (device == null) {
+            return;
+        }
+        if (handle == VERSION_HANDLE || handle == MyoApplication.FIRMWARE) {
+            respond(BgapiPackets.attributeValue(connection, handle, 0, FIRMWARE_VERSION, 0, FIRMWARE_VERSION.length));
+        } else {
+            respond(BgapiPackets.procedureCompleted(connection, ERROR_INVALID_HANDLE, handle));
+        }
+    }
+
+    private void written(int connection, int handle, int first) {
+        VirtualMyo device = connected(connection);
+        if (device == null) {
+            return;
+        }
+        switch (handle) {
+            case MyoApplication.EMG:
+                device.emgEnabled = (first & 0x01) != 0;
+                break;
+            case MyoApplication.IMU:
+                device.imuEnabled = (first & 0x01) != 0;
+                break;
+            case MyoApplication.MYO_SENSOR_SETTINGS:
+                device.imuEnabled = true;
+                break;
+            default:
+        }
+    }
+
+    private VirtualMyo connected(int connection) {
+        return connection < devices.size() && devices.get(connection).connection == connection ? devices.get(connection) : null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.weaselworks.myo.driver.emulator;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.ImuFrame;
+import com.github.weaselworks.myo.driver.Pose;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+
+import java.util.Random;
+
+/**
+ * One armband of a {@link Bled112Emulator}. It cycles through the known poses, holding each
+ * for a while with rest in between, and generates EMG whose mean absolute value per channel
+ * matches the pose in the training data, so the classifier recognises what it plays.
+ */
+public class VirtualMyo {
+
+    private final String address;
+    private final float[][] amplitudes;
+    private final Pose[] poses;
+    private final long holdSamples;
+    private final Random random;
+
+    volatile int connection = -1;
+    volatile boolean emgEnabled;
+    volatile boolean imuEnabled;
+    long nextEmg;
+    long nextImu;
+    private long sample;
+
+    /**
+     * @param templates per channel amplitude of every pose, indexed by {@link Pose#ordinal()}
+     * @param holdSamples for how many EMG samples each pose, and the rest after it, is held
+     */
+    VirtualMyo(String address, float[][] templates, long holdSamples, long seed) {
+        this.address = address;
+        this.amplitudes = templates;
+        this.holdSamples = holdSamples;
+        this.random = new Random(seed);
+        int known = 0;
+        for (Pose pose : Pose.values()) {
+            if (pose.isKnownPose() && templates[pose.ordinal()] != null) known++;
+        }
+        poses = new Pose[known * 2];
+        int i = 0;
+        for (Pose pose : Pose.values()) {
+            if (pose.isKnownPose() && templates[pose.ordinal()] != null) {
+                poses[i++] = pose;
+                poses[i++] = Pose.UNKNOWN;
+            }
+        }
+    }
+
+    /**
+     * @return the mean row of every pose in the dataset, indexed by {@link Pose#ordinal()}, null for poses without rows
+     */
+    static float[][] templates(GestureDataset dataset) {
+        float[][] templates = new float[Pose.values().length][];
+        int[] rows = new int[templates.length];
+        for (int r = 0; r < dataset.size(); r++) {
+            int pose = dataset.getPose(r).ordinal();
+            if (templates[pose] == null) {
+                templates[pose] = new float[dataset.getDimensions()];
+            }
+            for (int d = 0; d < dataset.getDimensions(); d++) {
+                templates[pose][d] += dataset.get(r, d);
+            }
+            rows[pose]++;
+        }
+        for (int pose = 0; pose < templates.length; pose++) {
+            if (templates[pose] != null) {
+                for (int d = 0; d < templates[pose].length; d++) {
+                    templates[pose][d] /= rows[pose];
+                }
+            }
+        }
+        return templates;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * @return the connection handle, -1 while disconnected
+     */
+    public int getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return the pose the next EMG sample is played for
+     */
+    public Pose getPose() {
+        return poses.length == 0 ? Pose.UNKNOWN : poses[(int) ((sample / holdSamples) % poses.length)];
+    }
+
+    /**
+     * Fills the 16 byte EMG notification with the next sample.
+     */
+    void emg(byte[] payload) {
+        float[] amplitude = amplitudes[getPose().ordinal()];
+        for (int ch = 0; ch < EmgDecoder.CHANNELS; ch++) {
+            // uniform on [-2m, 2m] has a mean absolute value of m
+            float mean = amplitude == null ? 0 : amplitude[ch];
+            int value = Math.round((random.nextFloat() * 4 - 2) * mean);
+            value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            payload[2 * ch] = (byte) value;
+            payload[2 * ch + 1] = (byte) (value >> 8);
+        }
+        sample++;
+    }
+
+    /**
+     * Fills the IMU notification, laid out as {@link ImuFrame} decodes it: a slow rotation
+     * about z at rest under gravity.
+     */
+    void imu(byte[] payload) {
+        double angle = sample * 0.001;
+        // orientation w, x, y, z
+        putShort(payload, 0, (int) (Math.cos(angle / 2) * ImuFrame.ORIENTATION_SCALE));
+        putShort(payload, 2, 0);
+        putShort(payload, 4, 0);
+        putShort(payload, 6, (int) (Math.sin(angle / 2) * ImuFrame.ORIENTATION_SCALE));
+        // accelerometer x, y, z
+        putShort(payload, 8, 0);
+        putShort(payload, 10, 0);
+        putShort(payload, 12, (int) ImuFrame.ACCELEROMETER_SCALE);
+        // gyroscope x, y, z
+        putShort(payload, 14, 0);
+        putShort(payload, 16, 0);
+        putShort(payload, 18, (int) (random.nextGaussian() * 16));
+    }
+
+    private static void putShort(byte[] payload, int offset, int value) {
+        payload[offset] = (byte) value;
+        payload[offset + 1] = (byte) (value >> 8);
+    }
+}
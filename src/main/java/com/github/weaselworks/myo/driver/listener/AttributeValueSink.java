@@ -0,0 +1,14 @@
+package com.github.weaselworks.myo.driver.listener;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives attribute values as views into the transport's receive buffer. The bytes between
+ * offset and offset + length are only valid during the call, read them with absolute gets and
+ * leave the buffer's position and limit alone.
+ */
+@FunctionalInterface
+public interface AttributeValueSink {
+
+    void onAttributeValue(int connection, int atthandle, int type, ByteBuffer buffer, int offset, int length);
+}
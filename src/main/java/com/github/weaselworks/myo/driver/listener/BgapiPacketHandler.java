@@ -0,0 +1,14 @@
+package com.github.weaselworks.myo.driver.listener;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Handles one kind of BGAPI packet, see {@code BgapiEventDispatcher}. The payload is a view into
+ * the transport's receive buffer and is only valid during the call, read it with absolute gets
+ * and leave the buffer's position and limit alone.
+ */
+@FunctionalInterface
+public interface BgapiPacketHandler {
+
+    void onPacket(ByteBuffer buffer, int payloadOffset, int payloadLength);
+}
@@ -0,0 +1,29 @@
+package com.github.weaselworks.myo.driver.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Adapts the original boxed {@code Consumer<List<Integer>>} EMG callback onto the primitive
+ * {@link EmgSampleSink}. Every sample is copied into a fresh list, so only use this where
+ * the allocation doesn't matter.
+ */
+public class EmgConsumerAdapter implements EmgSampleSink {
+
+    private final Consumer<List<Integer>> consumer;
+
+    public EmgConsumerAdapter(Consumer<List<Integer>> consumer) {
+        if (consumer == null) throw new IllegalArgumentException("Cannot adapt a null consumer");
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onEmg(long timestamp, short[] channels) {
+        List<Integer> values = new ArrayList<>(channels.length);
+        for (short channel : channels) {
+            values.add((int) channel);
+        }
+        consumer.accept(values);
+    }
+}
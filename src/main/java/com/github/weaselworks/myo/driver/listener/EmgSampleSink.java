@@ -0,0 +1,11 @@
+package com.github.weaselworks.myo.driver.listener;
+
+/**
+ * Receives decoded EMG samples without any boxing. The channel array is owned by the
+ * decoder and is overwritten by the next sample, so copy it if it has to outlive the call.
+ */
+@FunctionalInterface
+public interface EmgSampleSink {
+
+    void onEmg(long timestamp, short[] channels);
+}
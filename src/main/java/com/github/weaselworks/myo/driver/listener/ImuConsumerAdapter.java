@@ -0,0 +1,25 @@
+package com.github.weaselworks.myo.driver.listener;
+
+import com.github.weaselworks.myo.driver.ImuFrame;
+
+import java.util.function.Consumer;
+
+/**
+ * Adapts the original boxed {@code Consumer<Integer[]>} IMU callback (gx, gy, gz, ax, ay, az)
+ * onto {@link ImuFrameListener}. Allocates an array per frame.
+ */
+public class ImuConsumerAdapter implements ImuFrameListener {
+
+    private final Consumer<Integer[]> consumer;
+
+    public ImuConsumerAdapter(Consumer<Integer[]> consumer) {
+        if (consumer == null) throw new IllegalArgumentException("Cannot adapt a null consumer");
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onImu(ImuFrame frame) {
+        consumer.accept(new Integer[]{(int) frame.getGyroX(), (int) frame.getGyroY(), (int) frame.getGyroZ(),
+                (int) frame.getAccelX(), (int) frame.getAccelY(), (int) frame.getAccelZ()});
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.weaselworks.myo.driver.listener;
+
+import com.github.weaselworks.myo.driver.ImuFrame;
+
+/**
+ * Receives decoded IMU frames without boxing. The frame is reused for the next packet,
+ * so read the values inside the callback.
+ */
+@FunctionalInterface
+public interface ImuFrameListener {
+
+    void onImu(ImuFrame frame);
+}
@@ -0,0 +1,13 @@
+package com.github.weaselworks.myo.driver.listener;
+
+import com.github.weaselworks.myo.driver.Pose;
+
+/**
+ * Receives debounced pose changes. Entering a pose is a transition from {@link Pose#UNKNOWN},
+ * releasing it a transition back to it.
+ */
+@FunctionalInterface
+public interface PoseTransitionListener {
+
+    void onPoseTransition(long timestamp, Pose from, Pose to);
+}
@@ -0,0 +1,69 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One {@link LatencyHistogram} for every {@link LatencyStage} of a connection.
+ */
+public class ConnectionLatency implements ConnectionLatencyMXBean {
+
+    private final int connection;
+    private final String address;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[LatencyStage.STAGES.length];
+
+    public ConnectionLatency(int connection, String address) {
+        this.connection = connection;
+        this.address = address;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records that the stage was passed, given when the packet was read.
+     */
+    public void record(LatencyStage stage, long readNanos, long nowNanos) {
+        histograms[stage.ordinal()].record(nowNanos - readNanos);
+    }
+
+    public LatencyHistogram get(LatencyStage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    @Override
+    public int getConnection() {
+        return connection;
+    }
+
+    @Override
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public List<LatencySummary> getStages() {
+        List<LatencySummary> stages = new ArrayList<>(histograms.length);
+        for (LatencyStage stage : LatencyStage.STAGES) {
+            stages.add(get(stage).summarise(stage.name()));
+        }
+        return stages;
+    }
+
+    @Override
+    public LatencySummary getEndToEnd() {
+        return get(LatencyStage.CALLBACK).summarise(LatencyStage.CALLBACK.name());
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionLatency[%d %s]", connection, address);
+    }
+}
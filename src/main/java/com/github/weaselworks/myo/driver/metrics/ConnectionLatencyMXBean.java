@@ -0,0 +1,26 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+import java.util.List;
+
+/**
+ * Latency percentiles of one connection, registered by {@link LatencyMetrics} while the
+ * connection is open.
+ */
+public interface ConnectionLatencyMXBean {
+
+    int getConnection();
+
+    String getAddress();
+
+    /**
+     * @return a summary for every {@link LatencyStage}, in pipeline order
+     */
+    List<LatencySummary> getStages();
+
+    /**
+     * @return the summary of {@link LatencyStage#CALLBACK}, serial port to pose callback
+     */
+    LatencySummary getEndToEnd();
+
+    void reset();
+}
@@ -0,0 +1,141 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, laid out like an HDR histogram: values
+ * below 64 get a bucket each, above that every power of two is split into 32 linear buckets,
+ * so any value is reported within about 3% of what was recorded. The buckets are a fixed
+ * array sized when the histogram is created, recording is a few atomic increments and never
+ * allocates, so it can run for every packet on the reader thread.
+ *
+ * Queries read the live counts while recording goes on and are meant for polling, not for
+ * the hot path.
+ */
+public class LatencyHistogram {
+
+    // 32 linear sub buckets per power of two
+    static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+
+    /**
+     * Larger values, about 68 seconds, are counted as this one.
+     */
+    public static final long HIGHEST_TRACKABLE = (1L << MAX_EXPONENT) - 1;
+
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(HIGHEST_TRACKABLE, nanos));
+        counts.incrementAndGet(bucketOf(value));
+        total.addAndGet(value);
+        long highest;
+        while (value > (highest = max.get()) && !max.compareAndSet(highest, value)) {
+            // lost a race with another writer, check again
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return the mean of the recorded values, 0 if nothing was recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.get() / count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value in the bucket holding the percentile, never more than the
+     *         largest recorded value, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Percentile must be between 0 and 100, was " + percentile);
+        return valueAtPercentile(snapshotCounts(), percentile, max.get());
+    }
+
+    /**
+     * Clears the histogram. Values recorded while it is being cleared may survive or be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return the summary of the histogram as it is now, every percentile taken from the same counts
+     */
+    public LatencySummary summarise(String stage) {
+        long[] snapshot = snapshotCounts();
+        long highest = max.get();
+        long count = 0;
+        for (long bucket : snapshot) {
+            count += bucket;
+        }
+        return new LatencySummary(stage, count, count == 0 ? 0 : (double) total.get() / count,
+                valueAtPercentile(snapshot, 50, highest), valueAtPercentile(snapshot, 90, highest),
+                valueAtPercentile(snapshot, 99, highest), valueAtPercentile(snapshot, 99.9, highest), highest);
+    }
+
+    private long[] snapshotCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    private static long valueAtPercentile(long[] snapshot, double percentile, long max) {
+        long count = 0;
+        for (long bucket : snapshot) {
+            count += bucket;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // the top six bits pick the bucket, every bit below them doubles its width
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long highestEquivalentValue(int bucket) {
+        int shift = Math.max(0, (bucket >> SUB_BUCKET_BITS) - 1);
+        long lowest = (long) (bucket - (shift << SUB_BUCKET_BITS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency histograms of every open connection of one dongle. Poll them through
+ * {@link #get(int)}, or pass an MBean server and each connection is registered as
+ * {@code com.github.weaselworks.myo:type=Latency,dongle=...,connection=...} while it is open.
+ */
+public class LatencyMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyMetrics.class);
+
+    public static final String DOMAIN = "com.github.weaselworks.myo";
+
+    private final ConcurrentMap<Integer, ConnectionLatency> connections = new ConcurrentHashMap<>();
+    private final MBeanServer server;
+    private final String dongle;
+
+    /**
+     * Histograms that are only polled, nothing is registered.
+     */
+    public LatencyMetrics() {
+        this(null, null);
+    }
+
+    /**
+     * @param server where connections are registered, null to only poll them
+     * @param dongle tells dongles in the same JVM apart, e.g. the serial port name
+     */
+    public LatencyMetrics(MBeanServer server, String dongle) {
+        this.server = server;
+        this.dongle = dongle == null ? "default" : dongle;
+    }
+
+    /**
+     * Starts fresh histograms for the connection, replacing those of a connection the dongle
+     * never reported as closed.
+     */
+    public ConnectionLatency open(int connection, String address) {
+        ConnectionLatency latency = new ConnectionLatency(connection, address);
+        ConnectionLatency previous = connections.put(connection, latency);
+        if (previous != null) {
+            unregister(previous);
+        }
+        register(latency);
+        return latency;
+    }
+
+    public ConnectionLatency close(int connection) {
+        ConnectionLatency latency = connections.remove(connection);
+        if (latency != null) {
+            unregister(latency);
+        }
+        return latency;
+    }
+
+    /**
+     * @return the histograms of the connection, null if it isn't open
+     */
+    public ConnectionLatency get(int connection) {
+        return connections.get(connection);
+    }
+
+    public List<ConnectionLatency> connections() {
+        return new ArrayList<>(connections.values());
+    }
+
+    /**
+     * Closes every connection, unregistering them.
+     */
+    public void shutdown() {
+        for (Integer connection : connections.keySet()) {
+            close(connection);
+        }
+    }
+
+    ObjectName objectName(ConnectionLatency latency) throws JMException {
+        return new ObjectName(String.format("%s:type=Latency,dongle=%s,connection=%d",
+                DOMAIN, ObjectName.quote(dongle), latency.getConnection()));
+    }
+
+    private void register(ConnectionLatency latency) {
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName name = objectName(latency);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(latency, name);
+        } catch (JMException e) {
+            logger.warn("Unable to register the latency of " + latency, e);
+        }
+    }
+
+    private void unregister(ConnectionLatency latency) {
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName name = objectName(latency);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Unable to unregister the latency of " + latency, e);
+        }
+    }
+}
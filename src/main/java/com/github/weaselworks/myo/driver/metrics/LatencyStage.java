@@ -0,0 +1,28 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+/**
+ * Checkpoints on the way from the serial port to the pose callback. Every stage records how
+ * long after the packet was read it was passed, so the stage where the percentiles jump is
+ * the one that costs the time, and {@link #CALLBACK} is the latency a user feels.
+ *
+ * The packet is read when the zero copy transport's read returned it. Over bglib the reading
+ * can't be observed, so the time starts when the packet reaches the application and
+ * {@link #RECEIVE} isn't recorded.
+ */
+public enum LatencyStage {
+
+    /** the packet reached the application */
+    RECEIVE,
+    /** the session picked the packet up, after the event ring if there is one */
+    DISPATCH,
+    /** the EMG or IMU values were decoded */
+    DECODE,
+    /** the EMG sample was added to the feature window */
+    FEATURE,
+    /** the classifier ran on a completed window */
+    CLASSIFY,
+    /** the pose callbacks returned, recorded only for windows that changed the pose */
+    CALLBACK;
+
+    static final LatencyStage[] STAGES = values();
+}
@@ -0,0 +1,68 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Percentiles of one stage's histogram at the time it was polled, all in nanoseconds.
+ */
+public class LatencySummary {
+
+    private final String stage;
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    @ConstructorProperties({"stage", "count", "mean", "p50", "p90", "p99", "p999", "max"})
+    public LatencySummary(String stage, long count, double mean, long p50, long p90, long p99, long p999, long max) {
+        this.stage = stage;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d mean=%.0fns p50=%dns p90=%dns p99=%dns p99.9=%dns max=%dns",
+                stage, count, mean, p50, p90, p99, p999, max);
+    }
+}
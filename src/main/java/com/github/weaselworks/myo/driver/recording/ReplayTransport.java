@@ -0,0 +1,98 @@
+package com.github.weaselworks.myo.driver.recording;
+
+import com.github.weaselworks.myo.driver.BgapiPackets;
+import com.github.weaselworks.myo.driver.VirtualBgapiTransport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Plays a {@link SessionRecorder} log back through bglib as if it came from the dongle, so a
+ * {@link com.github.weaselworks.myo.driver.MyoApplication} on top decodes and classifies it
+ * exactly as it did live. Records are paced by their recorded timestamps divided by the speed:
+ * {@link #REAL_TIME}, any other factor, or {@link #AS_FAST_AS_POSSIBLE}.
+ *
+ * Connects are replayed as connect_direct responses followed by a connection status, so a
+ * session opens for the recorded connection. A log that starts in the middle of a session gets
+ * a connect before the first value of each connection.
+ *
+ * <pre>
+ * ReplayTransport replay = new ReplayTransport(SessionLogReader.segments(directory, "session"), ReplayTransport.REAL_TIME);
+ * MyoApplication myo = new MyoApplication(BluetoothClientFactory.forTransport("replay", replay), classifier);
+ * myo.start();
+ * replay.start();
+ * </pre>
+ */
+public class ReplayTransport extends VirtualBgapiTransport {
+
+    public static final double REAL_TIME = 1.0;
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final List<Path> segments;
+    private final double speed;
+    private volatile long replayed;
+
+    /**
+     * @param speed how many times faster than recorded to replay
+     */
+    public ReplayTransport(List<Path> segments, double speed) throws IOException {
+        super("replay");
+        if (!(speed > 0)) throw new IllegalArgumentException("Speed must be positive, was " + speed);
+        this.segments = new ArrayList<>(segments);
+        this.speed = speed;
+    }
+
+    /**
+     * @return the records replayed so far
+     */
+    public long getReplayed() {
+        return replayed;
+    }
+
+    @Override
+    protected void produce() throws IOException, InterruptedException {
+        SessionLogReader reader = new SessionLogReader(segments);
+        BitSet connected = new BitSet();
+        long first = 0;
+        long started = 0;
+        boolean paced = speed != AS_FAST_AS_POSSIBLE;
+        while (isRunning() && reader.next()) {
+            if (replayed == 0) {
+                first = reader.getTimestamp();
+                started = System.nanoTime();
+            } else if (paced) {
+                waitUntil(started + (long) ((reader.getTimestamp() - first) / speed));
+            }
+            int connection = reader.getConnection();
+            switch (reader.getType()) {
+                case SessionRecorder.CONNECTED:
+                    connect(connection, reader.getAddress());
+                    connected.set(connection);
+                    break;
+                case SessionRecorder.DISCONNECTED:
+                    emit(BgapiPackets.disconnected(connection, reader.getHandle()));
+                    connected.clear(connection);
+                    break;
+                case SessionRecorder.ATTRIBUTE_VALUE:
+                    if (!connected.get(connection)) {
+                        connect(connection, null);
+                        connected.set(connection);
+                    }
+                    byte[] value = reader.getPayloadBytes();
+                    emit(BgapiPackets.attributeValue(connection, reader.getHandle(), 1, value, 0, value.length));
+                    break;
+                default:
+                    // written by a newer recorder, nothing to replay
+            }
+            replayed++;
+        }
+    }
+
+    private void connect(int connection, String address) throws IOException {
+        emit(BgapiPackets.connectDirectResponse(0, connection));
+        emit(BgapiPackets.connectionStatus(connection, address));
+    }
+}
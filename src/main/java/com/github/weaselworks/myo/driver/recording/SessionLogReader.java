@@ -0,0 +1,154 @@
+package com.github.weaselworks.myo.driver.recording;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads back the records of a {@link SessionRecorder} log, segment after segment, by memory
+ * mapping each segment in turn. Call {@link #next()} to move to the next record, then read its
+ * fields. Payloads are views of the mapping, valid until the next call to {@link #next()}.
+ */
+public class SessionLogReader {
+
+    private final List<Path> segments;
+    private int nextSegment;
+    private ByteBuffer in;
+
+    private int type;
+    private long timestamp;
+    private int connection;
+    private int handle;
+    private ByteBuffer payload;
+
+    public SessionLogReader(List<Path> segments) {
+        this.segments = new ArrayList<>(segments);
+    }
+
+    /**
+     * @return the segments of the named log in the directory, in order
+     */
+    public static List<Path> segments(Path directory, String name) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-[0-9]*" + SessionRecorder.SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false once every segment has been read
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (in != null && in.remaining() >= SessionRecorder.RECORD_HEADER_LENGTH) {
+                long timestamp = in.getLong();
+                int type = in.get() & 0xFF;
+                if (type != 0) {
+                    int connection = in.get() & 0xFF;
+                    int handle = in.getShort() & 0xFFFF;
+                    int length = in.getShort() & 0xFFFF;
+                    in.getShort();
+                    if (length > in.remaining()) {
+                        throw new IOException(String.format("Record at %d of %s runs past the end", in.position(), segments.get(nextSegment - 1)));
+                    }
+                    this.timestamp = timestamp;
+                    this.type = type;
+                    this.connection = connection;
+                    this.handle = handle;
+                    ByteBuffer view = in.slice();
+                    view.limit(length);
+                    this.payload = view.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                    in.position(in.position() + length);
+                    return true;
+                }
+            }
+            if (nextSegment == segments.size()) {
+                in = null;
+                return false;
+            }
+            in = map(segments.get(nextSegment++));
+        }
+    }
+
+    /**
+     * @return {@link SessionRecorder#ATTRIBUTE_VALUE}, {@link SessionRecorder#CONNECTED} or {@link SessionRecorder#DISCONNECTED}
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} the record was received at
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return the attribute handle, or the reason of a disconnect
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    public int getLength() {
+        return payload.limit();
+    }
+
+    /**
+     * @return a read only view of the payload, valid until the next record
+     */
+    public ByteBuffer getPayload() {
+        return payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public byte[] getPayloadBytes() {
+        byte[] bytes = new byte[payload.limit()];
+        payload.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the armband address of a connect record, null if it was recorded without one
+     */
+    public String getAddress() {
+        return payload.limit() == 0 ? null : new String(getPayloadBytes(), StandardCharsets.US_ASCII);
+    }
+
+    private static ByteBuffer map(Path segment) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (mapped.remaining() < SessionRecorder.SEGMENT_HEADER_LENGTH || mapped.getInt() != SessionRecorder.MAGIC) {
+            throw new IOException(segment + " is not a session log");
+        }
+        int version = mapped.getInt();
+        if (version != SessionRecorder.VERSION) {
+            throw new IOException(String.format("%s has version %d, expected %d", segment, version, SessionRecorder.VERSION));
+        }
+        mapped.getInt();
+        mapped.getInt();
+        return mapped;
+    }
+}
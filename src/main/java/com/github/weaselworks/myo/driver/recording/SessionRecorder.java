@@ -0,0 +1,253 @@
+package com.github.weaselworks.myo.driver.recording;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Appends every attribute value received from the dongle, with connects and disconnects, to a
+ * binary log of memory mapped segment files. A segment is preallocated and mapped up front, so
+ * recording a value is a bounds check and a copy into the mapping; the next segment is mapped
+ * in the background once the current one is half full, so rolling over doesn't stall the
+ * reader thread either. All fields are little endian:
+ *
+ * <pre>
+ * segment     magic "MYOR", version i32, segment number i32, reserved i32, records..., zero padding
+ * record      nanoTime i64, type u8, connection u8, handle u16, length u16, reserved u16, payload
+ * </pre>
+ *
+ * A record type of zero marks the end of a segment. Segments are named name-00000.myor,
+ * name-00001.myor and so on, and truncated to their records when closed. Read them back with
+ * {@link SessionLogReader}.
+ */
+public class SessionRecorder implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRecorder.class);
+
+    public static final int MAGIC = 0x524F594D; // "MYOR" read little endian
+    public static final int VERSION = 1;
+    public static final int ATTRIBUTE_VALUE = 1;
+    public static final int CONNECTED = 2;
+    public static final int DISCONNECTED = 3;
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final String SUFFIX = ".myor";
+
+    static final int SEGMENT_HEADER_LENGTH = 16;
+    static final int RECORD_HEADER_LENGTH = 16;
+    static final int MAX_PAYLOAD = 0xFFFF;
+
+    private final Path directory;
+    private final String name;
+    private final long segmentSize;
+    private final List<Path> segmentFiles = new ArrayList<>();
+    private final ExecutorService preallocator = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "session-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Segment segment;
+    private CompletableFuture<Segment> nextSegment;
+    private long records;
+    private boolean closed;
+
+    public SessionRecorder(Path directory, String name) throws IOException {
+        this(directory, name, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize bytes per segment file, at most 2GB
+     */
+    public SessionRecorder(Path directory, String name, long segmentSize) throws IOException {
+        if (segmentSize < SEGMENT_HEADER_LENGTH + RECORD_HEADER_LENGTH + MAX_PAYLOAD || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 64KB and 2GB, was " + segmentSize);
+        }
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        segment = map(0);
+        segmentFiles.add(segment.file);
+    }
+
+    public void attributeValue(long timestamp, int connection, int handle, byte[] data) {
+        synchronized (this) {
+            ByteBuffer out = claim(ATTRIBUTE_VALUE, timestamp, connection, handle, data.length);
+            if (out != null) {
+                out.put(data);
+            }
+        }
+    }
+
+    /**
+     * Records the value at offset in the buffer, without moving the buffer's position.
+     */
+    public void attributeValue(long timestamp, int connection, int handle, ByteBuffer buffer, int offset, int length) {
+        synchronized (this) {
+            ByteBuffer out = claim(ATTRIBUTE_VALUE, timestamp, connection, handle, length);
+            if (out != null) {
+                for (int i = 0; i < length; i++) {
+                    out.put(buffer.get(offset + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param address the bluetooth address of the armband, stored as the payload
+     */
+    public void connected(long timestamp, int connection, String address) {
+        byte[] payload = address == null ? new byte[0] : address.getBytes(StandardCharsets.US_ASCII);
+        synchronized (this) {
+            ByteBuffer out = claim(CONNECTED, timestamp, connection, 0, payload.length);
+            if (out != null) {
+                out.put(payload);
+            }
+        }
+    }
+
+    /**
+     * @param reason the disconnect reason, stored in the handle field
+     */
+    public synchronized void disconnected(long timestamp, int connection, int reason) {
+        claim(DISCONNECTED, timestamp, connection, reason, 0);
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return the segment files written so far, in order
+     */
+    public synchronized List<Path> getSegmentFiles() {
+        return Collections.unmodifiableList(new ArrayList<>(segmentFiles));
+    }
+
+    /**
+     * Flushes the current segment and truncates it to its records.
+     */
+    @Override
+    public void close() throws IOException {
+        Segment last;
+        CompletableFuture<Segment> unused;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            last = segment;
+            unused = nextSegment;
+        }
+        preallocator.shutdown();
+        finish(last);
+        if (unused != null) {
+            try {
+                Files.deleteIfExists(unused.join().file);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to map the next segment of " + name, e);
+            }
+        }
+    }
+
+    // must hold the lock, returns the buffer positioned at the payload or null if closed
+    private ByteBuffer claim(int type, long timestamp, int connection, int handle, int length) {
+        if (closed) {
+            return null;
+        }
+        if (length > MAX_PAYLOAD) throw new IllegalArgumentException("Payload too long: " + length);
+        if (segment.buffer.remaining() < RECORD_HEADER_LENGTH + length) {
+            rollover();
+        } else if (nextSegment == null && segment.buffer.position() > segmentSize / 2) {
+            int number = segment.number + 1;
+            nextSegment = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return map(number);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, preallocator);
+        }
+        ByteBuffer out = segment.buffer;
+        out.putLong(timestamp);
+        out.put((byte) type);
+        out.put((byte) connection);
+        out.putShort((short) handle);
+        out.putShort((short) length);
+        out.putShort((short) 0);
+        records++;
+        return out;
+    }
+
+    // must hold the lock
+    private void rollover() {
+        Segment full = segment;
+        try {
+            segment = nextSegment != null ? nextSegment.join() : map(full.number + 1);
+        } catch (CompletionException e) {
+            throw new UncheckedIOException("Unable to start segment " + (full.number + 1) + " of " + name,
+                    e.getCause() instanceof UncheckedIOException ? ((UncheckedIOException) e.getCause()).getCause() : new IOException(e.getCause()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start segment " + (full.number + 1) + " of " + name, e);
+        }
+        nextSegment = null;
+        segmentFiles.add(segment.file);
+        preallocator.execute(() -> finish(full));
+    }
+
+    private Segment map(int number) throws IOException {
+        Path file = directory.resolve(String.format("%s-%05d%s", name, number, SUFFIX));
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        // touch every page now so the reader thread never takes the page fault
+        for (long page = 0; page < segmentSize; page += 4096) {
+            mapped.put((int) page, (byte) 0);
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        mapped.putInt(MAGIC).putInt(VERSION).putInt(number).putInt(0);
+        return new Segment(number, file, mapped);
+    }
+
+    private void finish(Segment full) {
+        int length = full.buffer.position();
+        full.buffer.force();
+        try (FileChannel channel = FileChannel.open(full.file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        } catch (IOException e) {
+            logger.warn("Unable to truncate " + full.file, e);
+        }
+    }
+
+    private static class Segment {
+        final int number;
+        final Path file;
+        final MappedByteBuffer buffer;
+
+        Segment(int number, Path file, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.weaselworks.myo.driver.ring;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pre-allocated ring slot holding one attribute value as the BGAPI reader thread received it.
+ * Slots are reused, so handlers must not keep a reference to the slot or its data.
+ */
+public class AttributeEvent {
+
+    private long timestamp;
+    private int connection;
+    private int handle;
+    private int length;
+    private byte[] data;
+
+    AttributeEvent(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    void set(long timestamp, int connection, int handle, byte[] value, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(value, offset, data, 0, length);
+        setHeader(timestamp, connection, handle, length);
+    }
+
+    void set(long timestamp, int connection, int handle, ByteBuffer value, int offset, int length) {
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            data[i] = value.get(offset + i);
+        }
+        setHeader(timestamp, connection, handle, length);
+    }
+
+    private void ensureCapacity(int length) {
+        if (length > data.length) {
+            // only unusually large attributes ever grow a slot
+            data = new byte[length];
+        }
+    }
+
+    private void setHeader(long timestamp, int connection, int handle, int length) {
+        this.timestamp = timestamp;
+        this.connection = connection;
+        this.handle = handle;
+        this.length = length;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getConnection() {
+        return connection;
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * @return the slot buffer, only the first {@link #getLength()} bytes are valid
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
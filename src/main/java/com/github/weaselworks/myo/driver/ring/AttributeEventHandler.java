@@ -0,0 +1,10 @@
+package com.github.weaselworks.myo.driver.ring;
+
+/**
+ * Consumes events from an {@link AttributeEventRing} on the consumer's own thread.
+ */
+@FunctionalInterface
+public interface AttributeEventHandler {
+
+    void onEvent(AttributeEvent event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,91 @@
+package com.github.weaselworks.myo.driver.ring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs one consumer of an {@link AttributeEventRing}: waits for published events with its
+ * wait strategy and hands them to the handler in batches.
+ */
+public class AttributeEventProcessor implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttributeEventProcessor.class);
+
+    private final AttributeEventRing ring;
+    private final AttributeEventHandler handler;
+    private final WaitStrategy waitStrategy;
+    private final Sequence sequence;
+    private volatile boolean halted = false;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    AttributeEventProcessor(AttributeEventRing ring, AttributeEventHandler handler, WaitStrategy waitStrategy, long start) {
+        this.ring = ring;
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+        this.sequence = new Sequence(start);
+    }
+
+    /**
+     * Runs the processor on a new daemon thread.
+     */
+    public synchronized void start(String threadName) {
+        if (thread != null) {
+            throw new IllegalStateException("Processor already started");
+        }
+        thread = new Thread(this, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the processor after the batch it is working on and removes it from the ring.
+     */
+    public synchronized void halt() {
+        halted = true;
+        ring.unsubscribe(this);
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        Sequence cursor = ring.getCursor();
+        long next = sequence.get() + 1;
+        while (!halted) {
+            long available;
+            try {
+                available = waitStrategy.waitFor(next, cursor);
+            } catch (InterruptedException e) {
+                if (halted) {
+                    break;
+                }
+                continue;
+            }
+            while (next <= available) {
+                try {
+                    handler.onEvent(ring.get(next), next, next == available);
+                } catch (RuntimeException e) {
+                    logger.error("Event handler failed", e);
+                }
+                next++;
+            }
+            sequence.set(next - 1);
+        }
+        running = false;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
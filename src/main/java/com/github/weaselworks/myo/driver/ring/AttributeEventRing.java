@@ -0,0 +1,164 @@
+package com.github.weaselworks.myo.driver.ring;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single producer, multi consumer ring of pre-allocated {@link AttributeEvent} slots in the
+ * style of the LMAX Disruptor. The BGAPI reader thread publishes every attribute value into
+ * the ring and each subscribed {@link AttributeEventProcessor} sees every event on its own
+ * thread, so slow user callbacks can no longer stall serial reads.
+ *
+ * The producer never waits: when the slowest consumer is a whole ring behind, the event is
+ * dropped and counted instead.
+ */
+public class AttributeEventRing {
+
+    public static final int DEFAULT_SIZE = 4096;
+    public static final int DEFAULT_SLOT_CAPACITY = 32;
+
+    private final AttributeEvent[] slots;
+    private final int mask;
+    private final Sequence cursor = new Sequence();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile AttributeEventProcessor[] processors = new AttributeEventProcessor[0];
+    private long cachedGatingSequence = Sequence.INITIAL_VALUE;
+
+    public AttributeEventRing() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size number of slots, must be a power of two
+     */
+    public AttributeEventRing(int size) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        this.slots = new AttributeEvent[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AttributeEvent(DEFAULT_SLOT_CAPACITY);
+        }
+    }
+
+    /**
+     * Adds a consumer which will see every event published from now on. Call
+     * {@link AttributeEventProcessor#start(String)} to run it.
+     */
+    public synchronized AttributeEventProcessor subscribe(AttributeEventHandler handler, WaitStrategy waitStrategy) {
+        AttributeEventProcessor processor = new AttributeEventProcessor(this, handler, waitStrategy, cursor.get());
+        AttributeEventProcessor[] current = processors;
+        AttributeEventProcessor[] updated = new AttributeEventProcessor[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = processor;
+        processors = updated;
+        return processor;
+    }
+
+    public synchronized void unsubscribe(AttributeEventProcessor processor) {
+        AttributeEventProcessor[] current = processors;
+        int index = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == processor) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            return;
+        }
+        AttributeEventProcessor[] updated = new AttributeEventProcessor[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        processors = updated;
+    }
+
+    public boolean tryPublish(long timestamp, int connection, int handle, byte[] value) {
+        return tryPublish(timestamp, connection, handle, value, 0, value.length);
+    }
+
+    /**
+     * Copies the value into the next slot and publishes it. Must only be called from the
+     * producer thread.
+     *
+     * @return false if the ring was full and the event was dropped
+     */
+    public boolean tryPublish(long timestamp, int connection, int handle, byte[] value, int offset, int length) {
+        long next = claim();
+        if (next < 0) {
+            return false;
+        }
+        slots[(int) next & mask].set(timestamp, connection, handle, value, offset, length);
+        publish(next);
+        return true;
+    }
+
+    /**
+     * Same as {@link #tryPublish(long, int, int, byte[], int, int)} but copies straight out of a
+     * transport buffer, without moving its position.
+     */
+    public boolean tryPublish(long timestamp, int connection, int handle, ByteBuffer value, int offset, int length) {
+        long next = claim();
+        if (next < 0) {
+            return false;
+        }
+        slots[(int) next & mask].set(timestamp, connection, handle, value, offset, length);
+        publish(next);
+        return true;
+    }
+
+    // the next free sequence, or -1 (counted as a drop) if the slowest consumer is a full ring behind
+    private long claim() {
+        long next = cursor.get() + 1;
+        long wrapPoint = next - slots.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum = minimumSequence(next - 1);
+            cachedGatingSequence = minimum;
+            if (wrapPoint > minimum) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+        }
+        return next;
+    }
+
+    private void publish(long sequence) {
+        cursor.set(sequence);
+        AttributeEventProcessor[] current = processors;
+        for (int i = 0; i < current.length; i++) {
+            current[i].getWaitStrategy().signalAllWhenBlocking();
+        }
+    }
+
+    AttributeEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    Sequence getCursor() {
+        return cursor;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getSize() {
+        return slots.length;
+    }
+
+    /**
+     * @return how many published events the slowest consumer still has to process
+     */
+    public long getBacklog() {
+        long published = cursor.get();
+        return published - minimumSequence(published);
+    }
+
+    private long minimumSequence(long minimum) {
+        AttributeEventProcessor[] current = processors;
+        for (int i = 0; i < current.length; i++) {
+            minimum = Math.min(minimum, current[i].getSequence().get());
+        }
+        return minimum;
+    }
+}
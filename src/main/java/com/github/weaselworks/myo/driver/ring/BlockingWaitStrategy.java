@@ -0,0 +1,52 @@
+package com.github.weaselworks.myo.driver.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocks on a condition until the producer signals. Uses no CPU while idle, but every publish
+ * takes a lock while a consumer is asleep, so prefer it for slow consumers only.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+    private static final long MAX_WAIT_MILLIS = 10;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private volatile boolean signalNeeded = false;
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor) throws InterruptedException {
+        long available = cursor.get();
+        if (available < sequence) {
+            lock.lock();
+            try {
+                while ((available = cursor.get()) < sequence) {
+                    signalNeeded = true;
+                    if (!published.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return cursor.get();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // a signal missed through the race with a consumer going to sleep only costs one bounded wait
+        if (!signalNeeded) {
+            return;
+        }
+        lock.lock();
+        try {
+            signalNeeded = false;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
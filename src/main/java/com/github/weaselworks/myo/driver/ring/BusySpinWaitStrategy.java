@@ -0,0 +1,24 @@
+package com.github.weaselworks.myo.driver.ring;
+
+/**
+ * Spins on the cursor. Lowest latency, but burns a core per consumer, only use it with
+ * consumers pinned to otherwise idle cores.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 10000;
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor) {
+        long available;
+        int counter = SPIN_TRIES;
+        while ((available = cursor.get()) < sequence && counter-- > 0) {
+            // spin
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.weaselworks.myo.driver.ring;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+class SequenceLhsPadding {
+    @SuppressWarnings("unused")
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+class SequenceRhsPadding extends SequenceValue {
+    @SuppressWarnings("unused")
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * A sequence counter padded on both sides so that the producer cursor and the consumer
+ * sequences don't share cache lines. The value is a volatile field between the paddings, the
+ * JVM lays out superclass fields first so the padding can't be reordered away from it. Reads
+ * are volatile, {@link #set(long)} is an ordered store through a field updater.
+ */
+public class Sequence extends SequenceRhsPadding {
+
+    public static final long INITIAL_VALUE = -1L;
+
+    private static final AtomicLongFieldUpdater<SequenceValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+
+    public Sequence() {
+        this(INITIAL_VALUE);
+    }
+
+    public Sequence(long initial) {
+        VALUE.lazySet(this, initial);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    /**
+     * Ordered store, enough for a single writer publishing to readers.
+     */
+    public void set(long sequence) {
+        VALUE.lazySet(this, sequence);
+    }
+
+    public void setVolatile(long sequence) {
+        value = sequence;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
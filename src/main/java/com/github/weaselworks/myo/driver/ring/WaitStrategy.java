@@ -0,0 +1,20 @@
+package com.github.weaselworks.myo.driver.ring;
+
+/**
+ * How a consumer waits for the producer. Implementations trade CPU for latency.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Waits a bounded amount of time for the cursor to reach the sequence.
+     *
+     * @return the highest published sequence, which may still be lower than the requested
+     *         one, the caller checks whether it was halted and asks again
+     */
+    long waitFor(long sequence, Sequence cursor) throws InterruptedException;
+
+    /**
+     * Called by the producer after every publish.
+     */
+    void signalAllWhenBlocking();
+}
@@ -0,0 +1,28 @@
+package com.github.weaselworks.myo.driver.ring;
+
+/**
+ * Spins for a while and then yields the core, a good compromise when there are fewer
+ * consumers than cores.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public long waitFor(long sequence, Sequence cursor) {
+        long available;
+        int counter = SPIN_TRIES;
+        while ((available = cursor.get()) < sequence) {
+            if (counter-- > 0) {
+                continue;
+            }
+            Thread.yield();
+            return cursor.get();
+        }
+        return available;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+    }
+}
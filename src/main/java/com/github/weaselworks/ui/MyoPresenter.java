@@ -1,8 +1,11 @@
 
 package com.github.weaselworks.ui;
 
+import com.github.weaselworks.myo.driver.BackpressurePolicy;
 import com.github.weaselworks.myo.driver.MyoApplication;
 import com.github.weaselworks.myo.driver.Pose;
+import com.github.weaselworks.myo.driver.ring.AttributeEventRing;
+import com.github.weaselworks.myo.driver.ring.SleepingWaitStrategy;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -25,8 +28,6 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import java.net.URL;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 import static java.lang.Math.abs;
 
@@ -94,23 +95,15 @@ public class MyoPresenter implements Initializable {
     private void subscribeToMyoData()  {
         logger.info("Subscribing to myo data");
 
-        try {
-            myo.subscribeMyoData(imus -> {
-                Platform.runLater(() -> {
-                    imuData.setText(String.format("IMU x: %d y: %d z: %d", divide(imus[0],100) , divide(imus[1],100), divide(imus[2],100)));
-                });
-            }, emgs -> {
-                Platform.runLater(() -> {
-                    String emgInfo = emgs.stream().map(Object::toString)
-                            .collect(Collectors.joining(", "));
-                    //emgData.setText(String.format("EMG %s", emgInfo));
-                });
-            });
-        } catch (ExecutionException e) {
-            e.printStackTrace();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        //the label only needs the latest reading, conflating keeps the FX queue from growing during stalls
+        myo.subscribeMyoData(connectionId, imu -> {
+            imuData.setText(String.format("IMU x: %d y: %d z: %d",
+                    divide(imu.getGyroX(), 100), divide(imu.getGyroY(), 100), divide(imu.getGyroZ(), 100)));
+        }, null, BackpressurePolicy.CONFLATE_LATEST, 1, Platform::runLater).whenSubscribed().whenComplete((subscribed, error) -> {
+            if (error != null || !subscribed) {
+                logger.error("Unable to subscribe to myo data", error);
+            }
+        });
     }
 
     @FXML
@@ -144,6 +137,11 @@ public class MyoPresenter implements Initializable {
                     schedule(() -> { subscribeToMyoData(); },1500);
                     //connectToChromeBrowser();
 
+                }).whenComplete((connId, error) -> {
+                    if (error != null) {
+                        logger.error("Unable to connect to " + selectedDevice.getAlias(), error);
+                        Platform.runLater(() -> connectionStatus.setText("Status: Connection failed"));
+                    }
                 });
             }
         }
@@ -182,6 +180,8 @@ public class MyoPresenter implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
 
         myo.start();
+        // keep classification and the FX hand off away from the serial reader thread
+        myo.useEventRing(AttributeEventRing.DEFAULT_SIZE, new SleepingWaitStrategy());
 
         ObservableList<BluetoothDevice> devices = deviceList.getItems();
         images.put(Pose.FIST, new Image("com/github/weaselworks/ui/Fist.png"));
@@ -220,22 +220,15 @@ public class MyoPresenter implements Initializable {
             });
         });
 
-        myo.onPose(pose -> {
+        // poses arrive debounced, show each one while it is held
+        myo.onPoseTransition((timestamp, from, to) -> {
             Platform.runLater(() -> {
-                this.pose.setText(pose.getName());
-                this.gesturePic.setImage(images.get(pose));
+                this.pose.setText(to.isKnownPose() ? to.getName() : "");
+                this.gesturePic.setImage(images.get(to));
             });
+        });
 
-
-            //only display for a short period of time
-            final Label theLabel = this.pose;
-            schedule(() -> {
-                Platform.runLater(() -> {
-                    theLabel.setText("");
-                    gesturePic.setImage(null);
-                });
-            },500);
-
+        myo.onPose(pose -> {
             Platform.runLater(() -> {
             if (myoPose != null) {
                 try {
@@ -0,0 +1,137 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.listener.BgapiPacketHandler;
+import org.junit.Test;
+import org.thingml.bglib.BDAddr;
+import org.thingml.bglib.BGAPIDefaultListener;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+import static org.junit.Assert.*;
+
+public class BgapiEventDispatcherTest {
+
+    @Test
+    public void testOnlySubscribedPacketsAreDispatched() throws Exception {
+        BgapiEventDispatcher dispatcher = new BgapiEventDispatcher();
+        List<Integer> seen = new ArrayList<>();
+        dispatcher.subscribe(MESSAGE_TYPE_EVENT, CLASS_CONNECTION, EVENT_CONNECTION_DISCONNECTED,
+                (buffer, offset, length) -> seen.add(uint8(buffer, offset) * 1000 + uint16(buffer, offset + 1)));
+
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_EVENT, CLASS_CONNECTION, EVENT_CONNECTION_DISCONNECTED, 3, 0x13, 0x02), 0));
+        // the command response with the same class and id has its own slot
+        assertFalse(dispatcher.dispatch(packet(MESSAGE_TYPE_COMMAND, CLASS_CONNECTION, EVENT_CONNECTION_DISCONNECTED, 3, 0), 0));
+        assertFalse(dispatcher.dispatch(packet(MESSAGE_TYPE_EVENT, CLASS_SYSTEM, EVENT_SYSTEM_BOOT), 0));
+
+        assertEquals(1, seen.size());
+        assertEquals(3 * 1000 + 0x0213, (int) seen.get(0));
+    }
+
+    @Test
+    public void testUnsubscribeKeepsOtherHandlers() throws Exception {
+        BgapiEventDispatcher dispatcher = new BgapiEventDispatcher();
+        int[] calls = new int[2];
+        BgapiPacketHandler first = (buffer, offset, length) -> calls[0]++;
+        BgapiPacketHandler second = (buffer, offset, length) -> calls[1]++;
+        dispatcher.subscribe(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, first);
+        dispatcher.subscribe(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, second);
+        ByteBuffer completed = packet(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, 0, 0, 0, 0x28, 0);
+
+        dispatcher.dispatch(completed, 0);
+        dispatcher.unsubscribe(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, first);
+        dispatcher.dispatch(completed, 0);
+        dispatcher.unsubscribe(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, second);
+
+        assertArrayEquals(new int[]{1, 2}, calls);
+        assertFalse(dispatcher.isSubscribed(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED));
+    }
+
+    @Test
+    public void testConnectionEventsAreDecoded() throws Exception {
+        BgapiEventDispatcher dispatcher = new BgapiEventDispatcher();
+        List<String> calls = new ArrayList<>();
+        dispatcher.subscribeConnectionEvents(new BGAPIDefaultListener() {
+            @Override
+            public void receive_gap_connect_direct(int result, int connection_handle) {
+                calls.add("connect_direct " + result + " " + connection_handle);
+            }
+
+            @Override
+            public void receive_connection_status(int connection, int flags, BDAddr address, int address_type,
+                                                  int conn_interval, int timeout, int latency, int bonding) {
+                calls.add("status " + connection + " " + flags + " " + address + " " + conn_interval + " " + timeout);
+            }
+
+            @Override
+            public void receive_connection_disconnect(int connection, int result) {
+                calls.add("disconnect " + connection + " " + result);
+            }
+
+            @Override
+            public void receive_connection_disconnected(int connection, int reason) {
+                calls.add("disconnected " + connection + " " + reason);
+            }
+
+            @Override
+            public void receive_attclient_attribute_write(int connection, int result) {
+                calls.add("attribute_write " + connection + " " + result);
+            }
+
+            @Override
+            public void receive_attclient_procedure_completed(int connection, int result, int chrhandle) {
+                calls.add("procedure_completed " + connection + " " + result + " " + chrhandle);
+            }
+        });
+
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_COMMAND, CLASS_GAP, GAP_CONNECT_DIRECT, 0x86, 0x01, 2), 0));
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_EVENT, CLASS_CONNECTION, EVENT_CONNECTION_STATUS,
+                2, 0x05, 0xf6, 0x5d, 0xb1, 0x40, 0x69, 0xc3, 0, 0x0c, 0, 0x64, 0, 0, 0, 0xff), 0));
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_COMMAND, CLASS_ATTCLIENT, ATTCLIENT_ATTRIBUTE_WRITE, 2, 0, 0), 0));
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, 2, 0x01, 0x04, 0x19, 0), 0));
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_COMMAND, CLASS_CONNECTION, CONNECTION_DISCONNECT, 2, 0, 0), 0));
+        assertTrue(dispatcher.dispatch(packet(MESSAGE_TYPE_EVENT, CLASS_CONNECTION, EVENT_CONNECTION_DISCONNECTED, 2, 0x13, 0x02), 0));
+        // the probe still goes through bglib
+        assertFalse(dispatcher.dispatch(packet(MESSAGE_TYPE_COMMAND, CLASS_SYSTEM, SYSTEM_GET_INFO, 1, 0, 3, 0, 0, 0, 0, 0, 0, 0, 1, 0, 1), 0));
+
+        assertEquals(Arrays.asList(
+                "connect_direct 390 2",
+                "status 2 5 c3:69:40:b1:5d:f6 12 100",
+                "attribute_write 2 0",
+                "procedure_completed 2 1025 25",
+                "disconnect 2 0",
+                "disconnected 2 531"), calls);
+    }
+
+    @Test
+    public void testGattQueueCompletesThroughDispatcher() throws Exception {
+        BgapiEventDispatcher dispatcher = new BgapiEventDispatcher();
+        GattCommandQueue queue = new GattCommandQueue(new RecordingBgapi());
+        dispatcher.subscribeConnectionEvents(queue);
+        try {
+            BgapiWriteAttrFuture write = queue.write(1, 0x28, new byte[]{1, 0});
+
+            dispatcher.dispatch(packet(MESSAGE_TYPE_COMMAND, CLASS_ATTCLIENT, ATTCLIENT_ATTRIBUTE_WRITE, 1, 0, 0), 0);
+            assertFalse(write.isDone());
+            dispatcher.dispatch(packet(MESSAGE_TYPE_EVENT, CLASS_ATTCLIENT, EVENT_ATTCLIENT_PROCEDURE_COMPLETED, 1, 0, 0, 0x28, 0), 0);
+
+            assertTrue(write.get(1, TimeUnit.SECONDS));
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    private static ByteBuffer packet(int messageType, int classId, int id, int... payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        putHeader(buffer, messageType, payload.length, classId, id);
+        for (int b : payload) {
+            buffer.put((byte) b);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class BgapiWriteAttrFutureTest {
+
+    private RecordingBgapi client;
+    private GattCommandQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        client = new RecordingBgapi();
+        queue = new GattCommandQueue(client, 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.shutdown();
+    }
+
+    @Test
+    public void testCompletesWithTrueOnSuccess() throws Exception {
+        BgapiWriteAttrFuture write = queue.write(3, 0x28, new byte[]{1, 0});
+
+        assertEquals(3, write.getConnection());
+        assertEquals(0x28, write.getHandle());
+        assertFalse(write.isDone());
+
+        queue.receive_attclient_attribute_write(3, 0);
+        queue.receive_attclient_procedure_completed(3, 0, 0x28);
+
+        assertTrue(write.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCompletesWithFalseOnProcedureError() throws Exception {
+        BgapiWriteAttrFuture write = queue.write(3, 0x28, new byte[]{1, 0});
+
+        queue.receive_attclient_procedure_completed(3, 0x401, 0x28);
+
+        assertFalse(write.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCompletesWithFalseWhenRejected() throws Exception {
+        BgapiWriteAttrFuture write = queue.write(3, 0x28, new byte[]{1, 0});
+
+        queue.receive_attclient_attribute_write(3, 0x181);
+
+        assertFalse(write.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCompletesExceptionallyOnTimeout() throws Exception {
+        BgapiWriteAttrFuture write = queue.write(3, 0x28, new byte[]{1, 0});
+
+        try {
+            write.get(1, TimeUnit.SECONDS);
+            fail("The write should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(write.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testCompletionCancelsTimeout() throws Exception {
+        BgapiWriteAttrFuture write = queue.write(3, 0x28, new byte[]{1, 0});
+        queue.receive_attclient_procedure_completed(3, 0, 0x28);
+
+        Thread.sleep(200);
+
+        assertTrue(write.get());
+        assertFalse(write.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testCancelledWhileQueuedIsNeverSent() throws Exception {
+        queue.write(3, 0x19, new byte[]{1});
+        BgapiWriteAttrFuture cancelled = queue.write(3, 0x28, new byte[]{1, 0});
+
+        assertTrue(cancelled.cancel(false));
+        queue.receive_attclient_procedure_completed(3, 0, 0x19);
+
+        assertEquals(1, client.writes.size());
+        assertEquals(0, queue.pending(3));
+    }
+}
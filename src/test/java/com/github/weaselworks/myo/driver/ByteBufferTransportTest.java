@@ -0,0 +1,74 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ByteBufferTransportTest {
+
+    private static final byte[] EMG_EVENT = new byte[]{
+            (byte) 0x80, 21, 4, 5,          // event, attclient attribute_value
+            2, 39, 0, 1, 16,                // connection 2, handle 39, type 1, 16 byte value
+            1, 0, (byte) 0xFF, (byte) 0xFF, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final byte[] PROCEDURE_COMPLETED = new byte[]{
+            (byte) 0x80, 5, 4, 1, 2, 0, 0, 0x28, 0};
+
+    @Test
+    public void testFramesPacketsSplitAcrossReads() throws Exception {
+        byte[] stream = concat(new byte[]{0x08}, EMG_EVENT, PROCEDURE_COMPLETED, EMG_EVENT);
+        List<String> values = new ArrayList<>();
+        ByteArrayOutputStream fallback = new ByteArrayOutputStream();
+        ByteBufferTransport transport = new ByteBufferTransport(new TrickleInputStream(stream, 3),
+                (connection, atthandle, type, buffer, offset, length) -> {
+                    short[] channels = new EmgDecoder().decode(buffer, offset);
+                    values.add(connection + ":" + atthandle + ":" + length + ":" + channels[0] + ":" + channels[1]);
+                }, fallback);
+
+        transport.run();
+
+        assertEquals(Arrays.asList("2:39:16:1:-1", "2:39:16:1:-1"), values);
+        assertArrayEquals(PROCEDURE_COMPLETED, fallback.toByteArray());
+        assertEquals(3, transport.getPackets());
+        assertEquals(1, transport.getSkippedBytes());
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Hands out at most a few bytes per read, like a serial port does.
+     */
+    private static class TrickleInputStream extends InputStream {
+
+        private final ByteArrayInputStream in;
+        private final int chunk;
+
+        TrickleInputStream(byte[] data, int chunk) {
+            this.in = new ByteArrayInputStream(data);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, chunk));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EmgDecoderTest {
+
+    @Test
+    public void testDecodesSignedLittleEndianChannels() throws Exception {
+        byte[] data = new byte[]{1, 0, (byte) 0xFF, (byte) 0xFF, 0, (byte) 0x80, (byte) 0xFF, 0x7F,
+                                 0, 1, 0, 0, 2, 0, (byte) 0xFE, (byte) 0xFF};
+        EmgDecoder decoder = new EmgDecoder();
+
+        short[] channels = decoder.decode(data);
+
+        assertArrayEquals(new short[]{1, -1, -32768, 32767, 256, 0, 2, -2}, channels);
+    }
+
+    @Test
+    public void testReusesChannelBuffer() throws Exception {
+        EmgDecoder decoder = new EmgDecoder();
+        short[] first = decoder.decode(new byte[EmgDecoder.PAYLOAD_LENGTH]);
+        final short[][] seen = new short[1][];
+
+        decoder.decode(new byte[EmgDecoder.PAYLOAD_LENGTH], 42L, (timestamp, channels) -> seen[0] = channels);
+
+        assertSame(first, seen[0]);
+    }
+
+    @Test
+    public void testCalibrationRotatesPodsAndSaturatesGains() throws Exception {
+        byte[] data = new byte[EmgDecoder.PAYLOAD_LENGTH];
+        for (int i = 0; i < EmgDecoder.CHANNELS; i++) {
+            data[2 * i] = (byte) (i + 1);
+        }
+        data[0] = 0;
+        data[1] = 0x40;
+        EmgDecoder decoder = new EmgDecoder();
+        decoder.setCalibration(new float[]{2, 1, 1, 1, 1, 1, 1, 4}, 1);
+
+        short[] channels = decoder.decode(data);
+
+        assertArrayEquals(new short[]{4, 3, 4, 5, 6, 7, 8, 32767}, channels);
+
+        decoder.setCalibration(null, 0);
+        assertEquals(16384, decoder.decode(data)[0]);
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class GattCommandQueueTest {
+
+    private RecordingBgapi client;
+    private GattCommandQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        client = new RecordingBgapi();
+        queue = new GattCommandQueue(client, 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.shutdown();
+    }
+
+    @Test
+    public void testOneWriteInFlightPerConnection() throws Exception {
+        BgapiWriteAttrFuture first = queue.write(1, 0x19, new byte[]{1});
+        BgapiWriteAttrFuture second = queue.write(1, 0x28, new byte[]{2});
+        BgapiWriteAttrFuture other = queue.write(2, 0x19, new byte[]{3});
+
+        // the second write on connection 1 waits, connection 2 doesn't wait on connection 1
+        assertEquals(2, client.writes.size());
+        assertArrayEquals(new int[]{1, 0x19}, client.writes.get(0));
+        assertArrayEquals(new int[]{2, 0x19}, client.writes.get(1));
+        assertEquals(2, queue.pending(1));
+
+        queue.receive_attclient_procedure_completed(1, 0, 0x19);
+
+        assertTrue(first.get(1, TimeUnit.SECONDS));
+        assertArrayEquals(new int[]{1, 0x28}, client.lastWrite());
+        assertEquals(0, first.getSequence());
+        assertEquals(1, second.getSequence());
+        assertFalse(second.isDone());
+        assertFalse(other.isDone());
+
+        queue.receive_attclient_procedure_completed(1, 0x401, 0x28);
+        queue.receive_attclient_procedure_completed(2, 0, 0x19);
+
+        assertFalse(second.get(1, TimeUnit.SECONDS));
+        assertTrue(other.get(1, TimeUnit.SECONDS));
+        assertEquals(0, queue.pending(1));
+    }
+
+    @Test
+    public void testTimeoutReleasesConnection() throws Exception {
+        BgapiWriteAttrFuture stuck = queue.write(1, 0x19, new byte[]{1});
+        BgapiWriteAttrFuture next = queue.write(1, 0x28, new byte[]{2});
+
+        try {
+            stuck.get(1, TimeUnit.SECONDS);
+            fail("The write should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        assertArrayEquals(new int[]{1, 0x28}, client.lastWrite());
+        queue.receive_attclient_procedure_completed(1, 0, 0x28);
+        assertTrue(next.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testLateCompletionIsNotTakenForTheNextWrite() throws Exception {
+        BgapiWriteAttrFuture stuck = queue.write(1, 0x19, new byte[]{1});
+        BgapiWriteAttrFuture next = queue.write(1, 0x19, new byte[]{2});
+        awaitTimeout(stuck);
+
+        // the abandoned write finally fails, its completion must not complete the next write to the handle
+        queue.receive_attclient_procedure_completed(1, 0x401, 0x19);
+        assertFalse(next.isDone());
+
+        queue.receive_attclient_attribute_write(1, 0);
+        queue.receive_attclient_procedure_completed(1, 0, 0x19);
+        assertTrue(next.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAcceptedWriteForgetsAbandonedOnes() throws Exception {
+        BgapiWriteAttrFuture stuck = queue.write(1, 0x19, new byte[]{1});
+        BgapiWriteAttrFuture next = queue.write(1, 0x19, new byte[]{2});
+        awaitTimeout(stuck);
+
+        // the dongle took the next write, so the abandoned one will never complete
+        queue.receive_attclient_attribute_write(1, 0);
+        queue.receive_attclient_procedure_completed(1, 0, 0x19);
+
+        assertTrue(next.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDisconnectFailsQueuedWrites() throws Exception {
+        BgapiWriteAttrFuture first = queue.write(1, 0x19, new byte[]{1});
+        BgapiWriteAttrFuture second = queue.write(1, 0x28, new byte[]{2});
+
+        queue.receive_connection_disconnected(1, 0x213);
+
+        assertFalse(first.get(1, TimeUnit.SECONDS));
+        assertFalse(second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, client.writes.size());
+        assertEquals(0, queue.pending(1));
+    }
+
+    private static void awaitTimeout(BgapiWriteAttrFuture write) throws Exception {
+        try {
+            write.get(1, TimeUnit.SECONDS);
+            fail("The write should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+}
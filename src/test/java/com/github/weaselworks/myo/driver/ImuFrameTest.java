@@ -0,0 +1,74 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ImuFrameTest {
+
+    // notification from an armband lying still on a desk: a unit quaternion, 1g on z, no rotation
+    private static final byte[] RESTING = new byte[]{
+            (byte) 0xE4, 0x3E, 0x4D, (byte) 0xFB, 0x5A, 0x0A, (byte) 0xCA, (byte) 0xFE,
+            (byte) 0xE1, (byte) 0xFF, 0x5F, 0x00, (byte) 0xFA, 0x07,
+            0x03, 0x00, (byte) 0xFE, (byte) 0xFF, 0x01, 0x00};
+
+    @Test
+    public void testDecodesOrientationAccelAndGyro() throws Exception {
+        ImuFrame frame = new ImuFrame();
+
+        assertSame(frame, frame.decode(RESTING, 7L));
+
+        assertEquals(7L, frame.getTimestamp());
+        assertEquals(16100, frame.getOrientationW());
+        assertEquals(-1203, frame.getOrientationX());
+        assertEquals(2650, frame.getOrientationY());
+        assertEquals(-310, frame.getOrientationZ());
+        assertEquals(-31, frame.getAccelX());
+        assertEquals(95, frame.getAccelY());
+        assertEquals(2042, frame.getAccelZ());
+        assertEquals(3, frame.getGyroX());
+        assertEquals(-2, frame.getGyroY());
+        assertEquals(1, frame.getGyroZ());
+    }
+
+    @Test
+    public void testRestingPacketIsPhysicallyConsistent() throws Exception {
+        ImuFrame frame = new ImuFrame().decode(RESTING, 0L);
+
+        double quaternion = Math.sqrt(square(frame.getOrientationW()) + square(frame.getOrientationX())
+                + square(frame.getOrientationY()) + square(frame.getOrientationZ())) / ImuFrame.ORIENTATION_SCALE;
+        double gravity = Math.sqrt(square(frame.getAccelX()) + square(frame.getAccelY())
+                + square(frame.getAccelZ())) / ImuFrame.ACCELEROMETER_SCALE;
+        double rotation = Math.sqrt(square(frame.getGyroX()) + square(frame.getGyroY())
+                + square(frame.getGyroZ())) / ImuFrame.GYROSCOPE_SCALE;
+
+        assertEquals(1.0, quaternion, 0.01);
+        assertEquals(1.0, gravity, 0.01);
+        assertEquals(0.0, rotation, 1.0);
+    }
+
+    @Test
+    public void testDecodesInPlaceFromBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(RESTING.length + 5);
+        buffer.position(5);
+        buffer.put(RESTING);
+        buffer.position(0);
+        ImuFrame frame = new ImuFrame().decode(buffer, 5, RESTING.length, 3L);
+
+        assertEquals(0, buffer.position());
+        assertEquals(16100, frame.getOrientationW());
+        assertEquals(2042, frame.getAccelZ());
+        assertEquals(-2, frame.getGyroY());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsShortPacket() throws Exception {
+        new ImuFrame().decode(new byte[12], 0L);
+    }
+
+    private static double square(short value) {
+        return (double) value * value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.calibration.CalibrationProfile;
+import com.github.weaselworks.myo.driver.calibration.CalibrationStore;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import com.github.weaselworks.myo.driver.classifier.KdTreeClassifier;
+import com.github.weaselworks.myo.driver.classifier.KnnProvider;
+import com.github.weaselworks.myo.driver.classifier.PoseClassifier;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+import static org.junit.Assert.*;
+
+public class MyoApplicationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MyoApplication myo;
+
+    @After
+    public void tearDown() throws Exception {
+        if (myo != null) {
+            myo.shutdown();
+        }
+    }
+
+    @Test
+    public void testConnectOpensSession() throws Exception {
+        myo = start(new ConnectingDongle(0));
+        AtomicInteger connected = new AtomicInteger(-1);
+
+        int connection = myo.connect("c3:69:40:b1:5d:f6", connected::set).get(5, TimeUnit.SECONDS);
+
+        assertEquals(connection, connected.get());
+        assertEquals("c3:69:40:b1:5d:f6", myo.getSessionManager().get(connection).getAddress());
+    }
+
+    @Test
+    public void testRefusedConnectCompletesExceptionally() throws Exception {
+        myo = start(new ConnectingDongle(0x20c));
+        AtomicInteger connected = new AtomicInteger(-1);
+
+        CompletableFuture<Integer> connect = myo.connect("c3:69:40:b1:5d:f6", connected::set);
+
+        try {
+            connect.get(5, TimeUnit.SECONDS);
+            fail("The connect should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(-1, connected.get());
+        assertEquals(0, myo.getLoad());
+    }
+
+    @Test
+    public void testProfileClassifierTrainsOffReaderThread() throws Exception {
+        PoseClassifier fallback = features -> Pose.UNKNOWN;
+        myo = start(new ConnectingDongle(0), fallback);
+        CalibrationStore store = new CalibrationStore(folder.getRoot().toPath());
+        float[] gains = {1, 1, 1, 1, 1, 1, 1, 1};
+        store.save(new CalibrationProfile("c3:69:40:b1:5d:f6", null, gains, 0, KnnProvider.NAME, GestureDataset.loadDefault()));
+        List<Runnable> training = new CopyOnWriteArrayList<>();
+        myo.useCalibrationProfiles(store, null, training::add);
+
+        int connection = myo.connect("c3:69:40:b1:5d:f6", null).get(5, TimeUnit.SECONDS);
+        MyoSession session = myo.getSessionManager().get(connection);
+
+        // the session is open and classifying before the profile's classifier is trained
+        assertSame(fallback, session.getClassifier());
+        assertNull(session.getTrainingData());
+        assertEquals(1, training.size());
+        training.get(0).run();
+        assertTrue(session.getClassifier() instanceof KdTreeClassifier);
+        // aligning compares with the profile's rows now
+        assertEquals(store.load("c3:69:40:b1:5d:f6", null).getModel().size(), session.getTrainingData().size());
+        myo.startAlignment(connection, Pose.FIST);
+        assertTrue(session.isAligning());
+    }
+
+    private static MyoApplication start(VirtualBgapiTransport dongle) {
+        return start(dongle, null);
+    }
+
+    private static MyoApplication start(VirtualBgapiTransport dongle, PoseClassifier classifier) {
+        MyoApplication myo = new MyoApplication(BluetoothClientFactory.forTransport("test", dongle), classifier);
+        myo.start();
+        dongle.start();
+        return myo;
+    }
+
+    /**
+     * Answers connect requests with the given result and nothing else.
+     */
+    private static class ConnectingDongle extends VirtualBgapiTransport {
+
+        private final int result;
+        private final AtomicInteger connections = new AtomicInteger();
+
+        ConnectingDongle(int result) throws IOException {
+            super("connecting-dongle");
+            this.result = result;
+        }
+
+        @Override
+        protected void produce() {
+        }
+
+        @Override
+        protected void onCommand(int classId, int commandId, ByteBuffer payload) {
+            if (classId == CLASS_GAP && commandId == GAP_CONNECT_DIRECT) {
+                respond(BgapiPackets.connectDirectResponse(result, result == 0 ? connections.getAndIncrement() : 0));
+            } else {
+                super.onCommand(classId, commandId, payload);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.weaselworks.myo.driver;
+
+import com.github.weaselworks.myo.driver.emulator.Bled112Emulator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MyoDonglePoolTest {
+
+    @Test
+    public void testProbeSkipsPortsWithoutDongle() throws Exception {
+        Bled112Emulator dongle = new Bled112Emulator(1);
+        SilentPort silent = new SilentPort();
+        BluetoothClientFactory good = BluetoothClientFactory.forTransport("good", dongle);
+        BluetoothClientFactory bad = BluetoothClientFactory.forTransport("bad", silent);
+        dongle.start();
+        silent.start();
+        try {
+            List<BluetoothClientFactory> answered = BluetoothClientFactory.probeAll(Arrays.asList(bad, good), 500);
+
+            assertEquals(Collections.singletonList(good), answered);
+            assertTrue(good.isConnected());
+            assertFalse(bad.isConnected());
+        } finally {
+            good.disconnect();
+            dongle.stop();
+            silent.stop();
+        }
+    }
+
+    @Test
+    public void testStartLeavesOutDongleThatFails() throws Exception {
+        Bled112Emulator emulator = new Bled112Emulator(1);
+        MyoApplication working = new MyoApplication(BluetoothClientFactory.forTransport("emulator", emulator), null);
+        MyoApplication broken = new MyoApplication(new BluetoothClientFactory("/dev/no-such-bled112"), null);
+        MyoDonglePool pool = new MyoDonglePool(Arrays.asList(broken, working));
+        emulator.start();
+        try {
+            pool.start();
+
+            assertEquals(Collections.singletonList(working), pool.getDongles());
+        } finally {
+            pool.shutdown();
+            emulator.stop();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartFailsWithoutAnyDongle() throws Exception {
+        new MyoDonglePool(Collections.singletonList(new MyoApplication(new BluetoothClientFactory("/dev/no-such-bled112"), null))).start();
+    }
+
+    /**
+     * A port that takes commands and never answers, like a serial device that isn't a BLED112.
+     */
+    private static class SilentPort extends VirtualBgapiTransport {
+
+        SilentPort() throws IOException {
+            super("silent-port");
+        }
+
+        @Override
+        protected void produce() {
+        }
+    }
+}
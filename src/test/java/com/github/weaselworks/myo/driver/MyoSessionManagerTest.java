@@ -0,0 +1,43 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MyoSessionManagerTest {
+
+    @Test
+    public void testRoutesToSessionByConnection() throws Exception {
+        MyoSessionManager manager = new MyoSessionManager();
+        List<String> firmware = new ArrayList<>();
+        MyoSession first = new MyoSession(0, "c3:69:40:b1:5d:f6", null);
+        MyoSession second = new MyoSession(3, "c3:69:40:b1:5d:f7", null);
+        first.onFirmware(version -> firmware.add("first " + version));
+        second.onFirmware(version -> firmware.add("second " + version));
+        manager.open(first);
+        manager.open(second);
+
+        assertTrue(manager.dispatch(3, MyoApplication.FIRMWARE, new byte[]{1, 2, 3, 4}));
+        assertFalse(manager.dispatch(5, MyoApplication.FIRMWARE, new byte[]{1, 2, 3, 4}));
+
+        assertEquals(2, manager.size());
+        assertEquals(1, firmware.size());
+        assertEquals("second 1.2.3.4", firmware.get(0));
+    }
+
+    @Test
+    public void testCloseRemovesSession() throws Exception {
+        MyoSessionManager manager = new MyoSessionManager();
+        MyoSession session = new MyoSession(1, null, null);
+        manager.open(session);
+
+        assertSame(session, manager.close(1));
+
+        assertNull(manager.get(1));
+        assertEquals(0, manager.size());
+        assertNull(manager.close(1));
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.weaselworks.myo.driver;
+
+import org.thingml.bglib.BGAPI;
+import org.thingml.bglib.BGAPITransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A bglib client with no dongle that remembers the attribute writes sent through it.
+ */
+class RecordingBgapi extends BGAPI {
+
+    final List<int[]> writes = new CopyOnWriteArrayList<>();
+
+    RecordingBgapi() {
+        super(new BGAPITransport(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()));
+    }
+
+    @Override
+    public void send_attclient_attribute_write(int connection, int handle, byte[] data) {
+        writes.add(new int[]{connection, handle});
+    }
+
+    int[] lastWrite() {
+        return writes.get(writes.size() - 1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.weaselworks.myo.driver;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SampleStreamTest {
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Short> received = new ArrayList<>();
+
+    private EmgStream stream(BackpressurePolicy policy, int capacity) {
+        return new EmgStream((timestamp, channels) -> received.add(channels[0]), policy, capacity, scheduled::add);
+    }
+
+    private void offer(EmgStream stream, int first) {
+        short[] sample = new short[EmgDecoder.CHANNELS];
+        sample[0] = (short) first;
+        stream.onEmg(first, sample);
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testDropOldestKeepsNewestSamples() throws Exception {
+        EmgStream stream = stream(BackpressurePolicy.DROP_OLDEST, 2);
+        for (int i = 1; i <= 4; i++) {
+            offer(stream, i);
+        }
+
+        assertEquals(1, scheduled.size());
+        runScheduled();
+
+        assertEquals(2, stream.getDroppedOldest());
+        assertEquals(2, stream.getDelivered());
+        assertEquals(3, (int) received.get(0));
+        assertEquals(4, (int) received.get(1));
+    }
+
+    @Test
+    public void testDropNewestKeepsBufferedSamples() throws Exception {
+        EmgStream stream = stream(BackpressurePolicy.DROP_NEWEST, 2);
+        for (int i = 1; i <= 4; i++) {
+            offer(stream, i);
+        }
+        runScheduled();
+
+        assertEquals(2, stream.getDroppedNewest());
+        assertEquals(1, (int) received.get(0));
+        assertEquals(2, (int) received.get(1));
+    }
+
+    @Test
+    public void testConflateDeliversOnlyLatest() throws Exception {
+        EmgStream stream = stream(BackpressurePolicy.CONFLATE_LATEST, 16);
+        for (int i = 1; i <= 5; i++) {
+            offer(stream, i);
+        }
+        runScheduled();
+
+        assertEquals(1, stream.getCapacity());
+        assertEquals(4, stream.getConflated());
+        assertEquals(1, received.size());
+        assertEquals(5, (int) received.get(0));
+    }
+
+    @Test
+    public void testDrainsOneBufferPerRun() throws Exception {
+        // a producer that offers a new sample every time one is delivered
+        short[] sample = new short[EmgDecoder.CHANNELS];
+        EmgStream[] stream = new EmgStream[1];
+        stream[0] = new EmgStream((timestamp, channels) -> {
+            received.add(channels[0]);
+            if (received.size() < 100) {
+                sample[0] = (short) (channels[0] + 4);
+                stream[0].onEmg(timestamp, sample);
+            }
+        }, BackpressurePolicy.DROP_OLDEST, 4, scheduled::add);
+        for (int i = 1; i <= 4; i++) {
+            offer(stream[0], i);
+        }
+
+        runScheduled();
+
+        assertEquals(4, stream[0].getDelivered());
+        assertEquals(1, scheduled.size());
+        while (!scheduled.isEmpty()) {
+            runScheduled();
+        }
+        assertEquals(103, stream[0].getDelivered());
+        assertEquals(0, stream[0].getDropped());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i + 1, (int) received.get(i));
+        }
+    }
+
+    @Test
+    public void testSchedulesAgainAfterDrain() throws Exception {
+        EmgStream stream = stream(BackpressurePolicy.DROP_OLDEST, 4);
+        offer(stream, 1);
+        runScheduled();
+        offer(stream, 2);
+
+        assertEquals(1, scheduled.size());
+        runScheduled();
+        assertEquals(2, received.size());
+        assertEquals(0, stream.getDropped());
+    }
+}
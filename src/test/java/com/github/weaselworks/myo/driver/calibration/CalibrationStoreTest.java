@@ -0,0 +1,112 @@
+package com.github.weaselworks.myo.driver.calibration;
+
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import com.github.weaselworks.myo.driver.classifier.KnnProvider;
+import com.github.weaselworks.myo.driver.classifier.PoseClassifier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CalibrationStoreTest {
+
+    private static final String ADDRESS = "C3:69:40:B1:5D:F6";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTripsProfileWithModel() throws Exception {
+        CalibrationStore store = new CalibrationStore(folder.getRoot().toPath());
+        GestureDataset model = GestureDataset.loadDefault();
+        float[] gains = {1f, 1.5f, 0.75f, 1f, 2f, 1f, 0.5f, 1.25f};
+
+        store.save(new CalibrationProfile(ADDRESS, "paul", gains, 11, KnnProvider.NAME, model));
+        CalibrationProfile loaded = store.load(ADDRESS, "paul");
+
+        assertArrayEquals(gains, loaded.getGains(), 0f);
+        assertEquals(3, loaded.getRotation());
+        assertEquals(KnnProvider.NAME, loaded.getClassifier());
+        assertEquals(model.size(), loaded.getModel().size());
+        assertEquals(model.getPose(7), loaded.getModel().getPose(7));
+        assertEquals("c3:69:40:b1:5d:f6/paul", loaded.getKey());
+    }
+
+    @Test
+    public void testProfilesAreKeptPerUser() throws Exception {
+        CalibrationStore store = new CalibrationStore(folder.getRoot().toPath());
+
+        store.save(CalibrationProfile.uncalibrated(ADDRESS, null));
+
+        assertNotNull(store.load(ADDRESS, null));
+        assertNull(store.load(ADDRESS, "paul"));
+        assertNull(store.load(ADDRESS, null).getModel());
+    }
+
+    @Test
+    public void testCacheTrainsOnceAndEvictsLeastRecentlyUsed() throws Exception {
+        ClassifierCache cache = new ClassifierCache(2);
+        AtomicInteger trained = new AtomicInteger();
+        PoseClassifier a = cache.get("a", key -> { trained.incrementAndGet(); return features -> null; });
+
+        assertSame(a, cache.get("a", key -> { trained.incrementAndGet(); return features -> null; }));
+        cache.get("b", key -> features -> null);
+        cache.get("a", key -> features -> null);
+        cache.get("c", key -> features -> null);
+
+        assertEquals(1, trained.get());
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("a", key -> { throw new AssertionError("a was evicted"); }));
+    }
+
+    @Test
+    public void testCacheTrainsOnExecutorOutsideLock() throws Exception {
+        ClassifierCache cache = new ClassifierCache();
+        List<Runnable> queued = new ArrayList<>();
+        PoseClassifier trained = features -> null;
+
+        CompletableFuture<PoseClassifier> a = cache.get("a", key -> trained, queued::add);
+
+        assertFalse(a.isDone());
+        assertSame(a, cache.get("a", key -> { throw new AssertionError("a is already training"); }, queued::add));
+        // other keys don't wait for the training
+        assertNotNull(cache.get("b", key -> features -> null));
+        queued.get(0).run();
+        assertSame(trained, a.get());
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    public void testCacheForgetsFailedTraining() throws Exception {
+        ClassifierCache cache = new ClassifierCache();
+
+        CompletableFuture<PoseClassifier> failed = cache.get("a", key -> { throw new IllegalStateException("no data"); }, Runnable::run);
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, cache.size());
+        assertNotNull(cache.get("a", key -> features -> null));
+    }
+
+    @Test
+    public void testCacheForgetsTrainingThatErredOrWasRejected() throws Exception {
+        ClassifierCache cache = new ClassifierCache();
+
+        CompletableFuture<PoseClassifier> erred = cache.get("a", key -> { throw new StackOverflowError(); }, Runnable::run);
+        CompletableFuture<PoseClassifier> rejected = cache.get("b", key -> features -> null, task -> {
+            throw new RejectedExecutionException("shut down");
+        });
+
+        assertTrue(erred.isCompletedExceptionally());
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(0, cache.size());
+        assertNotNull(cache.get("a", key -> features -> null));
+        assertNotNull(cache.get("b", key -> features -> null));
+    }
+}
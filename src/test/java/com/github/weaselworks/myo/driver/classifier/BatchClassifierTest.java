@@ -0,0 +1,122 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchClassifierTest {
+
+    private static final PoseClassifier LOUD_FIRST_CHANNEL = features -> features[0] > 100 ? Pose.FIST : Pose.UNKNOWN;
+
+    @Test
+    public void testMatchesLiveFeatureWindow() throws Exception {
+        EmgRecording recording = randomRecording(5000, 1);
+        List<Pose> live = new ArrayList<>();
+        List<Long> liveTimestamps = new ArrayList<>();
+        EmgFeatureWindow window = new EmgFeatureWindow(EmgDecoder.CHANNELS, 50, 10, 0);
+        float[] mav = new float[EmgDecoder.CHANNELS];
+        short[] sample = new short[EmgDecoder.CHANNELS];
+        for (int t = 0; t < recording.size(); t++) {
+            for (int ch = 0; ch < sample.length; ch++) {
+                sample[ch] = recording.getChannel(ch)[t];
+            }
+            if (window.add(recording.getTimestamp(t), sample)) {
+                window.copyFeature(EmgFeatureWindow.MEAN_ABSOLUTE_VALUE, mav);
+                live.add(LOUD_FIRST_CHANNEL.classify(mav));
+                liveTimestamps.add(window.getTimestamp());
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        PoseTimeline timeline;
+        try {
+            timeline = new BatchClassifier(LOUD_FIRST_CHANNEL, 50, 10, 37).classify(recording, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(live.size(), timeline.size());
+        for (int i = 0; i < live.size(); i++) {
+            assertEquals(live.get(i), timeline.getPose(i));
+            assertEquals((long) liveTimestamps.get(i), timeline.getTimestamp(i));
+        }
+    }
+
+    @Test
+    public void testAppliesFeatureSetBeforeClassifying() throws Exception {
+        PoseClassifier normalisedOnly = features -> {
+            float total = 0;
+            for (float value : features) {
+                total += value;
+            }
+            return Math.abs(total - 1) < 1e-4f ? Pose.FIST : Pose.UNKNOWN;
+        };
+
+        PoseTimeline timeline = new BatchClassifier(normalisedOnly, FeatureSet.NORMALISED, 50, 10, 100)
+                .classify(randomRecording(500, 3));
+
+        assertEquals(46, timeline.size());
+        for (int i = 0; i < timeline.size(); i++) {
+            assertEquals(Pose.FIST, timeline.getPose(i));
+        }
+    }
+
+    @Test
+    public void testShortRecordingHasNoWindows() throws Exception {
+        BatchClassifier batch = new BatchClassifier(LOUD_FIRST_CHANNEL, 50, 10, 100);
+
+        assertEquals(0, batch.classify(randomRecording(49, 2)).size());
+        assertEquals(1, batch.classify(randomRecording(50, 2)).size());
+        assertEquals(2, batch.classify(randomRecording(60, 2)).size());
+    }
+
+    @Test
+    public void testSegmentsDebouncedTimeline() throws Exception {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        long[] timestamps = new long[30];
+        Pose[] poses = new Pose[30];
+        for (int i = 0; i < poses.length; i++) {
+            timestamps[i] = i * second / 10;
+            poses[i] = i >= 10 && i < 20 && i != 15 ? Pose.FIST : Pose.UNKNOWN;
+        }
+
+        List<PoseTimeline.Segment> segments = new PoseTimeline(timestamps, poses).debounce(3, 150, TimeUnit.MILLISECONDS).segments();
+
+        assertEquals(3, segments.size());
+        assertEquals(Pose.FIST, segments.get(1).getPose());
+        assertEquals(timestamps[13], segments.get(1).getStart());
+    }
+
+    @Test
+    public void testLoadsCsvRecording() throws Exception {
+        EmgRecording recording = EmgRecording.load(new StringReader("# t,emg\n10,1,2,3,4,5,6,7,8\n\n20,-1,-2,-3,-4,-5,-6,-7,-8\n"));
+
+        assertEquals(2, recording.size());
+        assertEquals(20, recording.getTimestamp(1));
+        assertEquals(-8, recording.getChannel(7)[1]);
+    }
+
+    private static EmgRecording randomRecording(int samples, long seed) {
+        Random random = new Random(seed);
+        long[] timestamps = new long[samples];
+        short[][] channels = new short[EmgDecoder.CHANNELS][samples];
+        for (int t = 0; t < samples; t++) {
+            timestamps[t] = t * 5000000L;
+            // bursts of activity on the first channel every 400 samples
+            int amplitude = (t / 400) % 2 == 0 ? 30 : 250;
+            for (int ch = 0; ch < channels.length; ch++) {
+                channels[ch][t] = (short) ((random.nextInt(2 * amplitude + 1) - amplitude) * (ch == 0 ? 1 : 0.2));
+            }
+        }
+        return new EmgRecording(timestamps, channels);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class CrossValidationTest {
+
+    @Test
+    public void testFoldsAreStratified() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        CrossValidation validation = new CrossValidation(dataset, 5);
+
+        int total = 0;
+        for (int fold = 0; fold < 5; fold++) {
+            GestureDataset test = validation.subset(fold, true);
+            GestureDataset training = validation.subset(fold, false);
+            assertEquals(dataset.size(), test.size() + training.size());
+            total += test.size();
+            int fists = 0;
+            for (int r = 0; r < test.size(); r++) {
+                if (test.getPose(r) == Pose.FIST) fists++;
+            }
+            int allFists = 0;
+            for (int r = 0; r < dataset.size(); r++) {
+                if (dataset.getPose(r) == Pose.FIST) allFists++;
+            }
+            assertTrue(Math.abs(fists - allFists / 5) <= 1);
+        }
+        assertEquals(dataset.size(), total);
+    }
+
+    @Test
+    public void testWindowsLikeLiveSession() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+
+        GestureDataset windowed = CrossValidation.prepare(dataset, 3, 1, FeatureSet.AMPLITUDE);
+        GestureDataset hopped = CrossValidation.prepare(dataset, 3, 2, FeatureSet.AMPLITUDE);
+
+        // the first window completes on the third row, then one per hop
+        assertEquals((dataset.get(0, 2) + dataset.get(1, 2) + dataset.get(2, 2)) / 3, windowed.get(0, 2), 1e-3f);
+        assertEquals((dataset.get(5, 7) + dataset.get(6, 7) + dataset.get(7, 7)) / 3, windowed.get(5, 7), 1e-3f);
+        assertEquals(windowed.get(2, 4), hopped.get(1, 4), 0f);
+        // windows never straddle a change of pose
+        int poses = 1;
+        for (int r = 1; r < dataset.size(); r++) {
+            if (dataset.getLabel(r) != dataset.getLabel(r - 1)) poses++;
+        }
+        assertEquals(dataset.size() - 2 * poses, windowed.size());
+    }
+
+    @Test
+    public void testFeatureSetTransformsEveryRow() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+
+        GestureDataset normalised = FeatureSet.NORMALISED.apply(dataset);
+
+        assertSame(dataset, FeatureSet.AMPLITUDE.apply(dataset));
+        assertEquals(dataset.size(), normalised.size());
+        float total = 0;
+        for (int d = 0; d < dataset.getDimensions(); d++) {
+            total += dataset.get(42, d);
+        }
+        assertEquals(dataset.get(42, 3) / total, normalised.get(42, 3), 1e-6f);
+        assertEquals(dataset.getPose(42), normalised.getPose(42));
+    }
+
+    @Test
+    public void testEveryRowIsTestedOnce() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+
+        CrossValidation.Result result = new CrossValidation(dataset, 4).evaluate(training -> new KdTreeClassifier(training, 5));
+
+        assertEquals(dataset.size(), result.getMatrix().total());
+        assertTrue(result.getMatrix().balancedAccuracy() > 0.5);
+        assertTrue(result.getLatencyNanos() > 0);
+    }
+
+    @Test
+    public void testGridSearchScoresEveryConfiguration() throws Exception {
+        GestureModelEvaluator evaluator = new GestureModelEvaluator(GestureDataset.loadDefault(), KnnProvider.NAME, 3);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<GestureModelEvaluator.Score> scores = evaluator.search(pool, new int[]{1, 5}, new int[]{3, 5}, 2,
+                    new FeatureSet[]{FeatureSet.AMPLITUDE, FeatureSet.NORMALISED});
+
+            assertEquals(8, scores.size());
+            for (int i = 1; i < scores.size(); i++) {
+                assertTrue(scores.get(i - 1).getResult().getMatrix().balancedAccuracy()
+                        >= scores.get(i).getResult().getMatrix().balancedAccuracy());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EmgFeatureWindowTest {
+
+    @Test
+    public void testCompletesOncePerHopAfterWindowFills() throws Exception {
+        EmgFeatureWindow window = new EmgFeatureWindow(1, 4, 2, 0);
+        List<Integer> completed = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            if (window.add(i, new short[]{(short) i})) {
+                completed.add(i);
+                assertEquals(i, window.getTimestamp());
+            }
+        }
+        // the first window ends on the fourth sample, then one every second sample
+        assertEquals(Arrays.asList(3, 5, 7, 9), completed);
+    }
+
+    @Test
+    public void testRunningFeaturesMatchRecomputedWindow() throws Exception {
+        int length = 16;
+        EmgFeatureWindow window = new EmgFeatureWindow(2, length, 3, 0);
+        Random random = new Random(42);
+        short[][] history = new short[200][];
+        for (int n = 0; n < history.length; n++) {
+            history[n] = new short[]{(short) (random.nextInt(256) - 128), (short) (random.nextInt(2000) - 1000)};
+            if (window.add(n, history[n])) {
+                for (int ch = 0; ch < 2; ch++) {
+                    float[] expected = recompute(history, n - length + 1, n, ch);
+                    for (int f = 0; f < EmgFeatureWindow.FEATURES_PER_CHANNEL; f++) {
+                        assertEquals("sample " + n + " channel " + ch + " feature " + f,
+                                expected[f], window.getFeature(ch, f), 1e-3f * Math.max(1f, expected[f]));
+                    }
+                }
+            }
+        }
+    }
+
+    private static float[] recompute(short[][] history, int first, int last, int ch) {
+        double squares = 0;
+        double absolutes = 0;
+        double waveform = 0;
+        int zeroCrossings = 0;
+        int slopeSignChanges = 0;
+        for (int i = first; i <= last; i++) {
+            int x = history[i][ch];
+            squares += (double) x * x;
+            absolutes += Math.abs(x);
+            if (i > first) {
+                int previous = history[i - 1][ch];
+                waveform += Math.abs(x - previous);
+                if ((previous > 0 && x < 0) || (previous < 0 && x > 0)) zeroCrossings++;
+                if (i > first + 1) {
+                    int beforePrevious = history[i - 2][ch];
+                    if ((long) (previous - beforePrevious) * (previous - x) > 0) slopeSignChanges++;
+                }
+            }
+        }
+        int n = last - first + 1;
+        return new float[]{(float) Math.sqrt(squares / n), (float) (absolutes / n), (float) waveform, zeroCrossings, slopeSignChanges};
+    }
+}
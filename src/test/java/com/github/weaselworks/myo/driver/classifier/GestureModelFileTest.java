@@ -0,0 +1,65 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GestureModelFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexedModelClassifiesLikeFreshTree() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        Path path = folder.newFile("gestures.model").toPath();
+
+        GestureModelFile.write(path, dataset, true);
+        GestureModelFile model = GestureModelFile.map(path);
+
+        assertTrue(model.hasIndex());
+        assertEquals(dataset.size(), model.getDataset().size());
+        KdTreeClassifier mapped = model.classifier(KdTreeClassifier.DEFAULT_K);
+        KdTreeClassifier built = new KdTreeClassifier(dataset, KdTreeClassifier.DEFAULT_K);
+        Random random = new Random(3);
+        float[] query = new float[dataset.getDimensions()];
+        for (int q = 0; q < 100; q++) {
+            for (int d = 0; d < query.length; d++) {
+                query[d] = 100 + random.nextFloat() * 500;
+            }
+            assertEquals(built.classify(query), mapped.classify(query));
+        }
+    }
+
+    @Test
+    public void testRoundTripsRowsWithoutIndex() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        Path path = folder.newFile("plain.model").toPath();
+
+        GestureModelFile.write(path, dataset, false);
+        GestureDataset loaded = GestureModelFile.map(path).getDataset();
+
+        assertEquals(dataset.size(), loaded.size());
+        for (int i = 0; i < dataset.size(); i += 97) {
+            assertEquals(dataset.getPose(i), loaded.getPose(i));
+            for (int d = 0; d < dataset.getDimensions(); d++) {
+                assertEquals(dataset.get(i, d), loaded.get(i, d), 0f);
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws Exception {
+        Path path = folder.newFile("not-a.model").toPath();
+        Files.write(path, "412,159,564,298,196,223,196,205,x".getBytes("UTF-8"));
+
+        GestureModelFile.map(path);
+    }
+}
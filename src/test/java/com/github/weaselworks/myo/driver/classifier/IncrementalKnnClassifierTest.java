@@ -0,0 +1,133 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IncrementalKnnClassifierTest {
+
+    @Test
+    public void testAgreesWithStaticTreeOnSameData() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        IncrementalKnnClassifier online = new IncrementalKnnClassifier(dataset, 5);
+        KdTreeClassifier fixed = new KdTreeClassifier(dataset, 5);
+        Random random = new Random(11);
+        float[] query = new float[dataset.getDimensions()];
+
+        assertEquals(dataset.size(), online.size());
+        for (int q = 0; q < 200; q++) {
+            for (int d = 0; d < query.length; d++) {
+                query[d] = 100 + random.nextFloat() * 500;
+            }
+            assertEquals(fixed.classify(query), online.classify(query));
+        }
+    }
+
+    @Test
+    public void testLearnedExamplesAreUsedImmediately() throws Exception {
+        IncrementalKnnClassifier classifier = new IncrementalKnnClassifier(2, 1);
+        assertEquals(Pose.UNKNOWN, classifier.classify(new float[]{5, 5}));
+
+        classifier.learn(new float[]{0, 0}, Pose.FIST);
+        classifier.learn(new float[]{10, 10}, Pose.SPREAD);
+
+        assertEquals(Pose.FIST, classifier.classify(new float[]{1, 2}));
+        assertEquals(Pose.SPREAD, classifier.classify(new float[]{9, 7}));
+    }
+
+    @Test
+    public void testSortedAndRepeatedExamplesKeepTheTreeShallow() throws Exception {
+        // a held pose: amplitude slowly rising on every channel, then the same window over and over
+        IncrementalKnnClassifier classifier = new IncrementalKnnClassifier(8, 1);
+        float[] row = new float[8];
+        for (int i = 0; i < 50000; i++) {
+            Arrays.fill(row, i * 0.01f);
+            classifier.learn(row, i < 25000 ? Pose.FIST : Pose.SPREAD);
+        }
+        Arrays.fill(row, -1);
+        for (int i = 0; i < 20000; i++) {
+            classifier.learn(row, Pose.LEFT);
+        }
+
+        assertEquals(70000, classifier.size());
+        assertTrue("Depth " + classifier.depth(), classifier.depth() <= IncrementalKnnClassifier.maxDepth(classifier.size()));
+        Arrays.fill(row, 100);
+        assertEquals(Pose.FIST, classifier.classify(row));
+        Arrays.fill(row, 400);
+        assertEquals(Pose.SPREAD, classifier.classify(row));
+        Arrays.fill(row, -1);
+        assertEquals(Pose.LEFT, classifier.classify(row));
+    }
+
+    @Test
+    public void testClassifiesWhileLearningOnAnotherThread() throws Exception {
+        // a 200 x 100 grid of points, each with its own pose, learned in random order
+        int rows = 20000;
+        Pose[] poses = {Pose.FIST, Pose.LEFT, Pose.RIGHT, Pose.SPREAD};
+        int[] order = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        Random random = new Random(1);
+        for (int i = rows - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        IncrementalKnnClassifier classifier = new IncrementalKnnClassifier(2, 1);
+        AtomicInteger learned = new AtomicInteger();
+        List<String> failures = new CopyOnWriteArrayList<>();
+        Thread trainer = new Thread(() -> {
+            for (int i = 0; i < rows; i++) {
+                classifier.learn(point(order[i]), poses[order[i] % poses.length]);
+                learned.set(i + 1);
+            }
+        });
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            long seed = r;
+            readers[r] = new Thread(() -> {
+                Random pick = new Random(seed);
+                while (learned.get() < rows) {
+                    int known = learned.get();
+                    if (known == 0) {
+                        continue;
+                    }
+                    // a row learned before the query started must be found, whatever is inserted meanwhile
+                    int row = order[pick.nextInt(known)];
+                    Pose pose = classifier.classify(point(row));
+                    if (pose != poses[row % poses.length]) {
+                        failures.add("row " + row + " classified as " + pose + " after " + known + " rows");
+                    }
+                }
+            });
+        }
+        trainer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        trainer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(Collections.emptyList(), failures);
+        assertEquals(rows, classifier.size());
+        for (int row = 0; row < rows; row++) {
+            assertEquals("row " + row, poses[row % poses.length], classifier.classify(point(row)));
+        }
+    }
+
+    private static float[] point(int row) {
+        return new float[]{row % 200 * 10, row / 200 * 10};
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KdTreeClassifierTest {
+
+    @Test
+    public void testLoadsBundledGestures() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+
+        assertEquals(3760, dataset.size());
+        assertEquals(8, dataset.getDimensions());
+        assertEquals(412f, dataset.get(0, 0), 0f);
+    }
+
+    @Test
+    public void testMatchesLinearScan() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        KdTreeClassifier classifier = new KdTreeClassifier(dataset, 5);
+        Random random = new Random(7);
+        float[] query = new float[dataset.getDimensions()];
+        float[] row = new float[dataset.getDimensions()];
+        for (int q = 0; q < 200; q++) {
+            dataset.copyRow(random.nextInt(dataset.size()), row);
+            for (int d = 0; d < query.length; d++) {
+                query[d] = row[d] + (float) random.nextGaussian() * 40f;
+            }
+            assertEquals(linearScan(dataset, query, 5), classifier.classify(query));
+        }
+    }
+
+    @Test
+    public void testNearestRowWinsWithKOfOne() throws Exception {
+        GestureDataset dataset = GestureDataset.load(new StringReader("0,0,FIST\n10,10,LEFT\n0,10,x\n"), 2);
+        KdTreeClassifier classifier = new KdTreeClassifier(dataset, 1);
+
+        assertEquals(Pose.FIST, classifier.classify(new float[]{1, 2}));
+        assertEquals(Pose.LEFT, classifier.classify(new float[]{9, 8}));
+        assertEquals(Pose.UNKNOWN, classifier.classify(new float[]{1, 9}));
+    }
+
+    private static Pose linearScan(GestureDataset dataset, float[] query, int k) {
+        float[] best = new float[k];
+        int[] labels = new int[k];
+        Arrays.fill(best, Float.POSITIVE_INFINITY);
+        for (int i = 0; i < dataset.size(); i++) {
+            float distance = 0;
+            for (int d = 0; d < query.length; d++) {
+                float delta = query[d] - dataset.get(i, d);
+                distance += delta * delta;
+            }
+            for (int j = 0; j < k; j++) {
+                if (distance < best[j]) {
+                    System.arraycopy(best, j, best, j + 1, k - j - 1);
+                    System.arraycopy(labels, j, labels, j + 1, k - j - 1);
+                    best[j] = distance;
+                    labels[j] = dataset.getLabel(i);
+                    break;
+                }
+            }
+        }
+        int[] votes = new int[dataset.getClasses().length];
+        for (int label : labels) {
+            votes[label]++;
+        }
+        int winner = labels[0];
+        for (int label : labels) {
+            if (votes[label] > votes[winner]) {
+                winner = label;
+            }
+        }
+        return dataset.getClasses()[winner];
+    }
+}
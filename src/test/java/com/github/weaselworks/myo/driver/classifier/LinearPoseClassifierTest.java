@@ -0,0 +1,59 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class LinearPoseClassifierTest {
+
+    @Test
+    public void testProvidersAreFoundByName() throws Exception {
+        assertTrue(PoseClassifiers.forName("knn") instanceof KnnProvider);
+        assertTrue(PoseClassifiers.forName("LDA") instanceof LdaProvider);
+        assertTrue(PoseClassifiers.forName("logistic") instanceof LogisticRegressionProvider);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownProviderIsRejected() throws Exception {
+        PoseClassifiers.forName("svm");
+    }
+
+    @Test
+    public void testLinearModelsBeatMajorityClass() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        int unknown = 0;
+        for (int i = 0; i < dataset.size(); i++) {
+            if (dataset.getPose(i) == Pose.UNKNOWN) unknown++;
+        }
+        double majority = (double) unknown / dataset.size();
+
+        for (String name : new String[]{LdaProvider.NAME, LogisticRegressionProvider.NAME}) {
+            PoseClassifier classifier = PoseClassifiers.train(name, dataset, new Properties());
+            double accuracy = accuracy(classifier, dataset);
+            assertTrue(String.format("%s accuracy %.3f, majority %.3f", name, accuracy, majority), accuracy > majority);
+        }
+    }
+
+    @Test
+    public void testScoresAreLinear() throws Exception {
+        LinearPoseClassifier classifier = new LinearPoseClassifier(
+                new float[]{1, 0, 0, 1}, new float[]{0, 0.5f}, new Pose[]{Pose.FIST, Pose.SPREAD});
+
+        assertEquals(Pose.FIST, classifier.classify(new float[]{2, 1}));
+        assertEquals(Pose.SPREAD, classifier.classify(new float[]{1, 1}));
+        assertEquals(1.5f, classifier.score(1, new float[]{1, 1}), 0f);
+    }
+
+    private static double accuracy(PoseClassifier classifier, GestureDataset dataset) {
+        float[] row = new float[dataset.getDimensions()];
+        int correct = 0;
+        for (int i = 0; i < dataset.size(); i++) {
+            dataset.copyRow(i, row);
+            if (classifier.classify(row) == dataset.getPose(i)) correct++;
+        }
+        return (double) correct / dataset.size();
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PoseStateMachineTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testHeldPoseFiresOnceOnEnterAndOnceOnExit() throws Exception {
+        PoseStateMachine machine = new PoseStateMachine(3, 100, TimeUnit.MILLISECONDS);
+        int transitions = 0;
+        long time = 0;
+        for (int i = 0; i < 50; i++, time += 20 * MS) {
+            if (machine.update(time, Pose.FIST)) transitions++;
+        }
+        assertEquals(Pose.FIST, machine.getCurrent());
+        for (int i = 0; i < 50; i++, time += 20 * MS) {
+            if (machine.update(time, Pose.UNKNOWN)) transitions++;
+        }
+
+        assertEquals(2, transitions);
+        assertEquals(Pose.UNKNOWN, machine.getCurrent());
+        assertEquals(Pose.FIST, machine.getPrevious());
+    }
+
+    @Test
+    public void testIsolatedMisclassificationsAreIgnored() throws Exception {
+        PoseStateMachine machine = new PoseStateMachine(5, 0, TimeUnit.MILLISECONDS);
+        Pose[] stream = {Pose.UNKNOWN, Pose.LEFT, Pose.UNKNOWN, Pose.UNKNOWN, Pose.RIGHT, Pose.UNKNOWN, Pose.LEFT, Pose.UNKNOWN};
+        for (int i = 0; i < stream.length; i++) {
+            assertFalse(machine.update(i * 20 * MS, stream[i]));
+        }
+        assertEquals(Pose.UNKNOWN, machine.getCurrent());
+    }
+
+    @Test
+    public void testPoseMustHoldMajorityForMinimumHold() throws Exception {
+        PoseStateMachine machine = new PoseStateMachine(1, 100, TimeUnit.MILLISECONDS);
+
+        assertFalse(machine.update(0, Pose.SPREAD));
+        assertFalse(machine.update(60 * MS, Pose.SPREAD));
+        // losing the majority restarts the hold
+        assertFalse(machine.update(80 * MS, Pose.UNKNOWN));
+        assertFalse(machine.update(100 * MS, Pose.SPREAD));
+        assertFalse(machine.update(180 * MS, Pose.SPREAD));
+        assertTrue(machine.update(200 * MS, Pose.SPREAD));
+        assertEquals(Pose.SPREAD, machine.getCurrent());
+    }
+}
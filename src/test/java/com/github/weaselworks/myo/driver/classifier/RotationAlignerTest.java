@@ -0,0 +1,55 @@
+package com.github.weaselworks.myo.driver.classifier;
+
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RotationAlignerTest {
+
+    @Test
+    public void testRecoversEveryRotationOfEveryPose() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        for (Pose pose : new Pose[]{Pose.FIST, Pose.SPREAD, Pose.LEFT, Pose.RIGHT}) {
+            RotationAligner aligner = RotationAligner.forPose(dataset, pose);
+            float[] row = new float[dataset.getDimensions()];
+            float[] worn = new float[row.length];
+            for (int rotation = 0; rotation < EmgDecoder.CHANNELS; rotation++) {
+                aligner.reset();
+                for (int r = 0; r < dataset.size(); r++) {
+                    if (dataset.getPose(r) != pose) continue;
+                    dataset.copyRow(r, row);
+                    // pod i of the rotated armband sees what channel i - rotation saw in training
+                    for (int i = 0; i < row.length; i++) {
+                        worn[(i + rotation) % row.length] = row[i];
+                    }
+                    aligner.add(worn);
+                }
+                assertEquals(pose + " rotated by " + rotation, rotation, aligner.estimate());
+            }
+        }
+    }
+
+    @Test
+    public void testDecoderRotationUndoesTheOffset() throws Exception {
+        byte[] packet = new byte[EmgDecoder.PAYLOAD_LENGTH];
+        for (int i = 0; i < EmgDecoder.CHANNELS; i++) {
+            int pod = (i + 3) % EmgDecoder.CHANNELS;
+            packet[2 * pod] = (byte) i;
+        }
+        EmgDecoder decoder = new EmgDecoder();
+
+        decoder.setRotation(3);
+
+        short[] channels = decoder.decode(packet);
+        for (int i = 0; i < channels.length; i++) {
+            assertEquals(i, channels[i]);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNeedsAWindowToEstimate() throws Exception {
+        new RotationAligner(new float[EmgDecoder.CHANNELS]).estimate();
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.weaselworks.myo.driver.emulator;
+
+import com.github.weaselworks.myo.driver.BgapiPackets;
+import com.github.weaselworks.myo.driver.BluetoothClientFactory;
+import com.github.weaselworks.myo.driver.EmgDecoder;
+import com.github.weaselworks.myo.driver.ImuFrame;
+import com.github.weaselworks.myo.driver.MyoApplication;
+import com.github.weaselworks.myo.driver.Pose;
+import com.github.weaselworks.myo.driver.classifier.EmgFeatureWindow;
+import com.github.weaselworks.myo.driver.classifier.GestureDataset;
+import com.github.weaselworks.myo.driver.classifier.KdTreeClassifier;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.weaselworks.myo.driver.BgapiProtocol.*;
+import static org.junit.Assert.*;
+
+public class Bled112EmulatorTest {
+
+    @Test
+    public void testScanConnectAndStream() throws Exception {
+        CapturingEmulator emulator = new CapturingEmulator(3, 10.0);
+        try {
+            emulator.command(CLASS_GAP, GAP_DISCOVER, new byte[]{1});
+            assertEquals(4, emulator.responses.size());
+            assertEquals("e0:00:00:00:00:02", BgapiPackets.address(emulator.responses.get(2), HEADER_LENGTH + 2));
+
+            ByteBuffer connect = ByteBuffer.allocate(15).order(ByteOrder.LITTLE_ENDIAN);
+            connect.put(BgapiPackets.address("e0:00:00:00:00:02"));
+            emulator.command(CLASS_GAP, GAP_CONNECT_DIRECT, connect.array());
+            ByteBuffer response = emulator.responses.get(4);
+            assertEquals(0, uint16(response, HEADER_LENGTH));
+            int connection = uint8(response, HEADER_LENGTH + 2);
+            assertEquals(1, connection);
+
+            emulator.command(CLASS_ATTCLIENT, ATTCLIENT_ATTRIBUTE_WRITE,
+                    new byte[]{(byte) connection, MyoApplication.EMG, 0, 2, 1, 0});
+            emulator.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (emulator.getNotifications() < 200 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        } finally {
+            emulator.stop();
+        }
+
+        assertTrue(emulator.getNotifications() >= 200);
+        for (ByteBuffer packet : emulator.packets) {
+            assertEquals(EVENT_ATTCLIENT_ATTRIBUTE_VALUE, uint8(packet, 3));
+            assertEquals(1, uint8(packet, HEADER_LENGTH));
+            assertEquals(MyoApplication.EMG_VALUE, uint16(packet, HEADER_LENGTH + 1));
+            assertEquals(EmgDecoder.PAYLOAD_LENGTH, uint8(packet, HEADER_LENGTH + 4));
+        }
+    }
+
+    @Test
+    public void testReadsFirmwareAndRejectsUnknownHandles() throws Exception {
+        CapturingEmulator emulator = new CapturingEmulator(1, 1.0);
+        emulator.command(CLASS_GAP, GAP_CONNECT_DIRECT, BgapiPackets.address("e0:00:00:00:00:01"));
+        emulator.responses.clear();
+
+        emulator.command(CLASS_ATTCLIENT, ATTCLIENT_READ_BY_HANDLE, new byte[]{0, Bled112Emulator.VERSION_HANDLE, 0});
+        emulator.command(CLASS_ATTCLIENT, ATTCLIENT_READ_BY_HANDLE, new byte[]{0, 0x55, 0});
+
+        assertEquals(4, emulator.responses.size());
+        assertEquals(EVENT_ATTCLIENT_ATTRIBUTE_VALUE, uint8(emulator.responses.get(1), 3));
+        assertEquals(Bled112Emulator.VERSION_HANDLE, uint16(emulator.responses.get(1), HEADER_LENGTH + 1));
+        assertEquals(EVENT_ATTCLIENT_PROCEDURE_COMPLETED, uint8(emulator.responses.get(3), 3));
+        assertNotEquals(0, uint16(emulator.responses.get(3), HEADER_LENGTH + 1));
+        emulator.stop();
+    }
+
+    @Test
+    public void testSyntheticEmgIsRecognised() throws Exception {
+        GestureDataset dataset = GestureDataset.loadDefault();
+        KdTreeClassifier classifier = new KdTreeClassifier(dataset);
+        int hold = 400;
+        VirtualMyo myo = new VirtualMyo("e0:00:00:00:00:01", VirtualMyo.templates(dataset), hold, 7);
+        EmgFeatureWindow window = new EmgFeatureWindow();
+        EmgDecoder decoder = new EmgDecoder();
+        byte[] payload = new byte[EmgDecoder.PAYLOAD_LENGTH];
+        float[] mav = new float[EmgDecoder.CHANNELS];
+
+        int windows = 0;
+        int recognised = 0;
+        for (int sample = 0; sample < 8 * hold; sample++) {
+            Pose playing = myo.getPose();
+            myo.emg(payload);
+            if (window.add(sample, decoder.decode(payload)) && sample % hold >= EmgFeatureWindow.DEFAULT_WINDOW) {
+                window.copyFeature(EmgFeatureWindow.MEAN_ABSOLUTE_VALUE, mav);
+                windows++;
+                if (classifier.classify(mav) == playing) recognised++;
+            }
+        }
+
+        assertTrue(recognised + " of " + windows, recognised > windows * 0.8);
+    }
+
+    @Test
+    public void testDrivesMyoApplicationWithSeveralArmbands() throws Exception {
+        Bled112Emulator emulator = new Bled112Emulator(3, Bled112Emulator.DEFAULT_EMG_RATE, Bled112Emulator.DEFAULT_IMU_RATE, 10.0);
+        MyoApplication myo = new MyoApplication(BluetoothClientFactory.forTransport("emulator", emulator),
+                new KdTreeClassifier(GestureDataset.loadDefault()));
+        myo.start();
+        emulator.start();
+        Map<Integer, List<short[]>> samples = new ConcurrentHashMap<>();
+        Map<Integer, List<short[]>> frames = new ConcurrentHashMap<>();
+        Map<Integer, List<Pose>> poses = new ConcurrentHashMap<>();
+        try {
+            for (VirtualMyo device : emulator.getDevices()) {
+                int connection = myo.connect(device.getAddress(), null).get(5, TimeUnit.SECONDS);
+                assertEquals(connection, device.getConnection());
+                assertEquals(device.getAddress(), myo.getSessionManager().get(connection).getAddress());
+                List<short[]> emg = new CopyOnWriteArrayList<>();
+                List<short[]> imu = new CopyOnWriteArrayList<>();
+                List<Pose> entered = new CopyOnWriteArrayList<>();
+                samples.put(connection, emg);
+                frames.put(connection, imu);
+                poses.put(connection, entered);
+                myo.getSessionManager().get(connection).onPose(entered::add);
+                assertTrue(myo.subscribeMyoData(connection, frame -> {
+                    short[] values = new short[ImuFrame.VALUES];
+                    frame.copyTo(values);
+                    imu.add(values);
+                }, (timestamp, channels) -> emg.add(channels.clone())).get(5, TimeUnit.SECONDS));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (poses.values().stream().anyMatch(List::isEmpty) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        } finally {
+            myo.shutdown();
+        }
+
+        assertEquals(3, poses.size());
+        for (int connection : poses.keySet()) {
+            assertFalse("No pose on connection " + connection, poses.get(connection).isEmpty());
+            assertTrue(poses.get(connection).stream().allMatch(Pose::isKnownPose));
+            assertFalse(samples.get(connection).isEmpty());
+            for (short[] channels : samples.get(connection)) {
+                assertEquals(EmgDecoder.CHANNELS, channels.length);
+            }
+            assertFalse(frames.get(connection).isEmpty());
+            for (short[] frame : frames.get(connection)) {
+                // gyro x, y; accel x, y, z; orientation x, y of a rotation about z at rest
+                assertEquals(0, frame[0]);
+                assertEquals(0, frame[1]);
+                assertEquals(0, frame[3]);
+                assertEquals(0, frame[4]);
+                assertEquals((short) ImuFrame.ACCELEROMETER_SCALE, frame[5]);
+                assertEquals(0, frame[7]);
+                assertEquals(0, frame[8]);
+                float w = frame[6] / ImuFrame.ORIENTATION_SCALE;
+                float z = frame[9] / ImuFrame.ORIENTATION_SCALE;
+                assertEquals(1.0f, w * w + z * z, 0.01f);
+            }
+        }
+    }
+
+    private static class CapturingEmulator extends Bled112Emulator {
+
+        final List<ByteBuffer> packets = new CopyOnWriteArrayList<>();
+        final List<ByteBuffer> responses = new CopyOnWriteArrayList<>();
+
+        CapturingEmulator(int devices, double speed) throws IOException {
+            super(devices, DEFAULT_EMG_RATE, DEFAULT_IMU_RATE, speed);
+        }
+
+        void command(int classId, int commandId, byte[] payload) {
+            onCommand(classId, commandId, ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        @Override
+        protected void emit(byte[] packet) {
+            packets.add(ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        @Override
+        protected void respond(byte[] packet) {
+            responses.add(ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.weaselworks.myo.driver.metrics;
+
+import com.github.weaselworks.myo.driver.MyoApplication;
+import com.github.weaselworks.myo.driver.MyoSession;
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguousAndWithinResolution() throws Exception {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue("bucket of " + value, bucket == previous || bucket == previous + 1);
+            long highest = LatencyHistogram.highestEquivalentValue(bucket);
+            assertTrue(highest >= value);
+            assertTrue("resolution at " + value, highest - value <= Math.max(0, value / 32));
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(LatencyHistogram.HIGHEST_TRACKABLE));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500.0, histogram.getMean(), 0.001);
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.getValueAtPercentile(50), 500000 / 32);
+        assertEquals(990000, histogram.getValueAtPercentile(99), 990000 / 32);
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+        LatencySummary summary = histogram.summarise("test");
+        assertEquals(1000, summary.getCount());
+        assertEquals(histogram.getValueAtPercentile(90), summary.getP90());
+        assertEquals(histogram.getValueAtPercentile(99.9), summary.getP999());
+    }
+
+    @Test
+    public void testClampsAndResets() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.HIGHEST_TRACKABLE, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testSessionRecordsEveryStage() throws Exception {
+        ConnectionLatency latency = new ConnectionLatency(2, null);
+        MyoSession session = new MyoSession(2, null, features -> Pose.FIST);
+        session.setFeatureWindow(5, 5);
+        session.setPoseDebounce(1, 0);
+        session.setLatency(latency);
+
+        byte[] emg = new byte[16];
+        for (int i = 0; i < 100; i++) {
+            emg[0] = (byte) (i % 2 == 0 ? 40 : -40);
+            session.attributeValue(System.nanoTime(), MyoApplication.EMG_VALUE, emg, emg.length);
+        }
+
+        assertEquals(0, latency.get(LatencyStage.RECEIVE).getCount());
+        assertEquals(100, latency.get(LatencyStage.DISPATCH).getCount());
+        assertEquals(100, latency.get(LatencyStage.DECODE).getCount());
+        assertEquals(100, latency.get(LatencyStage.FEATURE).getCount());
+        long classified = latency.get(LatencyStage.CLASSIFY).getCount();
+        assertTrue(classified > 1);
+        // only the window entering the fist changed the pose
+        assertEquals(1, latency.get(LatencyStage.CALLBACK).getCount());
+        assertEquals(1, latency.getEndToEnd().getCount());
+    }
+
+    @Test
+    public void testConnectionsAreRegisteredWhileOpen() throws Exception {
+        LatencyMetrics metrics = new LatencyMetrics(ManagementFactory.getPlatformMBeanServer(), "/dev/test");
+        ConnectionLatency latency = metrics.open(7, "c3:69:40:b1:5d:f6");
+        latency.record(LatencyStage.DECODE, 0, 1500);
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.objectName(latency)));
+        List<LatencySummary> stages = latency.getStages();
+        assertEquals(LatencyStage.values().length, stages.size());
+        assertEquals("DECODE", stages.get(LatencyStage.DECODE.ordinal()).getStage());
+        assertEquals(1, stages.get(LatencyStage.DECODE.ordinal()).getCount());
+        assertSame(latency, metrics.get(7));
+
+        metrics.close(7);
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.objectName(latency)));
+        assertNull(metrics.get(7));
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.weaselworks.myo.driver.recording;
+
+import com.github.weaselworks.myo.driver.BluetoothClientFactory;
+import com.github.weaselworks.myo.driver.ImuFrame;
+import com.github.weaselworks.myo.driver.MyoApplication;
+import com.github.weaselworks.myo.driver.MyoSession;
+import com.github.weaselworks.myo.driver.Pose;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.thingml.bglib.BDAddr;
+import org.thingml.bglib.BGAPI;
+import org.thingml.bglib.BGAPIDefaultListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class ReplayTransportTest {
+
+    private static final String ADDRESS = "c3:69:40:b1:5d:f6";
+
+    // a resting armband: orientation 16100, -1203, 2650, -310, accel -31, 95, 2042, gyro 3, -2, 1
+    private static final byte[] IMU = {
+            (byte) 0xe4, 0x3e, 0x4d, (byte) 0xfb, 0x5a, 0x0a, (byte) 0xca, (byte) 0xfe, (byte) 0xe1, (byte) 0xff,
+            0x5f, 0x00, (byte) 0xfa, 0x07, 0x03, 0x00, (byte) 0xfe, (byte) 0xff, 0x01, 0x00};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplaysRecordsThroughBglib() throws Exception {
+        ReplayTransport replay = new ReplayTransport(record(TimeUnit.MILLISECONDS.toNanos(1)), ReplayTransport.AS_FAST_AS_POSSIBLE);
+        CallRecorder calls = new CallRecorder();
+        new BGAPI(replay).addListener(calls);
+
+        replay.start();
+        try {
+            awaitTrue(() -> calls.calls.size() >= 8);
+        } finally {
+            replay.stop();
+        }
+
+        assertEquals(Arrays.asList(
+                "connect_direct 0 1",
+                "status 1 " + ADDRESS,
+                "attribute_value 1 39 [7, 8]",
+                // a connection first seen through a value gets a connect
+                "connect_direct 0 2",
+                "status 2 00:00:00:00:00:00",
+                "attribute_value 2 39 [9]",
+                "attribute_value 1 42 [1, 2, 3]",
+                "disconnected 1 531"), calls.calls);
+        assertEquals(5, replay.getReplayed());
+    }
+
+    @Test
+    public void testScaledReplayKeepsRecordedPacing() throws Exception {
+        ReplayTransport replay = new ReplayTransport(record(TimeUnit.MILLISECONDS.toNanos(100)), 2.0);
+        CallRecorder calls = new CallRecorder();
+        new BGAPI(replay).addListener(calls);
+
+        long started = System.nanoTime();
+        replay.start();
+        try {
+            awaitTrue(() -> calls.calls.size() >= 8);
+        } finally {
+            replay.stop();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        // four gaps of 100ms at double speed
+        assertTrue("Replay took " + elapsed, elapsed >= TimeUnit.MILLISECONDS.toNanos(195));
+        assertTrue("Replay took " + elapsed, elapsed < TimeUnit.MILLISECONDS.toNanos(2000));
+    }
+
+    @Test
+    public void testAcknowledgesAttributeWrites() throws Exception {
+        ReplayTransport replay = new ReplayTransport(record(1), ReplayTransport.AS_FAST_AS_POSSIBLE);
+        CallRecorder calls = new CallRecorder();
+        BGAPI client = new BGAPI(replay);
+        client.addListener(calls);
+        replay.start();
+        try {
+            awaitTrue(replay::isFinished);
+
+            client.send_attclient_attribute_write(1, 0x19, new byte[]{1, 3});
+
+            awaitTrue(() -> calls.calls.size() >= 10);
+        } finally {
+            replay.stop();
+        }
+        assertEquals(Arrays.asList("attribute_write 1 0", "procedure_completed 1 0 25"), calls.calls.subList(8, 10));
+    }
+
+    @Test
+    public void testReplaysConnectsRecordedWithoutAddress() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        try (SessionRecorder recorder = new SessionRecorder(directory, "session", 128 * 1024)) {
+            // a session opened before its armband was known
+            recorder.connected(1000, 1, null);
+            recorder.attributeValue(2000, 1, 0x27, new byte[]{7, 8});
+            recorder.disconnected(3000, 1, 0x13);
+        }
+        ReplayTransport replay = new ReplayTransport(SessionLogReader.segments(directory, "session"), ReplayTransport.AS_FAST_AS_POSSIBLE);
+        CallRecorder calls = new CallRecorder();
+        new BGAPI(replay).addListener(calls);
+
+        replay.start();
+        try {
+            awaitTrue(() -> calls.calls.size() >= 4);
+        } finally {
+            replay.stop();
+        }
+
+        assertEquals(Arrays.asList(
+                "connect_direct 0 1",
+                "status 1 00:00:00:00:00:00",
+                "attribute_value 1 39 [7, 8]",
+                "disconnected 1 19"), calls.calls);
+        assertEquals(3, replay.getReplayed());
+    }
+
+    @Test
+    public void testReplaysIntoMyoApplication() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        try (SessionRecorder recorder = new SessionRecorder(directory, "session", 1024 * 1024)) {
+            recorder.connected(0, 3, ADDRESS);
+            long t = millis;
+            for (int i = 0; i < 200; i++, t += millis) {
+                short loud = (short) (i % 2 == 0 ? 300 : -300);
+                recorder.attributeValue(t, 3, MyoApplication.EMG_VALUE, emg(loud, (short) 5));
+                if (i % 20 == 0) {
+                    recorder.attributeValue(t, 3, MyoApplication.IMU_VALUE, IMU);
+                }
+            }
+            recorder.disconnected(t, 3, 0x13);
+        }
+        ReplayTransport replay = new ReplayTransport(SessionLogReader.segments(directory, "session"), ReplayTransport.AS_FAST_AS_POSSIBLE);
+        MyoApplication myo = new MyoApplication(BluetoothClientFactory.forTransport("replay", replay),
+                features -> features[0] > 100 ? Pose.FIST : Pose.UNKNOWN);
+        List<MyoSession> sessions = new CopyOnWriteArrayList<>();
+        List<Pose> poses = new CopyOnWriteArrayList<>();
+        List<short[]> samples = new CopyOnWriteArrayList<>();
+        List<short[]> frames = new CopyOnWriteArrayList<>();
+        myo.setPoseDebounce(1, 0);
+        myo.onPose(poses::add);
+        myo.onSessionOpened(session -> {
+            session.setEmgSink((timestamp, channels) -> samples.add(channels.clone()));
+            session.setImuListener(frame -> {
+                short[] values = new short[ImuFrame.VALUES];
+                frame.copyTo(values);
+                frames.add(values);
+            });
+            sessions.add(session);
+        });
+        myo.start();
+        replay.start();
+        try {
+            // the disconnect is replayed after every value, so a closed session has seen them all
+            awaitTrue(() -> !sessions.isEmpty() && myo.getSessionManager().get(3) == null);
+        } finally {
+            myo.shutdown();
+        }
+
+        // the recorded address comes from the replayed connection status
+        assertEquals(1, sessions.size());
+        assertEquals(3, sessions.get(0).getConnection());
+        assertEquals(ADDRESS, sessions.get(0).getAddress());
+        assertEquals(200, samples.size());
+        assertArrayEquals(new short[]{300, 5, 5, 5, 5, 5, 5, 5}, samples.get(0));
+        assertArrayEquals(new short[]{-300, 5, 5, 5, 5, 5, 5, 5}, samples.get(1));
+        assertEquals(10, frames.size());
+        short[] imu = new short[ImuFrame.VALUES];
+        new ImuFrame().decode(IMU, 0).copyTo(imu);
+        assertArrayEquals(imu, frames.get(9));
+        assertEquals(Arrays.asList(Pose.FIST), poses);
+    }
+
+    private List<Path> record(long gap) throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (SessionRecorder recorder = new SessionRecorder(directory, "session", 128 * 1024)) {
+            recorder.connected(1000, 1, ADDRESS);
+            recorder.attributeValue(1000 + gap, 1, 0x27, new byte[]{7, 8});
+            recorder.attributeValue(1000 + 2 * gap, 2, 0x27, new byte[]{9});
+            recorder.attributeValue(1000 + 3 * gap, 1, 0x2a, new byte[]{1, 2, 3});
+            recorder.disconnected(1000 + 4 * gap, 1, 0x213);
+        }
+        return SessionLogReader.segments(directory, "session");
+    }
+
+    private static byte[] emg(short first, short others) {
+        byte[] data = new byte[16];
+        for (int ch = 0; ch < 8; ch++) {
+            short value = ch == 0 ? first : others;
+            data[2 * ch] = (byte) value;
+            data[2 * ch + 1] = (byte) (value >> 8);
+        }
+        return data;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Writes down the calls bglib makes after parsing the replayed packets.
+     */
+    private static class CallRecorder extends BGAPIDefaultListener {
+
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void receive_gap_connect_direct(int result, int connection_handle) {
+            calls.add("connect_direct " + result + " " + connection_handle);
+        }
+
+        @Override
+        public void receive_connection_status(int connection, int flags, BDAddr address, int address_type,
+                                              int conn_interval, int timeout, int latency, int bonding) {
+            calls.add("status " + connection + " " + address);
+        }
+
+        @Override
+        public void receive_attclient_attribute_value(int connection, int atthandle, int type, byte[] value) {
+            calls.add("attribute_value " + connection + " " + atthandle + " " + Arrays.toString(value));
+        }
+
+        @Override
+        public void receive_connection_disconnected(int connection, int reason) {
+            calls.add("disconnected " + connection + " " + reason);
+        }
+
+        @Override
+        public void receive_attclient_attribute_write(int connection, int result) {
+            calls.add("attribute_write " + connection + " " + result);
+        }
+
+        @Override
+        public void receive_attclient_procedure_completed(int connection, int result, int chrhandle) {
+            calls.add("procedure_completed " + connection + " " + result + " " + chrhandle);
+        }
+    }
+}
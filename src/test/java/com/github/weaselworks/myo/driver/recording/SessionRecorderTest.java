@@ -0,0 +1,80 @@
+package com.github.weaselworks.myo.driver.recording;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionRecorderTest {
+
+    private static final long SEGMENT_SIZE = 128 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadsBackEveryRecordType() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (SessionRecorder recorder = new SessionRecorder(directory, "session", SEGMENT_SIZE)) {
+            recorder.connected(10, 1, "c3:69:40:b1:5d:f6");
+            recorder.attributeValue(20, 1, 0x27, new byte[]{1, 2, 3});
+            ByteBuffer packet = ByteBuffer.wrap(new byte[]{9, 9, 4, 5, 6, 9});
+            recorder.attributeValue(30, 1, 0x2a, packet, 2, 3);
+            recorder.disconnected(40, 1, 0x208);
+            assertEquals(4, recorder.getRecords());
+        }
+
+        List<Path> segments = SessionLogReader.segments(directory, "session");
+        assertEquals(1, segments.size());
+        assertTrue(Files.size(segments.get(0)) < 200);
+        SessionLogReader reader = new SessionLogReader(segments);
+
+        assertTrue(reader.next());
+        assertEquals(SessionRecorder.CONNECTED, reader.getType());
+        assertEquals("c3:69:40:b1:5d:f6", reader.getAddress());
+        assertTrue(reader.next());
+        assertEquals(SessionRecorder.ATTRIBUTE_VALUE, reader.getType());
+        assertEquals(20, reader.getTimestamp());
+        assertEquals(0x27, reader.getHandle());
+        assertArrayEquals(new byte[]{1, 2, 3}, reader.getPayloadBytes());
+        assertTrue(reader.next());
+        assertArrayEquals(new byte[]{4, 5, 6}, reader.getPayloadBytes());
+        assertEquals(0x2a, reader.getHandle());
+        assertTrue(reader.next());
+        assertEquals(SessionRecorder.DISCONNECTED, reader.getType());
+        assertEquals(0x208, reader.getHandle());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testRollsOverIntoNewSegments() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        byte[] emg = new byte[16];
+        int records = 20000;
+        try (SessionRecorder recorder = new SessionRecorder(directory, "emg", SEGMENT_SIZE)) {
+            for (int i = 0; i < records; i++) {
+                emg[0] = (byte) i;
+                recorder.attributeValue(i, i % 3, 0x27, emg);
+            }
+            assertTrue(recorder.getSegmentFiles().size() > 4);
+        }
+
+        List<Path> segments = SessionLogReader.segments(directory, "emg");
+        assertTrue(segments.size() > 4);
+        SessionLogReader reader = new SessionLogReader(segments);
+        int read = 0;
+        while (reader.next()) {
+            assertEquals(read, reader.getTimestamp());
+            assertEquals(read % 3, reader.getConnection());
+            assertEquals((byte) read, reader.getPayload().get(0));
+            read++;
+        }
+        assertEquals(records, read);
+    }
+}
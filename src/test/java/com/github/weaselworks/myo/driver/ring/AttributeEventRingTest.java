@@ -0,0 +1,59 @@
+package com.github.weaselworks.myo.driver.ring;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AttributeEventRingTest {
+
+    @Test
+    public void testEveryConsumerSeesEveryEvent() throws Exception {
+        AttributeEventRing ring = new AttributeEventRing(64);
+        CountDownLatch done = new CountDownLatch(2 * 100);
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        AttributeEventProcessor a = ring.subscribe((event, sequence, endOfBatch) -> {
+            first.add((int) event.getData()[0]);
+            done.countDown();
+        }, new YieldingWaitStrategy());
+        AttributeEventProcessor b = ring.subscribe((event, sequence, endOfBatch) -> {
+            second.add((int) event.getData()[0]);
+            done.countDown();
+        }, new BlockingWaitStrategy());
+        a.start("ring-test-a");
+        b.start("ring-test-b");
+
+        for (int i = 0; i < 100; i++) {
+            while (!ring.tryPublish(i, 1, 39, new byte[]{(byte) i})) {
+                Thread.yield();
+            }
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        a.halt();
+        b.halt();
+        assertEquals(100, first.size());
+        assertEquals(first, second);
+        assertEquals(99, (int) first.get(99));
+    }
+
+    @Test
+    public void testDropsWhenSlowestConsumerIsARingBehind() throws Exception {
+        AttributeEventRing ring = new AttributeEventRing(4);
+        ring.subscribe((event, sequence, endOfBatch) -> { }, new SleepingWaitStrategy());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.tryPublish(i, 1, 39, new byte[16]));
+        }
+
+        assertFalse(ring.tryPublish(4, 1, 39, new byte[16]));
+        assertEquals(1, ring.getDropped());
+        assertEquals(4, ring.getBacklog());
+    }
+}